@@ -0,0 +1,119 @@
+package org.openrewrite.java.spring.ai.mcp.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.*;
+import org.openrewrite.config.Environment;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.java.spring.ai.mcp.recipe.AddMcpServerConfigRecipe;
+import org.openrewrite.java.spring.ai.mcp.recipe.AddToolAnnotationToMappingMethodRecipe;
+import org.openrewrite.java.spring.ai.mcp.recipe.AddToolCallbackProviderRecipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scanning phase, the editing phase and a complete run of each recipe and of the
+ * {@code MigrateToSpringAIMcpServerRecipe} composite over a synthetic Spring project.
+ * <p>
+ * Add {@code -prof gc} to the command line to report the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeBenchmark {
+    private static final String COMPOSITE = "MigrateToSpringAIMcpServerRecipe";
+
+    @Param({"annotation", "provider", "config", "composite"})
+    String recipe;
+
+    @Param({"100"})
+    int controllers;
+
+    @Param({"10"})
+    int methodsPerController;
+
+    @Param({"2"})
+    int paramsPerMethod;
+
+    @Param({"1"})
+    int bootApplications;
+
+    private List<SourceFile> sourceFiles;
+
+    private Recipe runRecipe;
+
+    /**
+     * The Java recipes of the selected recipe, which are the scanning recipes measured phase by phase
+     */
+    private List<ScanningRecipe<?>> scanningRecipes;
+
+    /**
+     * Accumulators of a completed scan, for the editing phase
+     */
+    private List<Object> scannedAccumulators;
+
+    @Setup
+    public void setup() {
+        sourceFiles = new SyntheticSpringProject(controllers, methodsPerController, paramsPerMethod, bootApplications).parse();
+        scanningRecipes = switch (recipe) {
+            case "annotation" -> List.of(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, null));
+            case "provider" -> List.of(new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null));
+            case "config" -> List.of(new AddMcpServerConfigRecipe(null, null, null, null, null, null, null, null, null, null));
+            case "composite" -> List.of(new AddToolAnnotationToMappingMethodRecipe(true, null, null, null, null, null, null, null, null, null, null),
+                    new AddToolCallbackProviderRecipe(true, null, null, null, null, null, null), new AddMcpServerConfigRecipe(null, true, null, null, null, null, null, null, null, null));
+            default -> throw new IllegalArgumentException("Unknown recipe " + recipe);
+        };
+        runRecipe = "composite".equals(recipe)
+                ? Environment.builder().scanRuntimeClasspath().build().activateRecipes(COMPOSITE)
+                : scanningRecipes.get(0);
+        scannedAccumulators = new ArrayList<>();
+        ExecutionContext ctx = RecipeCycleContext.firstCycle(runRecipe);
+        for (ScanningRecipe<?> scanningRecipe : scanningRecipes) {
+            scannedAccumulators.add(scan(scanningRecipe, ctx));
+        }
+    }
+
+    @Benchmark
+    public void scan(Blackhole bh) {
+        ExecutionContext ctx = RecipeCycleContext.firstCycle(runRecipe);
+        for (ScanningRecipe<?> scanningRecipe : scanningRecipes) {
+            bh.consume(scan(scanningRecipe, ctx));
+        }
+    }
+
+    @Benchmark
+    public void visit(Blackhole bh) {
+        ExecutionContext ctx = RecipeCycleContext.firstCycle(runRecipe);
+        for (int i = 0; i < scanningRecipes.size(); i++) {
+            TreeVisitor<?, ExecutionContext> visitor = visitor(scanningRecipes.get(i), scannedAccumulators.get(i));
+            for (SourceFile sourceFile : sourceFiles) {
+                bh.consume(visitor.visit(sourceFile, ctx));
+            }
+        }
+    }
+
+    @Benchmark
+    public void run(Blackhole bh) {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        bh.consume(runRecipe.run(new InMemoryLargeSourceSet(sourceFiles), ctx));
+    }
+
+    private <T> T scan(ScanningRecipe<T> scanningRecipe, ExecutionContext ctx) {
+        T acc = scanningRecipe.getInitialValue(ctx);
+        TreeVisitor<?, ExecutionContext> scanner = scanningRecipe.getScanner(acc);
+        for (SourceFile sourceFile : sourceFiles) {
+            scanner.visit(sourceFile, ctx);
+        }
+        return acc;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> TreeVisitor<?, ExecutionContext> visitor(ScanningRecipe<T> scanningRecipe, Object acc) {
+        return scanningRecipe.getVisitor((T) acc);
+    }
+}
@@ -0,0 +1,33 @@
+package org.openrewrite.java.spring.ai.mcp.benchmarks;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.Recipe;
+import org.openrewrite.scheduling.RecipeRunCycle;
+import org.openrewrite.scheduling.WatchableExecutionContext;
+import org.openrewrite.table.RecipeRunStats;
+import org.openrewrite.table.SourcesFileErrors;
+import org.openrewrite.table.SourcesFileResults;
+
+/**
+ * Execution contexts in the first cycle of a recipe run, so the scanners and visitors measured outside of a run
+ * write their data tables like they do in a run.
+ */
+final class RecipeCycleContext {
+    private RecipeCycleContext() {
+    }
+
+    /**
+     * @param recipe the recipe the cycle runs
+     * @return a new execution context in the first cycle
+     */
+    static ExecutionContext firstCycle(Recipe recipe) {
+        WatchableExecutionContext ctx = new WatchableExecutionContext(new InMemoryExecutionContext());
+        ctx.putCycle(new RecipeRunCycle<LargeSourceSet>(recipe, 1, new Cursor(null, Cursor.ROOT_VALUE), ctx,
+                new RecipeRunStats(Recipe.noop()), new SourcesFileResults(Recipe.noop()), new SourcesFileErrors(Recipe.noop()),
+                LargeSourceSet::edit));
+        return ctx;
+    }
+}
@@ -0,0 +1,124 @@
+package org.openrewrite.java.spring.ai.mcp.benchmarks;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.maven.MavenExecutionContextView;
+import org.openrewrite.maven.MavenParser;
+import org.openrewrite.maven.MavenSettings;
+import org.openrewrite.properties.PropertiesParser;
+import org.openrewrite.yaml.YamlParser;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates and parses a Spring Web project of a configurable size: a pom with the MCP server starter,
+ * the Spring configuration files, REST controllers and Spring Boot applications.
+ */
+public class SyntheticSpringProject {
+    private static final String[] MAPPINGS = {"GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping"};
+
+    private final int controllers;
+    private final int methodsPerController;
+    private final int paramsPerMethod;
+    private final int bootApplications;
+
+    public SyntheticSpringProject(int controllers, int methodsPerController, int paramsPerMethod, int bootApplications) {
+        this.controllers = controllers;
+        this.methodsPerController = methodsPerController;
+        this.paramsPerMethod = paramsPerMethod;
+        this.bootApplications = bootApplications;
+    }
+
+    /**
+     * Parse the project, with the MCP server starter resolved from the local Maven repository.
+     *
+     * @return the source files of the project
+     */
+    public List<SourceFile> parse() {
+        ExecutionContext ctx = MavenExecutionContextView.view(new InMemoryExecutionContext(Throwable::printStackTrace))
+                .setMavenSettings(MavenSettings.readMavenSettingsFromDisk(new InMemoryExecutionContext()));
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        MavenParser.builder().build().parse(ctx, pom())
+                .map(sourceFile -> (SourceFile) sourceFile.withSourcePath(Paths.get("pom.xml")))
+                .forEach(sourceFiles::add);
+        PropertiesParser.builder().build().parse(ctx, "server.port=8080\n")
+                .map(sourceFile -> (SourceFile) sourceFile.withSourcePath(Paths.get("src/main/resources/application.properties")))
+                .forEach(sourceFiles::add);
+        new YamlParser().parse(ctx, "server:\n  port: 8080\n")
+                .map(sourceFile -> (SourceFile) sourceFile.withSourcePath(Paths.get("src/main/resources/application.yml")))
+                .forEach(sourceFiles::add);
+        List<String> javaSources = new ArrayList<>();
+        for (int c = 0; c < controllers; c++) {
+            javaSources.add(controller(c));
+        }
+        for (int a = 0; a < bootApplications; a++) {
+            javaSources.add(bootApplication(a));
+        }
+        JavaParser.fromJavaVersion()
+                .classpath(JavaParser.runtimeClasspath())
+                .build()
+                .parse(ctx, javaSources.toArray(new String[0]))
+                .map(sourceFile -> (SourceFile) sourceFile.withSourcePath(Paths.get("src/main/java").resolve(sourceFile.getSourcePath())))
+                .forEach(sourceFiles::add);
+        return sourceFiles;
+    }
+
+    private static String pom() {
+        return """
+                <project>
+                    <groupId>com.example.bench</groupId>
+                    <artifactId>bench</artifactId>
+                    <version>1.0-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.springframework.ai</groupId>
+                            <artifactId>spring-ai-starter-mcp-server-webmvc</artifactId>
+                            <version>1.0.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+                """;
+    }
+
+    private String controller(int index) {
+        StringBuilder source = new StringBuilder("""
+                package com.example.bench.web;
+
+                import org.springframework.web.bind.annotation.*;
+
+                @RestController
+                public class Controller%d {
+                """.formatted(index));
+        for (int m = 0; m < methodsPerController; m++) {
+            String mapping = MAPPINGS[m % MAPPINGS.length];
+            source.append("\n    /**\n     * Endpoint ").append(m).append(" of controller ").append(index).append("\n");
+            for (int p = 0; p < paramsPerMethod; p++) {
+                source.append("     * @param param").append(p).append(" parameter ").append(p).append("\n");
+            }
+            source.append("     */\n")
+                    .append("    @").append(mapping).append("(\"/c").append(index).append("/m").append(m).append("\")\n")
+                    .append("    public String method").append(m).append("(");
+            for (int p = 0; p < paramsPerMethod; p++) {
+                source.append(p == 0 ? "" : ", ").append("@RequestParam String param").append(p);
+            }
+            source.append(") {\n        return \"").append(mapping).append("\";\n    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    private static String bootApplication(int index) {
+        return """
+                package com.example.bench.app%d;
+
+                import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+                @SpringBootApplication
+                public class Application%d {
+                }
+                """.formatted(index, index);
+    }
+}
@@ -0,0 +1,140 @@
+package org.openrewrite.java.spring.ai.mcp.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.search.FindAnnotations;
+import org.openrewrite.java.spring.ai.mcp.recipe.AddToolCallbackProviderRecipe;
+import org.openrewrite.java.spring.ai.mcp.visitor.WebMappingDetector;
+import org.openrewrite.java.tree.J;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans a synthetic repository where only a small share of the files declare tools, comparing the
+ * {@code AddToolCallbackProviderRecipe} scanner against a full traversal of every file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToolScanBenchmark {
+
+    @Param({"500"})
+    int files;
+
+    @Param({"1"})
+    int toolFilePercent;
+
+    @Param({"10"})
+    int methodsPerFile;
+
+    private final List<SourceFile> sourceFiles = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        List<String> sources = new ArrayList<>();
+        int toolEvery = Math.max(1, 100 / toolFilePercent);
+        for (int i = 0; i < files; i++) {
+            sources.add(i % toolEvery == 0 ? toolSource(i) : serviceSource(i));
+        }
+        ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+        JavaParser.fromJavaVersion()
+                .classpath(JavaParser.runtimeClasspath())
+                .build()
+                .parse(ctx, sources.toArray(new String[0]))
+                .forEach(sourceFiles::add);
+    }
+
+    @Benchmark
+    public void fullTraversal(Blackhole bh) {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        Set<String> toolSet = new HashSet<>();
+        TreeVisitor<?, ExecutionContext> scanner = new FullTraversalToolVisitor(toolSet);
+        for (SourceFile sourceFile : sourceFiles) {
+            scanner.visit(sourceFile, ctx);
+        }
+        bh.consume(toolSet);
+    }
+
+    @Benchmark
+    public void recipeScanner(Blackhole bh) {
+        AddToolCallbackProviderRecipe recipe = new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null);
+        ExecutionContext ctx = RecipeCycleContext.firstCycle(recipe);
+        AddToolCallbackProviderRecipe.Accumulator acc = recipe.getInitialValue(ctx);
+        TreeVisitor<?, ExecutionContext> scanner = recipe.getScanner(acc);
+        for (SourceFile sourceFile : sourceFiles) {
+            scanner.visit(sourceFile, ctx);
+        }
+        bh.consume(acc);
+    }
+
+    /**
+     * The scan as it used to be: every file visited down to the last expression.
+     */
+    private static class FullTraversalToolVisitor extends JavaIsoVisitor<ExecutionContext> {
+        private final Set<String> toolSet;
+
+        FullTraversalToolVisitor(Set<String> toolSet) {
+            this.toolSet = toolSet;
+        }
+
+        @Override
+        public J.ClassDeclaration visitClassDeclaration(J.ClassDeclaration classDecl, ExecutionContext ctx) {
+            if (classDecl.getType() != null && classDecl.getBody().getStatements().stream()
+                    .filter(statement -> statement instanceof J.MethodDeclaration)
+                    .anyMatch(method -> !FindAnnotations.find(method, "@" + WebMappingDetector.TOOL_ANNOTATION_FQN).isEmpty())) {
+                toolSet.add(classDecl.getType().getFullyQualifiedName());
+            }
+            return super.visitClassDeclaration(classDecl, ctx);
+        }
+    }
+
+    private String toolSource(int index) {
+        StringBuilder source = new StringBuilder("""
+                package com.example.bench.tools;
+
+                import org.springframework.ai.tool.annotation.Tool;
+
+                public class Tools%d {
+                """.formatted(index));
+        for (int m = 0; m < methodsPerFile; m++) {
+            source.append("    @Tool(description = \"tool ").append(m).append("\")\n");
+            appendMethod(source, m);
+        }
+        return source.append("}\n").toString();
+    }
+
+    private String serviceSource(int index) {
+        StringBuilder source = new StringBuilder("""
+                package com.example.bench.services;
+
+                public class Service%d {
+                """.formatted(index));
+        for (int m = 0; m < methodsPerFile; m++) {
+            appendMethod(source, m);
+        }
+        return source.append("}\n").toString();
+    }
+
+    private static void appendMethod(StringBuilder source, int index) {
+        source.append("    public String method").append(index).append("(String input) {\n")
+                .append("        StringBuilder result = new StringBuilder();\n");
+        for (int s = 0; s < 10; s++) {
+            source.append("        if (input.length() > ").append(s).append(") { result.append(input.charAt(")
+                    .append(s).append(")).append(").append(s).append("); }\n");
+        }
+        source.append("        return result.toString();\n    }\n\n");
+    }
+}
@@ -0,0 +1,101 @@
+package org.openrewrite.java.spring.ai.mcp.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.search.FindAnnotations;
+import org.openrewrite.java.spring.ai.mcp.visitor.WebMappingDetector;
+import org.openrewrite.java.tree.J;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-method web mapping detection of {@code AddToolAnnotationToMappingMethodRecipe}:
+ * seven {@link FindAnnotations} subtree searches against one pass over the leading annotations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebMappingDetectionBenchmark {
+
+    private static final String[] MAPPINGS = {"GetMapping", "PostMapping", "PutMapping", "PatchMapping", "DeleteMapping", "RequestMapping"};
+
+    @Param({"100"})
+    int methods;
+
+    @Param({"20"})
+    int statementsPerMethod;
+
+    private final List<J.MethodDeclaration> methodDeclarations = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+        J.CompilationUnit cu = JavaParser.fromJavaVersion()
+                .classpath(JavaParser.runtimeClasspath())
+                .build()
+                .parse(ctx, controllerSource())
+                .map(J.CompilationUnit.class::cast)
+                .findFirst()
+                .orElseThrow();
+        new JavaIsoVisitor<List<J.MethodDeclaration>>() {
+            @Override
+            public J.MethodDeclaration visitMethodDeclaration(J.MethodDeclaration method, List<J.MethodDeclaration> found) {
+                found.add(method);
+                return method;
+            }
+        }.visit(cu, methodDeclarations);
+    }
+
+    @Benchmark
+    public void findAnnotations(Blackhole bh) {
+        for (J.MethodDeclaration method : methodDeclarations) {
+            bh.consume(FindAnnotations.find(method, "@" + WebMappingDetector.TOOL_ANNOTATION_FQN).isEmpty()
+                    && (!FindAnnotations.find(method, "@org.springframework.web.bind.annotation.GetMapping").isEmpty()
+                    || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.PostMapping").isEmpty()
+                    || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.RequestMapping").isEmpty()
+                    || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.PatchMapping").isEmpty()
+                    || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.DeleteMapping").isEmpty()
+                    || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.PutMapping").isEmpty()));
+        }
+    }
+
+    @Benchmark
+    public void leadingAnnotations(Blackhole bh) {
+        for (J.MethodDeclaration method : methodDeclarations) {
+            bh.consume(WebMappingDetector.isToolCandidate(method));
+        }
+    }
+
+    private String controllerSource() {
+        StringBuilder source = new StringBuilder("""
+                package com.example.bench;
+
+                import org.springframework.web.bind.annotation.*;
+                import java.util.ArrayList;
+                import java.util.List;
+
+                @RestController
+                public class BenchController {
+                """);
+        for (int i = 0; i < methods; i++) {
+            source.append("    @").append(MAPPINGS[i % MAPPINGS.length]).append("(\"/items/").append(i).append("\")\n")
+                    .append("    public List<String> items").append(i).append("(@RequestParam String filter) {\n")
+                    .append("        List<String> result = new ArrayList<>();\n");
+            for (int s = 0; s < statementsPerMethod; s++) {
+                source.append("        if (filter.length() > ").append(s).append(") { result.add(filter.substring(")
+                        .append(s).append(").trim()); }\n");
+            }
+            source.append("        return result;\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
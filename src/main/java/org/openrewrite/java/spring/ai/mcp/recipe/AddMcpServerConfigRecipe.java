@@ -1,26 +1,47 @@
 package org.openrewrite.java.spring.ai.mcp.recipe;
 
+import org.openrewrite.java.spring.ai.mcp.table.McpRecipeFileTimings;
+import org.openrewrite.java.spring.ai.mcp.table.VirtualThreadPinning;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpModules;
 import org.openrewrite.java.spring.ai.mcp.visitor.SpringAIMcpVisitor;
+import org.openrewrite.java.spring.ai.mcp.visitor.WebMappingDetector;
 import lombok.EqualsAndHashCode;
 import lombok.Value;
 import org.intellij.lang.annotations.Language;
 import org.jetbrains.annotations.NotNull;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
-import org.openrewrite.properties.AddProperty;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.marker.Markers;
 import org.openrewrite.properties.tree.Properties;
 import org.openrewrite.yaml.MergeYaml;
 import org.openrewrite.yaml.tree.Yaml;
 
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.file.PathMatcher;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Value
 @EqualsAndHashCode(callSuper = false)
-public class AddMcpServerConfigRecipe extends ScanningRecipe<AtomicBoolean> {
+public class AddMcpServerConfigRecipe extends ScanningRecipe<McpModules> {
     List<String> SpringDefaultConfigurationPaths = Arrays.asList("**/application.yml", "**/application.properties", "**/application.yaml");
+    private static final String SYNC_TYPE = "SYNC";
+    private static final String ASYNC_TYPE = "ASYNC";
+    private static final String SSE_PROTOCOL = "SSE";
+    private static final String DEFAULT_MCP_ENDPOINT = "/mcp";
+    private static final String SSE_MESSAGE_ENDPOINT_KEY = "spring.ai.mcp.server.sse-message-endpoint";
+    private static final String PINNING_REPORTED_MESSAGE = AddMcpServerConfigRecipe.class.getName() + ".PINNING_REPORTED";
+    private static final String TOOL_OBSERVATIONS_YAML = """
+            management:
+              metrics:
+                distribution:
+                  percentiles-histogram:
+                    "[mcp.tool.call]": true
+            """;
+    private static final String TOOL_OBSERVATIONS_PROPERTIES = "management.metrics.distribution.percentiles-histogram.mcp.tool.call=true\n";
 
     @Option(displayName = "MCP server name",
             description = "The name of the MCP server.",
@@ -35,10 +56,11 @@ public class AddMcpServerConfigRecipe extends ScanningRecipe<AtomicBoolean> {
     String serverVersion = "1.0.0";
 
     @Option(displayName = "MCP server type",
-            description = "The type of the MCP server.",
+            description = "The type of the MCP server. WebFlux modules get an `ASYNC` server instead of the default `SYNC` one, " +
+                    "so tool calls never block the event loop.",
             example = "SYNC")
     @Nullable
-    String serverType = "SYNC";
+    String serverType = SYNC_TYPE;
 
     @Option(displayName = "MCP server SSE message endpoint",
             description = "The SSE message endpoint of the MCP server.",
@@ -55,7 +77,92 @@ public class AddMcpServerConfigRecipe extends ScanningRecipe<AtomicBoolean> {
     @Nullable
     List<String> pathExpressions;
 
-    // TODO: to handle the async type in future
+    @Option(displayName = "One-pass migration",
+            description = "Also configure the MCP server in the application properties of the web modules without an MCP " +
+                    "server starter, because `UpdateBuildFiles` adds the starter to them earlier in the same run of " +
+                    "`MigrateToSpringAIMcpServerRecipe`. Library and aggregator modules get no server configuration.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean onePass;
+
+    @Option(displayName = "Virtual threads",
+            description = "Run the requests and tool calls of `SYNC` servers on virtual threads, which needs Java 21. " +
+                    "Sets `spring.threads.virtual.enabled` and reports the `synchronized` methods and blocks of Spring Beans, " +
+                    "which pin the carrier thread before Java 24.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean virtualThreads;
+
+    @Option(displayName = "Virtual thread concurrency limit",
+            description = "With virtual threads, the task executor creates a virtual thread per task instead of using a pool. " +
+                    "This limits its concurrent tasks, set as `spring.task.execution.simple.concurrency-limit`.",
+            required = false,
+            example = "200")
+    @Nullable
+    Integer virtualThreadConcurrencyLimit;
+
+    @Option(displayName = "Tool cache specification",
+            description = "Caffeine specification of the caches of the `GET` tools generated by the `cacheGetTools` option, " +
+                    "which bounds their size and sets their time to live. Sets `spring.cache.type=caffeine` and " +
+                    "`spring.cache.caffeine.spec`.",
+            required = false,
+            example = "maximumSize=1000,expireAfterWrite=10m")
+    @Nullable
+    String toolCacheSpec;
+
+    @Option(displayName = "Tool concurrency limit",
+            description = "The concurrent calls of each tool allowed by the bulkheads generated by the `toolBulkheads` option " +
+                    "of `AddToolCallbackProviderRecipe`. Sets `spring.ai.mcp.server.tools.default.max-concurrent-calls`, " +
+                    "which `spring.ai.mcp.server.tools.<name>.max-concurrent-calls` overrides for a single tool.",
+            required = false,
+            example = "10")
+    @Nullable
+    Integer toolConcurrencyLimit;
+
+    @Option(displayName = "Tool timeout",
+            description = "The time each tool call is allowed by the bulkheads generated by the `toolBulkheads` option of " +
+                    "`AddToolCallbackProviderRecipe`. Sets `spring.ai.mcp.server.tools.default.timeout`, which " +
+                    "`spring.ai.mcp.server.tools.<name>.timeout` overrides for a single tool.",
+            required = false,
+            example = "30s")
+    @Nullable
+    String toolTimeout;
+
+    @Option(displayName = "Tool observations",
+            description = "Publish the latency histogram of the `mcp.tool.call` timer recorded by the observations generated by the " +
+                    "`toolObservations` option of `AddToolCallbackProviderRecipe`, so the percentiles of every tool can be computed " +
+                    "by the monitoring system. Sets `management.metrics.distribution.percentiles-histogram.mcp.tool.call`.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean toolObservations;
+
+    @Option(displayName = "MCP server protocol",
+            description = "The transport protocol of the MCP server, set as `spring.ai.mcp.server.protocol`. `SSE`, the default, " +
+                    "keeps a long-lived connection and a session per client, so a load balancer needs sticky sessions. " +
+                    "`STREAMABLE` serves the streamable-HTTP protocol on `mcpEndpoint`, with a session per client. " +
+                    "`STATELESS` serves it without sessions, so any replica can answer any request, but the server can no longer " +
+                    "send notifications to the clients. `STREAMABLE` and `STATELESS` need Spring AI 1.1 or newer, and replace " +
+                    "the `sse-message-endpoint` of an earlier run.",
+            required = false,
+            valid = {"SSE", "STREAMABLE", "STATELESS"},
+            example = "STATELESS")
+    @Nullable
+    String protocol;
+
+    @Option(displayName = "MCP server streamable-HTTP endpoint",
+            description = "The endpoint of the MCP server with the `STREAMABLE` and `STATELESS` protocols, `/mcp` by default.",
+            required = false,
+            example = "/mcp")
+    @Nullable
+    String mcpEndpoint;
+
+    transient McpRecipeFileTimings fileTimings = new McpRecipeFileTimings(this);
+
+    transient VirtualThreadPinning virtualThreadPinning = new VirtualThreadPinning(this);
+
     @Language("yml")
     String yaml = """
             spring:
@@ -74,62 +181,310 @@ public class AddMcpServerConfigRecipe extends ScanningRecipe<AtomicBoolean> {
             spring.ai.mcp.server.type=%s
             spring.ai.mcp.server.sse-message-endpoint=%s
             """;
+    @Language("yml")
+    String streamableHttpYaml = """
+            spring:
+              ai:
+                mcp:
+                  server:
+                    name: %s
+                    version: %s
+                    type: %s
+                    protocol: %s
+                    streamable-http:
+                      mcp-endpoint: %s
+            """;
+    @Language("properties")
+    String streamableHttpProperties = """
+            spring.ai.mcp.server.name=%s
+            spring.ai.mcp.server.version=%s
+            spring.ai.mcp.server.type=%s
+            spring.ai.mcp.server.protocol=%s
+            spring.ai.mcp.server.streamable-http.mcp-endpoint=%s
+            """;
 
     @Override
-    public @NotNull AtomicBoolean getInitialValue(@NotNull ExecutionContext ctx) {
-        return new AtomicBoolean(false);
+    public @NotNull McpModules getInitialValue(@NotNull ExecutionContext ctx) {
+        return new McpModules();
     }
 
     @Override
-    public @NotNull TreeVisitor<?, ExecutionContext> getScanner(@NotNull AtomicBoolean aiMcpEnabled) {
-        return new SpringAIMcpVisitor<>(aiMcpEnabled);
+    public @NotNull TreeVisitor<?, ExecutionContext> getScanner(@NotNull McpModules modules) {
+        return fileTimings.timed(this, McpRecipeFileTimings.SCANNING, new SpringAIMcpVisitor<>(modules, Boolean.TRUE.equals(onePass)));
     }
 
     @Override
-    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor(AtomicBoolean aiMcpEnabled) {
+    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor(McpModules modules) {
+        // Compiled once per cycle instead of once per source file
+        List<PathMatcher> pathMatchers = pathMatchers();
+        // Tool calls of WebFlux modules must not block the event loop
+        String reactiveType = SYNC_TYPE.equals(serverType) ? ASYNC_TYPE : serverType;
+        TreeVisitor<?, ExecutionContext> mergeYaml = mergeYaml(serverType);
+        TreeVisitor<?, ExecutionContext> reactiveMergeYaml = mergeYaml(reactiveType);
+        Map<String, String> mcpProperties = parseProperties(updateContent(serverProperties(), serverType));
+        Map<String, String> reactiveMcpProperties = parseProperties(updateContent(serverProperties(), reactiveType));
+        // Virtual threads only serve the servlet stack, WebFlux modules keep their event loop
+        boolean useVirtualThreads = Boolean.TRUE.equals(virtualThreads);
+        TreeVisitor<?, ExecutionContext> virtualThreadsMergeYaml = useVirtualThreads
+                ? new MergeYaml("$", virtualThreadsYaml(), true, null, null, null, null, null).getVisitor()
+                : TreeVisitor.noop();
+        if (useVirtualThreads) {
+            mcpProperties.putAll(parseProperties(virtualThreadsProperties()));
+        }
+        // The tool caches serve both stacks
+        TreeVisitor<?, ExecutionContext> toolCacheMergeYaml = toolCacheSpec != null
+                ? new MergeYaml("$", toolCacheYaml(), true, null, null, null, null, null).getVisitor()
+                : TreeVisitor.noop();
+        if (toolCacheSpec != null) {
+            mcpProperties.putAll(parseProperties(toolCacheProperties()));
+            reactiveMcpProperties.putAll(parseProperties(toolCacheProperties()));
+        }
+        // The tool bulkheads serve both stacks
+        TreeVisitor<?, ExecutionContext> toolBulkheadsMergeYaml = toolConcurrencyLimit != null || toolTimeout != null
+                ? new MergeYaml("$", toolBulkheadsYaml(), true, null, null, null, null, null).getVisitor()
+                : TreeVisitor.noop();
+        if (toolConcurrencyLimit != null || toolTimeout != null) {
+            mcpProperties.putAll(parseProperties(toolBulkheadsProperties()));
+            reactiveMcpProperties.putAll(parseProperties(toolBulkheadsProperties()));
+        }
+        // The tool observations serve both stacks
+        TreeVisitor<?, ExecutionContext> toolObservationsMergeYaml = Boolean.TRUE.equals(toolObservations)
+                ? new MergeYaml("$", TOOL_OBSERVATIONS_YAML, true, null, null, null, null, null).getVisitor()
+                : TreeVisitor.noop();
+        if (Boolean.TRUE.equals(toolObservations)) {
+            mcpProperties.putAll(parseProperties(TOOL_OBSERVATIONS_PROPERTIES));
+            reactiveMcpProperties.putAll(parseProperties(TOOL_OBSERVATIONS_PROPERTIES));
+        }
+        // The SSE message endpoint of an earlier run is left unused by the streamable-HTTP protocols
+        TreeVisitor<?, ExecutionContext> deleteSseEndpointYaml = isSse() ? TreeVisitor.noop()
+                : new org.openrewrite.yaml.DeleteProperty(SSE_MESSAGE_ENDPOINT_KEY, null, null, null).getVisitor();
+        TreeVisitor<?, ExecutionContext> deleteSseEndpointProperties = isSse() ? TreeVisitor.noop()
+                : new org.openrewrite.properties.DeleteProperty(SSE_MESSAGE_ENDPOINT_KEY, null).getVisitor();
+        TreeVisitor<?, ExecutionContext> pinningScanner = useVirtualThreads
+                ? Preconditions.check(WebMappingDetector.springBeanChecker(), new PinningScanner())
+                : TreeVisitor.noop();
         TreeVisitor<Tree, ExecutionContext> visitor = new TreeVisitor<>() {
             @Override
             public @Nullable Tree visit(@Nullable Tree t, @NotNull ExecutionContext ctx, @NotNull Cursor parent) {
-                if (t instanceof Yaml.Documents && sourcePathMatch(((SourceFile) t).getSourcePath())) {
-                    t = new MergeYaml("$", updateContent(yaml), true, null, null, null, null, null)
-                            .getVisitor().visit(t, ctx, parent);
-                } else if (t instanceof Properties.File && sourcePathMatch(((SourceFile) t).getSourcePath())) {
-                    List<String[]> props = Arrays.stream(updateContent(properties).split("\n"))
-                            .map(line -> line.split("=", 2))
-                            .filter(parts -> parts.length == 2)
-                            .toList();
-                    for (String[] prop : props) {
-                        String key = prop[0].trim();
-                        String value = prop[1].trim();
-                        if (key.isEmpty() || value.isEmpty()) {
-                            continue;
-                        }
-                        t = new AddProperty(key, value, null, null)
-                                .getVisitor().visit(t, ctx, parent);
+                if (t instanceof Yaml.Documents && sourcePathMatch(pathMatchers, ((SourceFile) t).getSourcePath())) {
+                    if (modules.isReactive(((SourceFile) t).getSourcePath())) {
+                        t = reactiveMergeYaml.visit(t, ctx, parent);
+                    } else {
+                        t = virtualThreadsMergeYaml.visit(mergeYaml.visit(t, ctx, parent), ctx, parent);
                     }
+                    t = toolBulkheadsMergeYaml.visit(toolCacheMergeYaml.visit(t, ctx, parent), ctx, parent);
+                    t = toolObservationsMergeYaml.visit(t, ctx, parent);
+                    t = deleteSseEndpointYaml.visit(t, ctx, parent);
+                } else if (t instanceof Properties.File file && sourcePathMatch(pathMatchers, file.getSourcePath())) {
+                    t = addMissingProperties(file, modules.isReactive(file.getSourcePath()) ? reactiveMcpProperties : mcpProperties);
+                    t = deleteSseEndpointProperties.visit(t, ctx, parent);
+                } else if (t instanceof J.CompilationUnit cu && !modules.isReactive(cu.getSourcePath())) {
+                    pinningScanner.visit(cu, ctx); // Report only, the source file is never changed
                 }
                 return t;
             }
 
         };
-        return Preconditions.check(aiMcpEnabled.get(), visitor);
+        // only the configuration files of MCP enabled modules
+        return fileTimings.timed(this, McpRecipeFileTimings.EDITING,
+                Preconditions.check(modules.anyEnabled(), Preconditions.check(modules.enabledModuleChecker(), visitor)));
     }
 
-    private String updateContent(String content) {
-        return String.format(content, serverName, serverVersion, serverType, sseMessageEndpoint);
+    private String virtualThreadsYaml() {
+        String threadsYaml = """
+                spring:
+                  threads:
+                    virtual:
+                      enabled: true
+                """;
+        return virtualThreadConcurrencyLimit == null ? threadsYaml : threadsYaml + """
+                  task:
+                    execution:
+                      simple:
+                        concurrency-limit: %d
+                """.formatted(virtualThreadConcurrencyLimit);
     }
 
-    private boolean sourcePathMatch(Path sourcePath) {
+    private String virtualThreadsProperties() {
+        String threadsProperties = "spring.threads.virtual.enabled=true\n";
+        return virtualThreadConcurrencyLimit == null ? threadsProperties
+                : threadsProperties + "spring.task.execution.simple.concurrency-limit=" + virtualThreadConcurrencyLimit + "\n";
+    }
+
+    private String toolCacheYaml() {
+        return """
+                spring:
+                  cache:
+                    type: caffeine
+                    caffeine:
+                      spec: %s
+                """.formatted(toolCacheSpec);
+    }
+
+    private String toolCacheProperties() {
+        return "spring.cache.type=caffeine\nspring.cache.caffeine.spec=" + toolCacheSpec + "\n";
+    }
+
+    private String toolBulkheadsYaml() {
+        StringBuilder bulkheadsYaml = new StringBuilder("""
+                spring:
+                  ai:
+                    mcp:
+                      server:
+                        tools:
+                          default:
+                """);
+        if (toolConcurrencyLimit != null) {
+            bulkheadsYaml.append("              max-concurrent-calls: ").append(toolConcurrencyLimit).append('\n');
+        }
+        if (toolTimeout != null) {
+            bulkheadsYaml.append("              timeout: ").append(toolTimeout).append('\n');
+        }
+        return bulkheadsYaml.toString();
+    }
+
+    private String toolBulkheadsProperties() {
+        String prefix = "spring.ai.mcp.server.tools.default.";
+        return (toolConcurrencyLimit == null ? "" : prefix + "max-concurrent-calls=" + toolConcurrencyLimit + "\n")
+                + (toolTimeout == null ? "" : prefix + "timeout=" + toolTimeout + "\n");
+    }
+
+    /**
+     * Reports the {@code synchronized} methods and blocks of a Spring Bean, which pin the carrier thread of the
+     * virtual thread running them until Java 24, so tool calls may end up waiting for a free carrier thread.
+     * Every source file is reported once per run, in the first cycle which sees its module MCP enabled. Without
+     * {@code onePass}, that is only the second cycle when the MCP server starter is added in the same run.
+     */
+    private class PinningScanner extends JavaIsoVisitor<ExecutionContext> {
+        @Override
+        public J.@NotNull CompilationUnit visitCompilationUnit(J.@NotNull CompilationUnit cu, @NotNull ExecutionContext ctx) {
+            // The accumulator is created again every cycle, the execution context lasts for the whole run
+            Set<Path> reported = ctx.computeMessageIfAbsent(PINNING_REPORTED_MESSAGE, key -> ConcurrentHashMap.newKeySet());
+            if (!reported.add(cu.getSourcePath())) {
+                return cu;
+            }
+            return super.visitCompilationUnit(cu, ctx);
+        }
+
+        @Override
+        public J.@NotNull MethodDeclaration visitMethodDeclaration(J.@NotNull MethodDeclaration method, @NotNull ExecutionContext ctx) {
+            if (method.hasModifier(J.Modifier.Type.Synchronized)) {
+                report(method.getSimpleName(), "synchronized method", ctx);
+            }
+            return super.visitMethodDeclaration(method, ctx);
+        }
+
+        @Override
+        public J.@NotNull Synchronized visitSynchronized(J.@NotNull Synchronized _sync, @NotNull ExecutionContext ctx) {
+            J.MethodDeclaration method = getCursor().firstEnclosing(J.MethodDeclaration.class);
+            report(method == null ? "<init>" : method.getSimpleName(), "synchronized block", ctx);
+            return super.visitSynchronized(_sync, ctx);
+        }
+
+        private void report(String methodName, String construct, ExecutionContext ctx) {
+            J.ClassDeclaration classDecl = getCursor().firstEnclosingOrThrow(J.ClassDeclaration.class);
+            virtualThreadPinning.insertRow(ctx, new VirtualThreadPinning.Row(
+                    getCursor().firstEnclosingOrThrow(J.CompilationUnit.class).getSourcePath().toString(),
+                    classDecl.getType() == null ? classDecl.getSimpleName() : classDecl.getType().getFullyQualifiedName(),
+                    methodName,
+                    construct));
+        }
+    }
+
+    private TreeVisitor<?, ExecutionContext> mergeYaml(@Nullable String type) {
+        return new MergeYaml("$", updateContent(isSse() ? yaml : streamableHttpYaml, type), true, null, null, null, null, null).getVisitor();
+    }
+
+    private String serverProperties() {
+        return isSse() ? properties : streamableHttpProperties;
+    }
+
+    private String updateContent(String content, @Nullable String type) {
+        // The SSE message endpoint is replaced by the streamable-HTTP endpoint with the other protocols
+        return isSse() ? String.format(content, serverName, serverVersion, type, sseMessageEndpoint)
+                : String.format(content, serverName, serverVersion, type, protocol, mcpEndpoint == null ? DEFAULT_MCP_ENDPOINT : mcpEndpoint);
+    }
+
+    private boolean isSse() {
+        return protocol == null || SSE_PROTOCOL.equals(protocol);
+    }
+
+    private static Map<String, String> parseProperties(String content) {
+        Map<String, String> props = new LinkedHashMap<>();
+        for (String line : content.split("\n")) {
+            String[] parts = line.split("=", 2);
+            if (parts.length == 2 && !parts[0].trim().isEmpty() && !parts[1].trim().isEmpty()) {
+                props.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+        return props;
+    }
+
+    /**
+     * Add all the missing properties in a single pass over the file. Like {@link org.openrewrite.properties.AddProperty},
+     * each property is inserted before the first entry whose key sorts after it, existing keys are left untouched.
+     */
+    private static Properties.File addMissingProperties(Properties.File file, Map<String, String> props) {
+        Set<String> existingKeys = new HashSet<>();
+        for (Properties.Content content : file.getContent()) {
+            if (content instanceof Properties.Entry entry) {
+                existingKeys.add(entry.getKey());
+            }
+        }
+        List<Properties.Content> contents = new ArrayList<>(file.getContent());
+        boolean changed = false;
+        for (Map.Entry<String, String> prop : props.entrySet()) {
+            if (existingKeys.contains(prop.getKey())) {
+                continue;
+            }
+            Properties.Entry entry = new Properties.Entry(Tree.randomId(), "\n", Markers.EMPTY, prop.getKey(), "",
+                    Properties.Entry.Delimiter.EQUALS, new Properties.Value(Tree.randomId(), "", Markers.EMPTY, prop.getValue()));
+            int index = sortedInsertionIndex(contents, prop.getKey());
+            if (index == 0) {
+                // The new entry takes the place of the first line
+                entry = entry.withPrefix(contents.isEmpty() ? "" : contents.get(0).getPrefix());
+                if (!contents.isEmpty()) {
+                    contents.set(0, (Properties.Content) contents.get(0).withPrefix("\n"));
+                }
+            }
+            contents.add(index, entry);
+            changed = true;
+        }
+        return changed ? file.withContent(contents) : file;
+    }
+
+    private static int sortedInsertionIndex(List<Properties.Content> contents, String key) {
+        for (int i = 0; i < contents.size(); i++) {
+            if (contents.get(i) instanceof Properties.Entry entry && entry.getKey().compareTo(key) > 0) {
+                return i;
+            }
+        }
+        return contents.size();
+    }
+
+    private List<PathMatcher> pathMatchers() {
         List<String> expressions = pathExpressions;
         if (expressions == null || pathExpressions.isEmpty()) {
             //If not defined, get defaults.
             expressions = SpringDefaultConfigurationPaths;
         }
-        if (expressions.isEmpty()) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String filePattern : expressions) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + filePattern));
+            if (filePattern.startsWith("**/")) {
+                // "**/" also matches files in the root directory
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + filePattern.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean sourcePathMatch(List<PathMatcher> pathMatchers, Path sourcePath) {
+        if (pathMatchers.isEmpty()) {
             return true;
         }
-        for (String filePattern : expressions) {
-            if (PathUtils.matchesGlob(sourcePath, filePattern)) {
+        for (PathMatcher pathMatcher : pathMatchers) {
+            if (pathMatcher.matches(sourcePath)) {
                 return true;
             }
         }
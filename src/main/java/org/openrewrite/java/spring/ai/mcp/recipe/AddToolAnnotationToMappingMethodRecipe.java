@@ -1,71 +1,211 @@
 package org.openrewrite.java.spring.ai.mcp.recipe;
 
+import lombok.EqualsAndHashCode;
+import lombok.Value;
 import org.jetbrains.annotations.NotNull;
+import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
+import org.openrewrite.internal.ListUtils;
 import org.openrewrite.java.JavaIsoVisitor;
-import org.openrewrite.java.JavaParser;
-import org.openrewrite.java.JavaTemplate;
-import org.openrewrite.java.search.FindAnnotations;
-import org.openrewrite.java.search.UsesType;
+import org.openrewrite.java.spring.ai.mcp.table.McpRecipeFileTimings;
+import org.openrewrite.java.spring.ai.mcp.table.McpToolInventory;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpModules;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolFilter;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolManifest;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolPagination;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolResults;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolSelection;
 import org.openrewrite.java.spring.ai.mcp.visitor.SpringAIMcpVisitor;
-import org.openrewrite.java.tree.J;
-import org.openrewrite.java.tree.Javadoc;
+import org.openrewrite.java.spring.ai.mcp.visitor.WebMappingDetector;
+import org.openrewrite.java.tree.*;
+import org.openrewrite.marker.Markers;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
-public class AddToolAnnotationToMappingMethodRecipe extends ScanningRecipe<AtomicBoolean> {
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class AddToolAnnotationToMappingMethodRecipe extends ScanningRecipe<AddToolAnnotationToMappingMethodRecipe.Accumulator> {
     private static final String MCP_TOOL_PACKAGE = "org.springframework.ai.tool.annotation";
     private static final String MCP_TOOL_SIMPLE_NAME = "Tool";
     private static final String MCP_TOOL_PARAM_SIMPLE_NAME = "ToolParam";
     private static final String MCP_TOOL_FULLY_QUALIFIED_NAME = MCP_TOOL_PACKAGE + "." + MCP_TOOL_SIMPLE_NAME;
     private static final String MCP_TOOL_PARAM_FULLY_QUALIFIED_NAME = MCP_TOOL_PACKAGE + "." + MCP_TOOL_PARAM_SIMPLE_NAME;
-    private boolean causesAnotherCycle;
-    /**
-     * JavaTemplate for @Tool(description="") annotation
-     */
-    private static final JavaTemplate TOOL_ANNO_TEMPLATE = JavaTemplate.builder("@" + MCP_TOOL_SIMPLE_NAME + "(description = \"#{}\")")
-            .imports(MCP_TOOL_FULLY_QUALIFIED_NAME)
-            .javaParser(JavaParser.fromJavaVersion().dependsOn("package " + MCP_TOOL_PACKAGE +
-                    "; public @interface " + MCP_TOOL_SIMPLE_NAME + " {}"))
-            .build();
-    /**
-     * JavaTemplate for @ToolParam(description="") annotation
-     */
-    private static final JavaTemplate TOOL_PARAM_ANNO_TEMPLATE = JavaTemplate.builder("@" + MCP_TOOL_PARAM_SIMPLE_NAME + "(description = \"#{}\")")
-            .imports(MCP_TOOL_PARAM_FULLY_QUALIFIED_NAME)
-            .javaParser(JavaParser.fromJavaVersion().dependsOn("package " + MCP_TOOL_PACKAGE +
-                    "; public @interface " + MCP_TOOL_PARAM_SIMPLE_NAME + " {}"))
-            .build();
+    private static final String UNCHANGED_CLASS_MESSAGE = "UNCHANGED_CLASS";
+    private static final String PAGINATED_TOOLS_MESSAGE = "PAGINATED_TOOLS";
+    private static final String TOOL_FACADES_MESSAGE = "TOOL_FACADES";
+    private static final String UNWRAPPED_TOOLS_MESSAGE = "UNWRAPPED_TOOLS";
+    private static final int DEFAULT_MAX_TOOL_RESULT_SIZE = 100;
+    private static final String CACHEABLE_FQN = "org.springframework.cache.annotation.Cacheable";
+
+    @Option(displayName = "One-pass migration",
+            description = "Also turn the mapping methods of the web modules without an MCP server starter into tools, " +
+                    "because `UpdateBuildFiles` adds the starter to them earlier in the same run of " +
+                    "`MigrateToSpringAIMcpServerRecipe`. Modules without Spring MVC or WebFlux are left alone.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean onePass;
+
+    @Option(displayName = "Tool manifest",
+            description = "Path of the tool manifest written by `AddToolCallbackProviderRecipe`, relative to the repository " +
+                    "root. Classes recorded in the manifest whose tool methods are unchanged since are skipped.",
+            required = false,
+            example = "mcp-tools.properties")
+    @Nullable
+    String toolManifest;
+
+    @Option(displayName = "Cache GET tools",
+            description = "Add `@Cacheable(cacheNames = \"<class>.<method>\", sync = true)` to the tools of `GET` mappings, so repeated " +
+                    "calls of read-only tools are answered from the cache and concurrent calls for the same arguments run once. " +
+                    "Size and expiry of the caches come from the `toolCacheSpec` option of `AddMcpServerConfigRecipe`.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean cacheGetTools;
+
+    @Option(displayName = "Tool page size",
+            description = "Paginate the tools of mapping methods returning a `List`, `Collection` or `Page`, or taking a `Pageable`: " +
+                    "such a method gets a tool facade, registered under its name, with optional `page` and `size` parameters, which " +
+                    "returns pages of this size unless the caller asks for another one. The `Pageable` is built from `page` and " +
+                    "`size`. Only the methods taking a `Pageable` are bounded at the source, the others still load their whole " +
+                    "result before the facade cuts it. The mapping method itself is unchanged, so HTTP clients keep their paging and sorting.",
+            required = false,
+            example = "20")
+    @Nullable
+    Integer toolPageSize;
+
+    @Option(displayName = "Maximum tool result size",
+            description = "The largest page a paginated tool returns, whatever size the caller asks for. Generated as the default " +
+                    "of the `mcp.tool.max-result-size` property, which changes it without another migration. Defaults to 100.",
+            required = false,
+            example = "100")
+    @Nullable
+    Integer maxToolResultSize;
+
+    @Option(displayName = "Unwrap tool results",
+            description = "Give the tools returning a `ResponseEntity`, `HttpEntity` or `Optional` a result converter, nested in " +
+                    "their class, which serializes the body only instead of the whole wrapper with its headers and status. " +
+                    "A non-2xx status becomes `{\"status\":404,\"error\":<body>}`.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean unwrapToolResults;
+
+    @Option(displayName = "HTTP methods",
+            description = "Only turn the mapping methods of these HTTP methods into tools. A `@RequestMapping` without `method` " +
+                    "counts as `ANY`, one with several methods is kept when any of them is listed. Methods already annotated with `@Tool` " +
+                    "are kept whatever the filters.",
+            required = false,
+            example = "[\"GET\"]")
+    @Nullable
+    List<String> httpMethods;
+
+    @Option(displayName = "Included paths",
+            description = "Only turn the mapping methods whose path, prefixed with the path of the class level `@RequestMapping`, " +
+                    "matches one of these Ant-style patterns into tools. `*` matches within a path segment and `**` across any number " +
+                    "of segments, none included.",
+            required = false,
+            example = "[\"/api/**\"]")
+    @Nullable
+    List<String> includePaths;
+
+    @Option(displayName = "Excluded paths",
+            description = "Never turn the mapping methods whose path matches one of these Ant-style patterns into tools.",
+            required = false,
+            example = "[\"/internal/**\"]")
+    @Nullable
+    List<String> excludePaths;
+
+    @Option(displayName = "Packages",
+            description = "Only turn the mapping methods of classes in these packages, or their subpackages, into tools.",
+            required = false,
+            example = "[\"com.example.api\"]")
+    @Nullable
+    List<String> packages;
+
+    @Option(displayName = "Classes",
+            description = "Only turn the mapping methods of classes matching one of these globs into tools. `*` matches within a " +
+                    "package name and `**` across packages, a glob without `.` matches the simple class name.",
+            required = false,
+            example = "[\"com.example.**.*Controller\"]")
+    @Nullable
+    List<String> classes;
+
+    transient McpToolInventory toolInventory = new McpToolInventory(this);
+
+    transient McpRecipeFileTimings fileTimings = new McpRecipeFileTimings(this);
 
     @Override
-    public @NotNull AtomicBoolean getInitialValue(@NotNull ExecutionContext ctx) {
-        return new AtomicBoolean(false);
+    public @NotNull Accumulator getInitialValue(@NotNull ExecutionContext ctx) {
+        return new Accumulator(new McpModules(), new McpToolManifest(toolManifest, McpToolManifest.TOOLS_OPTIONS, optionsFingerprint()),
+                toolFilter());
     }
 
     @Override
-    public @NotNull TreeVisitor<?, ExecutionContext> getScanner(@NotNull AtomicBoolean aiMcpEnabled) {
-        return Preconditions.check(!aiMcpEnabled.get(), new SpringAIMcpVisitor<>(aiMcpEnabled));
+    public @NotNull Accumulator getAccumulator(@NotNull Cursor cursor, @NotNull ExecutionContext ctx) {
+        Accumulator acc = super.getAccumulator(cursor, ctx);
+        // Lets AddToolCallbackProviderRecipe inject the classes of the mapping methods turned into tools in this cycle
+        McpToolSelection.publish(cursor, acc.getFilter(), acc.getManifest().getOptions(), toolPageSize);
+        return acc;
+    }
+
+    @Override
+    public @NotNull TreeVisitor<?, ExecutionContext> getScanner(@NotNull Accumulator acc) {
+        SpringAIMcpVisitor<ExecutionContext> buildFileScanner = new SpringAIMcpVisitor<>(acc.getModules(), Boolean.TRUE.equals(onePass));
+        TreeVisitor<Tree, ExecutionContext> manifestReader = acc.getManifest().reader();
+        return fileTimings.timed(this, McpRecipeFileTimings.SCANNING, new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile sourceFile && manifestReader.isAcceptable(sourceFile, ctx)) {
+                    return manifestReader.visit(tree, ctx);
+                }
+                return buildFileScanner.visit(tree, ctx);
+            }
+        });
     }
 
     @Override
-    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor(@NotNull AtomicBoolean aiMcpEnabled) {
+    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor(@NotNull Accumulator acc) {
+        McpModules modules = acc.getModules();
+        McpToolManifest manifest = acc.getManifest();
+        McpToolFilter filter = acc.getFilter();
+        McpToolPagination pagination = toolPageSize == null ? null : new McpToolPagination(toolPageSize, maxToolResultSize());
         JavaIsoVisitor<ExecutionContext> visitor = new JavaIsoVisitor<>() {
 
+            @Override
+            public J.@NotNull ClassDeclaration visitClassDeclaration(J.@NotNull ClassDeclaration classDecl, @NotNull ExecutionContext ctx) {
+                // Classes migrated by an earlier run keep their tools, including the ones removed by hand since
+                getCursor().putMessage(UNCHANGED_CLASS_MESSAGE, manifest.isUnchanged(classDecl, getCursor()));
+                classDecl = super.visitClassDeclaration(classDecl, ctx);
+                Map<UUID, J.MethodDeclaration> facades = getCursor().pollMessage(TOOL_FACADES_MESSAGE);
+                if (facades != null) {
+                    // Every facade follows its mapping method
+                    classDecl = classDecl.withBody(classDecl.getBody().withStatements(ListUtils.flatMap(classDecl.getBody().getStatements(),
+                            statement -> facades.containsKey(statement.getId()) ? List.of(statement, facades.get(statement.getId())) : statement)));
+                }
+                List<McpToolPagination.Kind> paginatedTools = getCursor().pollMessage(PAGINATED_TOOLS_MESSAGE);
+                if (pagination != null && paginatedTools != null) {
+                    classDecl = pagination.addHelpers(classDecl, getCursor(), paginatedTools, ctx);
+                    McpToolPagination.helperImports().forEach(this::maybeAddImport);
+                }
+                if (getCursor().pollMessage(UNWRAPPED_TOOLS_MESSAGE) != null) {
+                    classDecl = McpToolResults.addConverter(classDecl, getCursor(), ctx);
+                    McpToolResults.converterImports().forEach(this::maybeAddImport);
+                }
+                return classDecl;
+            }
+
             @Override
             public J.@NotNull MethodDeclaration visitMethodDeclaration(J.@NotNull MethodDeclaration method, @NotNull ExecutionContext ctx) {
-                if (FindAnnotations.find(method, "@" + MCP_TOOL_FULLY_QUALIFIED_NAME).isEmpty()
-                        && (!FindAnnotations.find(method, "@org.springframework.web.bind.annotation.GetMapping").isEmpty()
-                        || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.PostMapping").isEmpty()
-                        || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.RequestMapping").isEmpty()
-                        || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.PatchMapping").isEmpty()
-                        || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.DeleteMapping").isEmpty()
-                        || !FindAnnotations.find(method, "@org.springframework.web.bind.annotation.PutMapping").isEmpty())) { // has any web mapping annotation, but no mcp tool annotation
+                if (!Boolean.TRUE.equals(getCursor().getNearestMessage(UNCHANGED_CLASS_MESSAGE))
+                        && filter.isToolCandidate(getCursor().firstEnclosingOrThrow(J.ClassDeclaration.class), method)) { // has any web mapping annotation, but no mcp tool annotation, and passes the filters
                     AtomicReference<String> toolDesc = new AtomicReference<>();
                     Map<String, String> toolParamMap = new HashMap<>();
                     Optional<Javadoc.DocComment> docComment = method.getComments().stream()
@@ -73,7 +213,7 @@ public class AddToolAnnotationToMappingMethodRecipe extends ScanningRecipe<Atomi
                             .findFirst();
                     if (docComment.isPresent()) {
                         Javadoc.DocComment comment = docComment.get();
-                        String methodDesc = getDescription(comment.getBody());
+                        String methodDesc = WebMappingDetector.description(comment.getBody());
                         toolDesc.set(methodDesc);
 
                         comment.getBody().stream()
@@ -82,67 +222,269 @@ public class AddToolAnnotationToMappingMethodRecipe extends ScanningRecipe<Atomi
                                 .filter(p -> p.getNameReference() != null && p.getNameReference().getTree() != null)
                                 .forEach(p -> {
                                     String pName = p.getNameReference().getTree().toString();
-                                    String pDesc = getDescription(p.getDescription());
+                                    String pDesc = WebMappingDetector.description(p.getDescription());
                                     toolParamMap.put(pName, pDesc);
                                 });
                     } else {
                         toolDesc.set(method.getSimpleName());
                     }
-                    //Add Tool annotation to method
-                    method = TOOL_ANNO_TEMPLATE.apply(getCursor(), method.getCoordinates().addAnnotation((an1, an2) -> 0), toolDesc.get()); // insert to the last position
+                    //Add Tool annotation to method, built as LST nodes so no template has to be compiled
+                    J.ClassDeclaration classDecl = getCursor().firstEnclosingOrThrow(J.ClassDeclaration.class);
+                    JavaType.FullyQualified converter = Boolean.TRUE.equals(unwrapToolResults) && classDecl.getType() != null
+                            && McpToolResults.isWrapped(method) ? McpToolResults.converterType(classDecl.getType()) : null;
+                    if (converter != null) {
+                        getCursor().dropParentUntil(J.ClassDeclaration.class::isInstance).putMessage(UNWRAPPED_TOOLS_MESSAGE, true);
+                    }
                     maybeAddImport(MCP_TOOL_FULLY_QUALIFIED_NAME);
-                    updateCursor(method);
-                    //Add ToolParam annotation to method parameters
-                    List<J.VariableDeclarations> params = method.getParameters().stream()
-                            .filter(statement -> statement instanceof J.VariableDeclarations)
-                            //TODO: maybe filter with variable annotations like PathVariable, RequestParam, RequestBody or RequestHeader
-                            // The parameters with these annotations are resolved from request. And in mcp, they will be taken as tool parameters.
-                            // The required option should be extract from these annotations and set to the tool parameters.
-                            .map(statement -> (J.VariableDeclarations) statement)
-                            .toList();
-                    for (J.VariableDeclarations varDecl : params) {
+                    //Add ToolParam annotation to method parameters, optional when the request binding of the parameter is
+                    J.MethodDeclaration tool = method.withParameters(ListUtils.map(method.getParameters(), statement -> {
+                        if (!(statement instanceof J.VariableDeclarations varDecl)) {
+                            return statement;
+                        }
                         String paramName = varDecl.getVariables().get(0).getSimpleName();
                         String paraDesc = toolParamMap.get(paramName);
-                        paraDesc = paraDesc != null ? paraDesc : paramName;
-                        method = TOOL_PARAM_ANNO_TEMPLATE
-                                .apply(getCursor(), varDecl.getCoordinates().addAnnotation((an1, an2) -> 0), paraDesc);
-                    }
+                        return addToolParamAnnotation(varDecl, paraDesc != null ? paraDesc : paramName,
+                                !WebMappingDetector.isOptionalParameter(varDecl));
+                    }));
                     maybeAddImport(MCP_TOOL_PARAM_FULLY_QUALIFIED_NAME);
-                    causesAnotherCycle = true;
+                    McpToolPagination.Kind pageKind = pagination == null ? null : McpToolPagination.kind(method);
+                    if (pageKind == null) {
+                        tool = tool.withLeadingAnnotations(ListUtils.concat(tool.getLeadingAnnotations(),
+                                toolAnnotation(null, toolDesc.get(), converter, Space.format("\n" + method.getPrefix().getIndent()))));
+                    } else {
+                        // The mapping method keeps its request contract, the tool is a facade bounding its results
+                        tool = McpToolPagination.facade(tool, pageKind, toolAnnotation(method.getSimpleName(), toolDesc.get(), converter, Space.EMPTY),
+                                pageParameter(McpToolPagination.PAGE_PARAMETER, McpToolPagination.PAGE_DESCRIPTION),
+                                pageParameter(McpToolPagination.SIZE_PARAMETER, McpToolPagination.sizeDescription(toolPageSize)),
+                                classDecl);
+                        getCursor().dropParentUntil(J.ClassDeclaration.class::isInstance)
+                                .computeMessageIfAbsent(PAGINATED_TOOLS_MESSAGE, k -> new ArrayList<McpToolPagination.Kind>())
+                                .add(pageKind);
+                    }
+                    J.Annotation mapping = WebMappingDetector.mappingAnnotation(method);
+                    if (Boolean.TRUE.equals(cacheGetTools) && mapping != null && "GET".equals(WebMappingDetector.httpMethod(mapping))) {
+                        tool = addCacheableAnnotation(tool, classDecl);
+                        maybeAddImport(CACHEABLE_FQN);
+                    }
+                    recordTool(method, tool, toolDesc.get(), ctx);
+                    if (pageKind == null) {
+                        method = tool;
+                    } else {
+                        getCursor().dropParentUntil(J.ClassDeclaration.class::isInstance)
+                                .computeMessageIfAbsent(TOOL_FACADES_MESSAGE, k -> new HashMap<UUID, J.MethodDeclaration>())
+                                .put(method.getId(), tool);
+                    }
                 }
                 return method;
             }
+
+            private void recordTool(J.MethodDeclaration method, J.MethodDeclaration tool, String description, ExecutionContext ctx) {
+                J.ClassDeclaration classDecl = getCursor().firstEnclosingOrThrow(J.ClassDeclaration.class);
+                J.Annotation mapping = WebMappingDetector.mappingAnnotation(method);
+                toolInventory.insertRow(ctx, new McpToolInventory.Row(
+                        getCursor().firstEnclosingOrThrow(J.CompilationUnit.class).getSourcePath().toString(),
+                        classDecl.getType() == null ? classDecl.getSimpleName() : classDecl.getType().getFullyQualifiedName(),
+                        method.getSimpleName(),
+                        mapping == null ? "ANY" : WebMappingDetector.httpMethod(mapping),
+                        WebMappingDetector.path(WebMappingDetector.requestMappingAnnotation(classDecl)) + WebMappingDetector.path(mapping),
+                        (int) tool.getParameters().stream().filter(J.VariableDeclarations.class::isInstance).count(),
+                        description.length()));
+            }
         };
 
-        //make sure the target class is a Spring Bean
-        TreeVisitor<?, ExecutionContext> beanChecker = Preconditions.or(
-                new UsesType<>("org.springframework.stereotype.Controller", false),
-                new UsesType<>("org.springframework.stereotype.Component", false),
-                new UsesType<>("org.springframework.stereotype.Service", false),
-                new UsesType<>("org.springframework.stereotype.Repository", false),
-                new UsesType<>("org.springframework.web.bind.annotation.RestController", false)
-        );
-        return Preconditions.check(
-                aiMcpEnabled.get(), Preconditions.check(beanChecker, visitor));
+        //make sure the target class is a Spring Bean of an MCP enabled module
+        return fileTimings.timed(this, McpRecipeFileTimings.EDITING, Preconditions.check(modules.anyEnabled(), Preconditions.check(
+                Preconditions.and(modules.enabledModuleChecker(), WebMappingDetector.springBeanChecker()), visitor)));
     }
 
-    @Override
-    public boolean causesAnotherCycle() {
-        return causesAnotherCycle || super.causesAnotherCycle();
+    private McpToolFilter toolFilter() {
+        return new McpToolFilter(httpMethods, includePaths, excludePaths, packages, classes);
+    }
+
+    private int maxToolResultSize() {
+        return maxToolResultSize == null ? Math.max(DEFAULT_MAX_TOOL_RESULT_SIZE, toolPageSize == null ? 0 : toolPageSize) : maxToolResultSize;
     }
 
     /**
-     * Get the description of the javaDocs.
+     * Fingerprint the options which change how a class is migrated, so the manifest of a run with other options is ignored.
+     */
+    private String optionsFingerprint() {
+        return McpToolManifest.fingerprint(Boolean.TRUE.equals(cacheGetTools), toolPageSize,
+                toolPageSize == null ? null : maxToolResultSize(), Boolean.TRUE.equals(unwrapToolResults),
+                httpMethods, includePaths, excludePaths, packages, classes);
+    }
+
+    /**
+     * Build {@code @Tool(description = "...")}, to be appended after the last leading annotation of a mapping method on its
+     * own line, or to annotate a tool facade.
      *
-     * @param javaDocs the javaDocs
-     * @return the description
+     * @param name        the tool name, null for the name of the annotated method
+     * @param description the tool description
+     * @param converter   the result converter of the tool, null for the default one
+     * @param prefix      the whitespace before the annotation
+     * @return the annotation
      */
-    private static @NotNull String getDescription(List<Javadoc> javaDocs) {
-        return javaDocs.stream()
-                .filter(l -> l instanceof Javadoc.Text)
-                .map(l -> ((Javadoc.Text) l).getText().trim())
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.joining(", "));
+    private static J.Annotation toolAnnotation(@Nullable String name, String description, JavaType.@Nullable FullyQualified converter,
+                                               Space prefix) {
+        List<J.Assignment> arguments = new ArrayList<>();
+        if (name != null) {
+            arguments.add(assignment("name", stringLiteral(name), JavaType.Primitive.String));
+        }
+        arguments.add(assignment("description", stringLiteral(description), JavaType.Primitive.String));
+        if (converter != null) {
+            arguments.add(assignment("resultConverter", classLiteral(McpToolResults.CONVERTER_CLASS, converter), JavaType.ShallowClass.build("java.lang.Class")));
+        }
+        return annotation(MCP_TOOL_FULLY_QUALIFIED_NAME, prefix, arguments);
+    }
+
+    /**
+     * Append {@code @Cacheable(cacheNames = "...", sync = true)} after the {@code @Tool} annotation of a read-only tool.
+     * Every tool gets its own cache, named after its class and method, because the cache keys are built from the arguments only.
+     *
+     * @param method    the tool method
+     * @param classDecl the class declaring the tool
+     * @return the annotated method
+     */
+    private static J.MethodDeclaration addCacheableAnnotation(J.MethodDeclaration method, J.ClassDeclaration classDecl) {
+        String className = classDecl.getType() == null ? classDecl.getSimpleName() : classDecl.getType().getFullyQualifiedName();
+        String cacheName = className + "." + method.getSimpleName();
+        J.Annotation cacheable = annotation(CACHEABLE_FQN, Space.format("\n" + method.getPrefix().getIndent()), List.of(
+                assignment("cacheNames", stringLiteral(cacheName), JavaType.Primitive.String),
+                assignment("sync", booleanLiteral(true), JavaType.Primitive.Boolean)));
+        return method.withLeadingAnnotations(ListUtils.concat(method.getLeadingAnnotations(), cacheable));
+    }
+
+    /**
+     * Append {@code @ToolParam(description = "...")} after the leading annotations of the parameter, with
+     * {@code required = false} for an optional parameter.
+     *
+     * @param varDecl     the parameter declaration
+     * @param description the tool parameter description
+     * @param required    false if the request may leave out the parameter
+     * @return the annotated parameter
+     */
+    private static J.VariableDeclarations addToolParamAnnotation(J.VariableDeclarations varDecl, String description, boolean required) {
+        if (!varDecl.getLeadingAnnotations().isEmpty()) {
+            return varDecl.withLeadingAnnotations(ListUtils.concat(varDecl.getLeadingAnnotations(),
+                    toolParamAnnotation(description, required, Space.SINGLE_SPACE)));
+        }
+        // The annotation becomes the first element, so whatever followed the parameter prefix needs a separating space
+        if (!varDecl.getModifiers().isEmpty()) {
+            varDecl = varDecl.withModifiers(ListUtils.mapFirst(varDecl.getModifiers(), m -> m.withPrefix(Space.SINGLE_SPACE)));
+        } else if (varDecl.getTypeExpression() != null) {
+            varDecl = varDecl.withTypeExpression(varDecl.getTypeExpression().withPrefix(Space.SINGLE_SPACE));
+        }
+        return varDecl.withLeadingAnnotations(ListUtils.concat(varDecl.getLeadingAnnotations(),
+                toolParamAnnotation(description, required, Space.EMPTY)));
+    }
+
+    private static J.Annotation toolParamAnnotation(String description, boolean required, Space prefix) {
+        return required ? descriptionAnnotation(MCP_TOOL_PARAM_FULLY_QUALIFIED_NAME, description, prefix)
+                : annotation(MCP_TOOL_PARAM_FULLY_QUALIFIED_NAME, prefix, List.of(
+                assignment("description", stringLiteral(description), JavaType.Primitive.String),
+                assignment("required", booleanLiteral(false), JavaType.Primitive.Boolean)));
+    }
+
+    /**
+     * Build an optional {@code @ToolParam(description = "...", required = false) Integer name} parameter of a tool facade.
+     *
+     * @param name        the parameter name
+     * @param description the tool parameter description
+     * @return the parameter declaration
+     */
+    private static J.VariableDeclarations pageParameter(String name, String description) {
+        J.Annotation toolParam = annotation(MCP_TOOL_PARAM_FULLY_QUALIFIED_NAME, Space.EMPTY, List.of(
+                assignment("description", stringLiteral(description), JavaType.Primitive.String),
+                assignment("required", booleanLiteral(false), JavaType.Primitive.Boolean)));
+        J.Identifier type = new J.Identifier(Tree.randomId(), Space.SINGLE_SPACE, Markers.EMPTY, Collections.emptyList(),
+                "Integer", JavaType.ShallowClass.build("java.lang.Integer"), null);
+        J.VariableDeclarations.NamedVariable variable = new J.VariableDeclarations.NamedVariable(Tree.randomId(), Space.SINGLE_SPACE, Markers.EMPTY,
+                new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(), name, type.getType(), null),
+                Collections.emptyList(), null, null);
+        return new J.VariableDeclarations(Tree.randomId(), Space.SINGLE_SPACE, Markers.EMPTY, List.of(toolParam), Collections.emptyList(),
+                type, null, Collections.emptyList(), List.of(JRightPadded.build(variable)));
+    }
+
+    /**
+     * Build an attributed {@code @Annotation(description = "...")} node.
+     *
+     * @param annotationFqn the fully qualified name of the annotation type
+     * @param description   the description value
+     * @param prefix        the whitespace before the annotation
+     * @return the annotation
+     */
+    private static J.Annotation descriptionAnnotation(String annotationFqn, String description, Space prefix) {
+        return annotation(annotationFqn, prefix,
+                List.of(assignment("description", stringLiteral(description), JavaType.Primitive.String)));
+    }
+
+    /**
+     * Build an attributed {@code @Annotation(name = value, ...)} node.
+     *
+     * @param annotationFqn the fully qualified name of the annotation type
+     * @param prefix        the whitespace before the annotation
+     * @param arguments     the attribute assignments
+     * @return the annotation
+     */
+    private static J.Annotation annotation(String annotationFqn, Space prefix, List<J.Assignment> arguments) {
+        String simpleName = annotationFqn.substring(annotationFqn.lastIndexOf('.') + 1);
+        List<JRightPadded<Expression>> paddedArguments = new ArrayList<>();
+        for (int i = 0; i < arguments.size(); i++) {
+            // Attributes after the first one are separated by ", "
+            J.Assignment argument = i == 0 ? arguments.get(i) : arguments.get(i).withPrefix(Space.SINGLE_SPACE);
+            paddedArguments.add(JRightPadded.build(argument));
+        }
+        return new J.Annotation(Tree.randomId(), prefix, Markers.EMPTY,
+                new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(), simpleName, JavaType.ShallowClass.build(annotationFqn), null),
+                JContainer.build(Space.EMPTY, paddedArguments, Markers.EMPTY));
+    }
+
+    private static J.Assignment assignment(String name, Expression value, JavaType type) {
+        return new J.Assignment(Tree.randomId(), Space.EMPTY, Markers.EMPTY,
+                new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(), name, type, null),
+                JLeftPadded.build(value).withBefore(Space.SINGLE_SPACE),
+                type);
+    }
+
+    private static J.FieldAccess classLiteral(String simpleName, JavaType.FullyQualified type) {
+        JavaType classType = JavaType.ShallowClass.build("java.lang.Class");
+        return new J.FieldAccess(Tree.randomId(), Space.SINGLE_SPACE, Markers.EMPTY,
+                new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(), simpleName, type, null),
+                JLeftPadded.build(new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(), "class", classType, null)),
+                classType);
+    }
+
+    private static J.Literal booleanLiteral(boolean value) {
+        return new J.Literal(Tree.randomId(), Space.SINGLE_SPACE, Markers.EMPTY, value, String.valueOf(value), null, JavaType.Primitive.Boolean);
+    }
+
+    private static J.Literal stringLiteral(String value) {
+        StringBuilder valueSource = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\' -> valueSource.append("\\\\");
+                case '"' -> valueSource.append("\\\"");
+                case '\n' -> valueSource.append("\\n");
+                case '\r' -> valueSource.append("\\r");
+                case '\t' -> valueSource.append("\\t");
+                case '\b' -> valueSource.append("\\b");
+                case '\f' -> valueSource.append("\\f");
+                // Octal, because a unicode escape of a line terminator would end the literal before it is parsed
+                default -> valueSource.append(c < ' ' ? String.format("\\%03o", (int) c) : String.valueOf(c));
+            }
+        }
+        return new J.Literal(Tree.randomId(), Space.SINGLE_SPACE, Markers.EMPTY, value, valueSource.append('"').toString(), null,
+                JavaType.Primitive.String);
+    }
+
+    @Value
+    public static class Accumulator {
+        McpModules modules;
+        /**
+         * The manifest of an earlier run, read only: {@code AddToolCallbackProviderRecipe} maintains it
+         */
+        McpToolManifest manifest;
+        McpToolFilter filter;
     }
 
     @Override
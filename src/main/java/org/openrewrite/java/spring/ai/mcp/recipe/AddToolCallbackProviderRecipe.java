@@ -1,24 +1,51 @@
 package org.openrewrite.java.spring.ai.mcp.recipe;
 
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.intellij.lang.annotations.Language;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.openrewrite.*;
+import org.openrewrite.internal.ListUtils;
 import org.openrewrite.java.JavaIsoVisitor;
 import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.JavaTemplate;
 import org.openrewrite.java.search.FindAnnotations;
+import org.openrewrite.java.search.UsesType;
+import org.openrewrite.java.spring.ai.mcp.table.McpRecipeFileTimings;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpModules;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpRuntimeHints;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolBulkheads;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolDefinitions;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolFilter;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolManifest;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolObservations;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpTemplates;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpToolSelection;
 import org.openrewrite.java.spring.ai.mcp.visitor.McpToolVisitor;
+import org.openrewrite.java.spring.ai.mcp.visitor.SpringAIMcpVisitor;
+import org.openrewrite.java.spring.ai.mcp.visitor.WebMappingDetector;
 import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.Space;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.properties.tree.Properties;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
-public class AddToolCallbackProviderRecipe extends ScanningRecipe<Set<String>> {
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class AddToolCallbackProviderRecipe extends ScanningRecipe<AddToolCallbackProviderRecipe.Accumulator> {
     private static final String SPRING_BOOT_APPLICATION_FQN = "org.springframework.boot.autoconfigure.SpringBootApplication";
     private static final String SPRING_BEAN_FQN = "org.springframework.context.annotation.Bean";
+    private static final String ENABLE_CACHING_FQN = "org.springframework.cache.annotation.EnableCaching";
     private static final String METHOD_TOOL_CB_PROVIDER_FQN = "org.springframework.ai.tool.method.MethodToolCallbackProvider";
     public static final String TOOL_CB_PROVIDER_PACKAGE = "org.springframework.ai.tool";
     public static final String TOOL_CB_PROVIDER_SIMPLE_NAME = "ToolCallbackProvider";
@@ -31,31 +58,208 @@ public class AddToolCallbackProviderRecipe extends ScanningRecipe<Set<String>> {
                         .build();
             }
             """;
+    public static final String PROVIDER_DEFINITIONS_METHOD_TEMPLATE = """
+            @Bean
+            ToolCallbackProvider %s(#{}) {
+                return ToolCallbackProvider.from(%s(#{}));
+            }
+            """;
     private static final String BEAN_METHOD_NAME = "toolCallbackProvider";
+    /**
+     * Artifacts of the Spring types used by the provider method, loaded from META-INF/rewrite/classpath.tsv.zip
+     */
+    private static final String[] TYPE_TABLE_ARTIFACTS = {"spring-ai-model", "spring-context"};
+    @Option(displayName = "One-pass migration",
+            description = "Also add the `ToolCallbackProvider` bean to the applications of the web modules without an MCP " +
+                    "server starter, because `UpdateBuildFiles` adds the starter to them earlier in the same run of " +
+                    "`MigrateToSpringAIMcpServerRecipe`, together with the tools.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean onePass;
+
+    @Option(displayName = "Tool manifest",
+            description = "Path of the tool manifest, relative to the repository root. The manifest records the tool " +
+                    "classes, their method signatures and content hashes. It is created by the first run and updated by " +
+                    "later runs, which only update the `ToolCallbackProvider` bean when the set of tool classes changes.",
+            required = false,
+            example = "mcp-tools.properties")
+    @Nullable
+    String toolManifest;
+
+    @Option(displayName = "Cache GET tools",
+            description = "Add `@EnableCaching` to the `@SpringBootApplication` class, so the `@Cacheable` tools generated " +
+                    "by the `cacheGetTools` option of `AddToolAnnotationToMappingMethodRecipe` are cached.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean cacheGetTools;
+
+    @Option(displayName = "Tool definitions",
+            description = "Generate the name, description and input schema of every tool at migration time into " +
+                    "`src/main/resources/" + McpToolDefinitions.RESOURCE + "` of the application module, with the schemas of " +
+                    "shared parameter types written once. The `ToolCallbackProvider` bean then loads these definitions " +
+                    "instead of deriving them by reflection on startup, except for the tools changed or added since.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean toolDefinitions;
+
+    @Option(displayName = "Runtime hints",
+            description = "Add a `RuntimeHintsRegistrar` to the `@SpringBootApplication` class, imported with `@ImportRuntimeHints`. " +
+                    "It registers the tool classes and the data types reachable from the tool signatures for reflection, " +
+                    "so the tools keep working in Spring AOT processed applications and GraalVM native images.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean runtimeHints;
+
+    @Option(displayName = "Tool bulkheads",
+            description = "Add a `McpToolBulkheads` bean post processor to the `@SpringBootApplication` class, which limits the " +
+                    "concurrent calls and the duration of every tool. Calls beyond the limit are rejected at once. The limits are " +
+                    "set per tool by `spring.ai.mcp.server.tools.<name>.max-concurrent-calls` and `.timeout`, falling back to " +
+                    "`spring.ai.mcp.server.tools.default.*`, which the `toolConcurrencyLimit` and `toolTimeout` options of " +
+                    "`AddMcpServerConfigRecipe` write.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean toolBulkheads;
+
+    @Option(displayName = "Tool observations",
+            description = "Add a `McpToolObservations` bean post processor to the `@SpringBootApplication` class, which wraps every " +
+                    "tool call into an `mcp.tool.call` Micrometer observation tagged with the `tool` name and the call `outcome`. " +
+                    "With Spring Boot Actuator, it records the latency and throughput of every tool, and the calls in flight.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean toolObservations;
+
+    transient McpRecipeFileTimings fileTimings = new McpRecipeFileTimings(this);
+
+    @Override
+    public @NotNull Accumulator getInitialValue(@NotNull ExecutionContext ctx) {
+        // Concurrent for parallel scanning, sorted so the provider parameters keep the same order on every run
+        return new Accumulator(new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>(), new McpModules(),
+                new McpToolManifest(toolManifest, McpToolManifest.PROVIDER_OPTIONS, McpToolManifest.fingerprint(Boolean.TRUE.equals(cacheGetTools),
+                        Boolean.TRUE.equals(toolDefinitions), Boolean.TRUE.equals(runtimeHints), Boolean.TRUE.equals(toolBulkheads),
+                        Boolean.TRUE.equals(toolObservations))),
+                new McpToolDefinitions(Boolean.TRUE.equals(toolDefinitions)), new McpRuntimeHints(Boolean.TRUE.equals(runtimeHints)),
+                new McpToolSelection());
+    }
 
     @Override
-    public @NotNull Set<String> getInitialValue(@NotNull ExecutionContext ctx) {
-        return new HashSet<>();
+    public @NotNull Accumulator getAccumulator(@NotNull Cursor cursor, @NotNull ExecutionContext ctx) {
+        Accumulator acc = super.getAccumulator(cursor, ctx);
+        // Whether and which candidates AddToolAnnotationToMappingMethodRecipe turns into tools in this cycle, read after scanning
+        acc.getSelection().join(cursor);
+        return acc;
+    }
+
+    @Override
+    public @NotNull TreeVisitor<?, ExecutionContext> getScanner(@NotNull Accumulator acc) {
+        SpringAIMcpVisitor<ExecutionContext> buildFileScanner = new SpringAIMcpVisitor<>(acc.getModules(), Boolean.TRUE.equals(onePass));
+        // Only files which reference @Tool or declare a Spring Bean can contribute tool classes
+        TreeVisitor<?, ExecutionContext> toolScanner = Preconditions.check(
+                Preconditions.or(new UsesType<>(WebMappingDetector.TOOL_ANNOTATION_FQN, false), WebMappingDetector.springBeanChecker()),
+                new McpToolVisitor(acc.getTools(), acc.getCandidates(), acc.getManifest(), acc.getDefinitions(), acc.getHints(),
+                        acc.getEndpoints()));
+        TreeVisitor<Tree, ExecutionContext> manifestReader = acc.getManifest().reader();
+        McpToolDefinitions definitions = acc.getDefinitions();
+        TreeVisitor<Tree, ExecutionContext> definitionsReader = definitions.reader();
+        // The definitions are written to the resources of the modules declaring a boot application
+        TreeVisitor<?, ExecutionContext> applicationScanner = Preconditions.check(new UsesType<>(SPRING_BOOT_APPLICATION_FQN, false),
+                new TreeVisitor<Tree, ExecutionContext>() {
+                    @Override
+                    public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                        if (tree instanceof SourceFile sourceFile) {
+                            definitions.recordApplication(sourceFile.getSourcePath());
+                        }
+                        return tree;
+                    }
+                });
+        return fileTimings.timed(this, McpRecipeFileTimings.SCANNING, new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (definitions.isEnabled() && tree instanceof SourceFile sourceFile && applicationScanner.isAcceptable(sourceFile, ctx)) {
+                    applicationScanner.visit(tree, ctx);
+                }
+                if (tree instanceof SourceFile sourceFile && definitionsReader.isAcceptable(sourceFile, ctx)) {
+                    return definitionsReader.visit(tree, ctx);
+                }
+                if (tree instanceof SourceFile sourceFile && toolScanner.isAcceptable(sourceFile, ctx)) {
+                    return toolScanner.visit(tree, ctx);
+                }
+                if (tree instanceof SourceFile sourceFile && manifestReader.isAcceptable(sourceFile, ctx)) {
+                    return manifestReader.visit(tree, ctx);
+                }
+                return buildFileScanner.visit(tree, ctx);
+            }
+        });
     }
 
     @Override
-    public @NotNull TreeVisitor<?, ExecutionContext> getScanner(@NotNull Set<String> toolSet) {
-        return new McpToolVisitor(toolSet);
+    public @NotNull Collection<? extends SourceFile> generate(@NotNull Accumulator acc, @NotNull ExecutionContext ctx) {
+        List<SourceFile> generated = new ArrayList<>();
+        McpToolManifest manifest = acc.getManifest();
+        // Written for AddToolAnnotationToMappingMethodRecipe, whose options are only known once the scanning is over
+        String toolsOptions = acc.getSelection().options();
+        if (toolsOptions != null) {
+            manifest.recordOptions(McpToolManifest.TOOLS_OPTIONS, toolsOptions);
+        }
+        // Unless disabled, or left by an earlier run and updated by the visitor
+        if (manifest.isEnabled() && !manifest.isPresent()) {
+            SortedSet<String> toolClasses = acc.toolClasses();
+            if (!toolClasses.isEmpty()) {
+                generated.add(manifest.generate(toolClasses));
+            }
+        }
+        McpToolDefinitions definitions = acc.getDefinitions();
+        acc.definitionFiles().forEach((path, toolClasses) -> {
+            if (!definitions.isPresent(path)) {
+                generated.add(definitions.generate(path, toolClasses, acc.getSelection()));
+            }
+        });
+        return generated;
     }
 
     @Override
-    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor(@NotNull Set<String> toolObjectSet) {
+    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor(@NotNull Accumulator acc) {
         JavaIsoVisitor<ExecutionContext> visitor = new JavaIsoVisitor<>() {
             @Override
             public J.@NotNull ClassDeclaration visitClassDeclaration(J.@NotNull ClassDeclaration classDecl, @NotNull ExecutionContext ctx) {
                 classDecl = super.visitClassDeclaration(classDecl, ctx);
-                if (toolObjectSet.isEmpty()) {
-                    return classDecl; // No tool objects found, return early
-                }
                 Set<J.Annotation> annotations = FindAnnotations.find(classDecl, SPRING_BOOT_APPLICATION_FQN);
                 if (annotations.isEmpty()) {
                     return classDecl; // No @SpringBootApplication annotation found, return early
                 }
+                // Only the tool classes of this module and the modules it depends on can be injected
+                SortedSet<String> toolObjectSet = acc.toolObjects(getCursor().firstEnclosingOrThrow(J.CompilationUnit.class).getSourcePath());
+                if (toolObjectSet.isEmpty()) {
+                    return classDecl; // No tool objects found, return early
+                }
+                if (Boolean.TRUE.equals(cacheGetTools) && FindAnnotations.find(classDecl, ENABLE_CACHING_FQN).isEmpty()) {
+                    classDecl = addEnableCaching(classDecl);
+                    maybeAddImport(ENABLE_CACHING_FQN);
+                }
+                classDecl = updateProvider(classDecl, toolObjectSet, ctx);
+                if (Boolean.TRUE.equals(runtimeHints)) {
+                    classDecl = acc.getHints().addRegistrar(classDecl, getCursor(), toolObjectSet, acc.getSelection(),
+                            Boolean.TRUE.equals(toolDefinitions) ? McpToolDefinitions.RESOURCE : null, ctx);
+                    McpRuntimeHints.registrarImports().forEach(this::maybeAddImport);
+                }
+                if (Boolean.TRUE.equals(toolBulkheads) && !McpToolBulkheads.hasBulkheads(classDecl)) {
+                    classDecl = McpToolBulkheads.addBulkheads(classDecl, getCursor(), ctx);
+                    // Every type of the bulkheads is referenced, the types in use cached on the compilation unit may predate them
+                    McpToolBulkheads.bulkheadsImports().forEach(type -> maybeAddImport(type, null, false));
+                }
+                if (Boolean.TRUE.equals(toolObservations) && !McpToolObservations.hasObservations(classDecl)) {
+                    classDecl = McpToolObservations.addObservations(classDecl, getCursor(), ctx);
+                    McpToolObservations.observationsImports().forEach(type -> maybeAddImport(type, null, false));
+                }
+                return classDecl;
+            }
+
+            private J.ClassDeclaration updateProvider(J.ClassDeclaration classDecl, SortedSet<String> toolObjectSet, ExecutionContext ctx) {
                 List<J.MethodDeclaration> providerMethodList = classDecl.getBody().getStatements().stream()
                         .filter(s -> s instanceof J.MethodDeclaration)
                         .map(s -> (J.MethodDeclaration) s)
@@ -72,23 +276,73 @@ public class AddToolCallbackProviderRecipe extends ScanningRecipe<Set<String>> {
                             .toList();
 
                     if (params.size() == toolObjectSet.size()
-                            && params.stream().filter(varDecl -> toolObjectSet.contains(varDecl.getTypeAsFullyQualified().toString())).count() == params.size()) {
+                            && params.stream().filter(varDecl -> toolObjectSet.contains(varDecl.getTypeAsFullyQualified().toString())).count() == params.size()
+                            && (!Boolean.TRUE.equals(toolDefinitions) || McpToolDefinitions.hasLoader(classDecl))) {
                         return classDecl;
                     }
-                    // Update the method to use the new tool object list
-                    J.Block block = buildJavaTemplate(toolObjectSet, m.getName().toString())
+                    // Update the method to use the new tool object list, the loader of the definitions is templated with it
+                    classDecl = withoutLoader(classDecl);
+                    J.Block block = buildJavaTemplate(toolObjectSet, m.getName().toString(), ctx)
                             .apply(new Cursor(getCursor(), classDecl.getBody()), m.getCoordinates().replace(), buildArguments(toolObjectSet), buildVariables(toolObjectSet));
                     classDecl = classDecl.withBody(block);
                 } else {
                     // Create a new method with the tool object list
-                    classDecl = buildJavaTemplate(toolObjectSet, BEAN_METHOD_NAME)
+                    classDecl = withoutLoader(classDecl);
+                    classDecl = buildJavaTemplate(toolObjectSet, BEAN_METHOD_NAME, ctx)
                             .apply(getCursor(), classDecl.getBody().getCoordinates().lastStatement(), buildArguments(toolObjectSet), buildVariables(toolObjectSet));
                 }
                 Arrays.stream(buildImports(toolObjectSet)).forEach(this::maybeAddImport);
+                if (Boolean.TRUE.equals(toolDefinitions)) {
+                    maybeRemoveImport(METHOD_TOOL_CB_PROVIDER_FQN);
+                }
                 return classDecl;
             }
+
+            private J.ClassDeclaration withoutLoader(J.ClassDeclaration classDecl) {
+                return Boolean.TRUE.equals(toolDefinitions) ? McpToolDefinitions.withoutLoader(classDecl) : classDecl;
+            }
         };
-        return Preconditions.check(!toolObjectSet.isEmpty(), visitor);
+        McpToolManifest manifest = acc.getManifest();
+        SortedSet<String> toolClasses = acc.toolClasses();
+        Map<Path, SortedSet<String>> definitionFiles = acc.definitionFiles();
+        // The provider beans of an earlier run are up to date as long as the tool classes are the same
+        TreeVisitor<?, ExecutionContext> beanVisitor = Preconditions.check(
+                acc.hasToolObjects() && !manifest.isToolSetUnchanged(toolClasses), visitor);
+        return fileTimings.timed(this, McpRecipeFileTimings.EDITING, new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public boolean isAcceptable(@NotNull SourceFile sourceFile, @NotNull ExecutionContext ctx) {
+                return manifest.isManifest(sourceFile) || definitionFiles.containsKey(sourceFile.getSourcePath())
+                        || beanVisitor.isAcceptable(sourceFile, ctx);
+            }
+
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof Properties.File file && manifest.isManifest(file)) {
+                    return manifest.update(file, toolClasses);
+                }
+                if (tree instanceof SourceFile sourceFile && definitionFiles.containsKey(sourceFile.getSourcePath())) {
+                    return acc.getDefinitions().update(sourceFile, definitionFiles.get(sourceFile.getSourcePath()), acc.getSelection());
+                }
+                if (tree instanceof SourceFile sourceFile && beanVisitor.isAcceptable(sourceFile, ctx)) {
+                    return beanVisitor.visit(tree, ctx);
+                }
+                return tree;
+            }
+        });
+    }
+
+    /**
+     * Append {@code @EnableCaching} to the leading annotations of the application class.
+     *
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @return the annotated class
+     */
+    private static J.ClassDeclaration addEnableCaching(J.ClassDeclaration classDecl) {
+        J.Annotation enableCaching = new J.Annotation(Tree.randomId(), Space.format("\n" + classDecl.getPrefix().getIndent()), Markers.EMPTY,
+                new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(),
+                        ENABLE_CACHING_FQN.substring(ENABLE_CACHING_FQN.lastIndexOf('.') + 1), JavaType.ShallowClass.build(ENABLE_CACHING_FQN), null),
+                null);
+        return classDecl.withLeadingAnnotations(ListUtils.concat(classDecl.getLeadingAnnotations(), enableCaching));
     }
 
     private @NotNull String buildVariables(Set<String> toolObjectList) {
@@ -108,22 +362,34 @@ public class AddToolCallbackProviderRecipe extends ScanningRecipe<Set<String>> {
                 .collect(Collectors.joining(", "));
     }
 
-    private JavaTemplate buildJavaTemplate(Set<String> toolObjectList, @NonNull String methodName) {
-        @Language("java") String[] dependsOn = buildDependsOn(toolObjectList);
-        String[] imports = buildImports(toolObjectList);
-        return JavaTemplate.builder(String.format(PROVIDER_METHOD_TEMPLATE, methodName))
-                .imports(imports)
+    private JavaTemplate buildJavaTemplate(SortedSet<String> toolObjectList, @NonNull String methodName, ExecutionContext ctx) {
+        boolean definitions = Boolean.TRUE.equals(toolDefinitions);
+        String cacheKey = (definitions ? "definitions:" : "") + methodName + ":" + String.join(",", toolObjectList);
+        String template = definitions
+                ? String.format(PROVIDER_DEFINITIONS_METHOD_TEMPLATE, methodName, McpToolDefinitions.LOADER_METHOD) + "\n" + McpToolDefinitions.loaderTemplate()
+                : String.format(PROVIDER_METHOD_TEMPLATE, methodName);
+        // Cached for the run, so repeated boot applications and later cycles reuse the template and its parser
+        return McpTemplates.get(ctx, cacheKey, () -> JavaTemplate.builder(template)
+                .imports(buildImports(toolObjectList))
                 .contextSensitive()
-                .javaParser(JavaParser.fromJavaVersion().dependsOn(dependsOn).logCompilationWarningsAndErrors(true))
-                .build();
+                .javaParser(JavaParser.fromJavaVersion()
+                        // Spring types come from the bundled type table, only the tool classes are stubbed
+                        .classpathFromResources(ctx, TYPE_TABLE_ARTIFACTS)
+                        .dependsOn(buildDependsOn(toolObjectList))
+                        .logCompilationWarningsAndErrors(true))
+                .build());
     }
 
     private @NotNull String[] buildImports(Set<String> toolObjectList) {
-        HashSet<String> importsToAdd = moreToImportAndDependOn(toolObjectList);
+        HashSet<String> importsToAdd = moreToImport(toolObjectList);
+        if (Boolean.TRUE.equals(toolDefinitions)) {
+            importsToAdd.remove(METHOD_TOOL_CB_PROVIDER_FQN);
+            importsToAdd.addAll(McpToolDefinitions.loaderImports());
+        }
         return importsToAdd.toArray(new String[0]);
     }
 
-    private @NotNull HashSet<String> moreToImportAndDependOn(Set<String> toolObjectList) {
+    private static @NotNull HashSet<String> moreToImport(Set<String> toolObjectList) {
         HashSet<String> importsToAdd = new HashSet<>(toolObjectList);
         importsToAdd.add(SPRING_BEAN_FQN);
         importsToAdd.add(METHOD_TOOL_CB_PROVIDER_FQN);
@@ -132,43 +398,105 @@ public class AddToolCallbackProviderRecipe extends ScanningRecipe<Set<String>> {
     }
 
     private @NotNull String[] buildDependsOn(Set<String> toolObjectList) {
-        List<String> dependsOnList = new ArrayList<>(moreToImportAndDependOn(toolObjectList).stream()
-                .filter(dep -> !METHOD_TOOL_CB_PROVIDER_FQN.equals(dep)) // ignore the MethodToolCallbackProvider
-                .map(clazzName -> {
-                    String clazzSimpleName = clazzName.substring(clazzName.lastIndexOf('.') + 1);
-                    String packageName = clazzName.substring(0, clazzName.lastIndexOf('.'));
-                    return String.format("""
-                            package %s;
-                            public class %s {}
-                            """, packageName, clazzSimpleName);
-                })
-                .toList());
+        Stream<String> toolStubs = toolObjectList.stream().map(AddToolCallbackProviderRecipe::classStub);
+        // The loader refers to types which are not in the type table
+        return (Boolean.TRUE.equals(toolDefinitions) ? Stream.concat(toolStubs, Arrays.stream(McpToolDefinitions.loaderStubs())) : toolStubs)
+                .toArray(String[]::new);
+    }
 
-        // special case for MethodToolCallbackProvider
-        @Language("java")
-        String methodCallbackProvider = String.format(""" 
+    private static @NotNull String classStub(String clazzName) {
+        String clazzSimpleName = clazzName.substring(clazzName.lastIndexOf('.') + 1);
+        String packageName = clazzName.substring(0, clazzName.lastIndexOf('.'));
+        return String.format("""
                 package %s;
-                
-                import java.util.List;
-                public class %s {
-                    public static Builder builder() {
-                        return new Builder();
-                    }
-                    public static class Builder {
-                        private List<Object> toolObjects;
-                        private Builder() {}
-                        public Builder toolObjects(Object... toolObjects) {
-                            return this;
-                        }
-                        public MethodToolCallbackProvider build() {
-                            return null;
-                        }
-                    }
+                public class %s {}
+                """, packageName, clazzSimpleName);
+    }
+
+    @Value
+    public static class Accumulator {
+        /**
+         * Classes which already have methods annotated with @Tool, mapped to their source paths
+         */
+        Map<String, Path> tools;
+        /**
+         * Spring Bean classes with mapping methods, which become tools once their module is MCP enabled, if
+         * {@code AddToolAnnotationToMappingMethodRecipe} runs too and its filter selects any of them
+         */
+        Map<String, Path> candidates;
+        /**
+         * The endpoints of the mapping methods of the candidates, keyed by class
+         */
+        Map<String, List<McpToolFilter.Endpoint>> endpoints;
+        McpModules modules;
+        McpToolManifest manifest;
+        McpToolDefinitions definitions;
+        McpRuntimeHints hints;
+        McpToolSelection selection;
+
+        public boolean hasToolObjects() {
+            return !tools.isEmpty() || (modules.anyEnabled() && candidates.keySet().stream().anyMatch(this::isSelected));
+        }
+
+        private boolean isSelected(String candidate) {
+            return endpoints.getOrDefault(candidate, Collections.emptyList()).stream().anyMatch(selection::selects);
+        }
+
+        /**
+         * Get all tool classes as they are at the end of the cycle.
+         *
+         * @return the fully qualified names of the tool classes, sorted
+         */
+        public SortedSet<String> toolClasses() {
+            SortedSet<String> toolClasses = new TreeSet<>(tools.keySet());
+            candidates.forEach((clazz, path) -> {
+                if (modules.isEnabled(path) && isSelected(clazz)) {
+                    toolClasses.add(clazz);
+                }
+            });
+            return toolClasses;
+        }
+
+        /**
+         * Get the tool classes visible from a source file as they are at the end of the cycle,
+         * so the bean converges in a single cycle.
+         *
+         * @param sourcePath the source file declaring the provider bean
+         * @return the fully qualified names of the tool classes, sorted
+         */
+        public SortedSet<String> toolObjects(Path sourcePath) {
+            Set<Path> visibleModules = modules.visibleModules(modules.moduleOf(sourcePath));
+            SortedSet<String> toolObjects = new TreeSet<>();
+            tools.forEach((clazz, path) -> {
+                if (visibleModules.contains(modules.moduleOf(path))) {
+                    toolObjects.add(clazz);
                 }
-                """, METHOD_TOOL_CB_PROVIDER_FQN.substring(0, METHOD_TOOL_CB_PROVIDER_FQN.lastIndexOf('.')), METHOD_TOOL_CB_PROVIDER_FQN.substring(METHOD_TOOL_CB_PROVIDER_FQN.lastIndexOf('.') + 1));
-        dependsOnList = new ArrayList<>(dependsOnList);
-        dependsOnList.add(methodCallbackProvider);
-        return dependsOnList.toArray(new String[0]);
+            });
+            candidates.forEach((clazz, path) -> {
+                Path module = modules.moduleOf(path);
+                if (visibleModules.contains(module) && modules.isEnabledModule(module) && isSelected(clazz)) {
+                    toolObjects.add(clazz);
+                }
+            });
+            return toolObjects;
+        }
+
+        /**
+         * Get the definitions files of the modules declaring a boot application, with the tool classes they describe.
+         *
+         * @return the tool classes keyed by the path of the definitions file
+         */
+        public Map<Path, SortedSet<String>> definitionFiles() {
+            Map<Path, SortedSet<String>> definitionFiles = new TreeMap<>();
+            for (Path application : definitions.getApplications()) {
+                SortedSet<String> toolObjects = toolObjects(application);
+                if (!toolObjects.isEmpty()) {
+                    definitionFiles.computeIfAbsent(McpToolDefinitions.resourcePath(modules.moduleOf(application)), path -> new TreeSet<>())
+                            .addAll(toolObjects);
+                }
+            }
+            return definitionFiles;
+        }
     }
 
     @Override
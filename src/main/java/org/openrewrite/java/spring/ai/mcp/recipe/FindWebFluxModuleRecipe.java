@@ -0,0 +1,51 @@
+package org.openrewrite.java.spring.ai.mcp.recipe;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.java.spring.ai.mcp.visitor.BuildSystemDetector;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpModules;
+import org.openrewrite.marker.SearchResult;
+
+/**
+ * Marks the build files of WebFlux modules, so `UpdateBuildFiles` can pick the MCP server starter of each module.
+ */
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class FindWebFluxModuleRecipe extends Recipe {
+
+    @Option(displayName = "Invert",
+            description = "Mark the build files of the modules which are not WebFlux applications instead.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean invert;
+
+    @Override
+    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor() {
+        boolean webFlux = !Boolean.TRUE.equals(invert);
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile sourceFile
+                        && (BuildSystemDetector.isMavenProject(sourceFile) || BuildSystemDetector.isGradleProject(sourceFile))
+                        && McpModules.isWebFlux(sourceFile) == webFlux) {
+                    return SearchResult.found(tree);
+                }
+                return tree;
+            }
+        };
+    }
+
+    @Override
+    public @NlsRewrite.DisplayName @NotNull String getDisplayName() {
+        return "Find WebFlux modules";
+    }
+
+    @Override
+    public @NlsRewrite.Description @NotNull String getDescription() {
+        return "Find the Maven and Gradle build files of modules which depend on `spring-webflux` but not on `spring-webmvc`.";
+    }
+}
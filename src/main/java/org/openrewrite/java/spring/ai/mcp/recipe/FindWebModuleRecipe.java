@@ -0,0 +1,45 @@
+package org.openrewrite.java.spring.ai.mcp.recipe;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.java.spring.ai.mcp.visitor.BuildSystemDetector;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpModules;
+import org.openrewrite.marker.SearchResult;
+
+/**
+ * Marks the build files of web modules, so `UpdateBuildFiles` adds an MCP server starter to them only, like the
+ * one-pass migration assumes.
+ */
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class FindWebModuleRecipe extends Recipe {
+
+    @Override
+    public @NotNull TreeVisitor<?, ExecutionContext> getVisitor() {
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile sourceFile
+                        && (BuildSystemDetector.isMavenProject(sourceFile) || BuildSystemDetector.isGradleProject(sourceFile))
+                        && McpModules.isWebModule(sourceFile)) {
+                    return SearchResult.found(tree);
+                }
+                return tree;
+            }
+        };
+    }
+
+    @Override
+    public @NlsRewrite.DisplayName @NotNull String getDisplayName() {
+        return "Find web modules";
+    }
+
+    @Override
+    public @NlsRewrite.Description @NotNull String getDescription() {
+        return "Find the Maven and Gradle build files of modules which depend on `spring-webmvc` or `spring-webflux`, " +
+                "or on their Spring Boot starters.";
+    }
+}
@@ -0,0 +1,79 @@
+package org.openrewrite.java.spring.ai.mcp.table;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.*;
+
+import java.util.function.Supplier;
+
+/**
+ * The time the MCP migration recipes spend on each source file, in the scanning and in the editing phase.
+ * The editing phase includes the template application of the generated code.
+ */
+public class McpRecipeFileTimings extends DataTable<McpRecipeFileTimings.Row> {
+    public static final String SCANNING = "Scanning";
+    public static final String EDITING = "Editing";
+
+    public McpRecipeFileTimings(Recipe recipe) {
+        super(recipe,
+                "MCP migration time per source file",
+                "The time each MCP migration recipe spends on each source file, by phase.");
+    }
+
+    /**
+     * Wrap a scanner or a visitor of the recipe, so that every source file it visits is timed.
+     *
+     * @param recipe  the recipe the visitor belongs to
+     * @param phase   {@link #SCANNING} or {@link #EDITING}
+     * @param visitor the scanner or visitor
+     * @return the timed visitor
+     */
+    public TreeVisitor<?, ExecutionContext> timed(Recipe recipe, String phase, TreeVisitor<?, ExecutionContext> visitor) {
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public boolean isAcceptable(@NotNull SourceFile sourceFile, @NotNull ExecutionContext ctx) {
+                return visitor.isAcceptable(sourceFile, ctx);
+            }
+
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                return timed(tree, ctx, () -> visitor.visit(tree, ctx));
+            }
+
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx, @NotNull Cursor parent) {
+                return timed(tree, ctx, () -> visitor.visit(tree, ctx, parent));
+            }
+
+            private @Nullable Tree timed(@Nullable Tree tree, ExecutionContext ctx, Supplier<@Nullable Tree> visit) {
+                if (!(tree instanceof SourceFile sourceFile)) {
+                    return visit.get();
+                }
+                long start = System.nanoTime();
+                Tree result = visit.get();
+                insertRow(ctx, new Row(recipe.getName(), sourceFile.getSourcePath().toString(), phase, System.nanoTime() - start));
+                return result;
+            }
+        };
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Recipe",
+                description = "The recipe visiting the source file.")
+        String recipe;
+
+        @Column(displayName = "Source path",
+                description = "The source file.")
+        String sourcePath;
+
+        @Column(displayName = "Phase",
+                description = "`Scanning` or `Editing`, the editing phase includes the template application.")
+        String phase;
+
+        @Column(displayName = "Time (ns)",
+                description = "The time spent on the source file in this phase.")
+        Long timeNs;
+    }
+}
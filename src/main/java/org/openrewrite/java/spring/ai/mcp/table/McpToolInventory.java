@@ -0,0 +1,49 @@
+package org.openrewrite.java.spring.ai.mcp.table;
+
+import lombok.Value;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+/**
+ * Every MCP tool generated from a Spring Web mapping method.
+ */
+public class McpToolInventory extends DataTable<McpToolInventory.Row> {
+
+    public McpToolInventory(Recipe recipe) {
+        super(recipe,
+                "MCP tool inventory",
+                "The MCP tools generated from Spring Web mapping methods.");
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Source path",
+                description = "The source file declaring the tool.")
+        String sourcePath;
+
+        @Column(displayName = "Class",
+                description = "The fully qualified name of the class declaring the tool.")
+        String className;
+
+        @Column(displayName = "Method",
+                description = "The name of the tool method.")
+        String methodName;
+
+        @Column(displayName = "HTTP method",
+                description = "The HTTP method of the mapping, `ANY` when the mapping does not restrict it.")
+        String httpMethod;
+
+        @Column(displayName = "Path",
+                description = "The request path of the mapping, including the path of the class level `@RequestMapping`.")
+        String path;
+
+        @Column(displayName = "Parameter count",
+                description = "The number of tool parameters.")
+        Integer parameterCount;
+
+        @Column(displayName = "Description length",
+                description = "The length of the tool description.")
+        Integer descriptionLength;
+    }
+}
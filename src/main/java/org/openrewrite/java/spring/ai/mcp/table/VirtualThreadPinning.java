@@ -0,0 +1,47 @@
+package org.openrewrite.java.spring.ai.mcp.table;
+
+import lombok.Value;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Recipe;
+
+/**
+ * Code of Spring Beans which pins the carrier thread of a virtual thread.
+ */
+public class VirtualThreadPinning extends DataTable<VirtualThreadPinning.Row> {
+
+    public VirtualThreadPinning(Recipe recipe) {
+        super(recipe,
+                "Virtual thread pinning",
+                "The `synchronized` methods and blocks of Spring Beans, which pin the carrier thread when tools run on virtual threads before Java 24.");
+    }
+
+    /**
+     * The code is reported in the first cycle which sees its module MCP enabled, the second one when the MCP server
+     * starter is added in the same run. {@code AddMcpServerConfigRecipe} reports every source file only once.
+     */
+    @Override
+    protected boolean allowWritingInThisCycle(ExecutionContext ctx) {
+        return true;
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Source path",
+                description = "The source file declaring the code.")
+        String sourcePath;
+
+        @Column(displayName = "Class",
+                description = "The fully qualified name of the Spring Bean class.")
+        String className;
+
+        @Column(displayName = "Method",
+                description = "The method which is or contains the pinning code.")
+        String methodName;
+
+        @Column(displayName = "Construct",
+                description = "`synchronized method` or `synchronized block`.")
+        String construct;
+    }
+}
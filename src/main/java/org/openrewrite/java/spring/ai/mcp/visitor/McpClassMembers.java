@@ -0,0 +1,43 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.JavaTemplate;
+import org.openrewrite.java.tree.J;
+
+import java.util.List;
+
+/**
+ * Appends the members which the MCP migration generates, such as helper methods and nested classes, to an existing class.
+ */
+public final class McpClassMembers {
+    private McpClassMembers() {
+    }
+
+    /**
+     * Append a member to a class, separated from the member before it by a blank line.
+     *
+     * @param classDecl the class to append the member to
+     * @param cursor    the cursor of the class declaration
+     * @param ctx       the execution context, which caches the template for the run
+     * @param template  the source of the member
+     * @param imports   the types which the member refers to
+     * @param stubs     the stubs of the types which the target project may not have on the parser classpath
+     * @return the class with the member
+     */
+    public static J.ClassDeclaration append(J.ClassDeclaration classDecl, Cursor cursor, ExecutionContext ctx, String template,
+                                            List<String> imports, String... stubs) {
+        int index = classDecl.getBody().getStatements().size();
+        classDecl = McpTemplates.get(ctx, template + "\n" + imports + "\n" + String.join("\n", stubs), () -> JavaTemplate.builder(template)
+                        .imports(imports.toArray(new String[0]))
+                        .javaParser(JavaParser.fromJavaVersion().dependsOn(stubs))
+                        .build())
+                .apply(new Cursor(cursor.getParentOrThrow(), classDecl), classDecl.getBody().getCoordinates().lastStatement());
+        return classDecl.withBody(classDecl.getBody().withStatements(ListUtils.map(classDecl.getBody().getStatements(),
+                (i, statement) -> i == index && !statement.getPrefix().getWhitespace().startsWith("\n\n")
+                        ? statement.withPrefix(statement.getPrefix().withWhitespace("\n" + statement.getPrefix().getWhitespace()))
+                        : statement)));
+    }
+}
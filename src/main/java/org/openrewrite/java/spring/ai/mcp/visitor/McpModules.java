@@ -0,0 +1,254 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.marker.SearchResult;
+import org.openrewrite.maven.tree.Dependency;
+import org.openrewrite.maven.tree.MavenResolutionResult;
+import org.openrewrite.maven.tree.ResolvedDependency;
+import org.openrewrite.maven.tree.ResolvedPom;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The MCP state of every module of the repository, collected while scanning the build files.
+ * A module is the directory of a Maven or Gradle build file, and every source file belongs to the module
+ * of its nearest build file. Source files outside any module belong to the repository root.
+ * A module is reactive when it is a WebFlux application, which needs the WebFlux MCP server starter and an ASYNC server.
+ * A module is a web module when it depends on Spring MVC or Spring WebFlux, the only modules which get an MCP server starter.
+ * Build files may be scanned concurrently.
+ */
+public class McpModules {
+    private static final Path ROOT = Paths.get("");
+    private static final String WEBFLUX_GA = "org.springframework:spring-webflux";
+    private static final String WEBMVC_GA = "org.springframework:spring-webmvc";
+    // The web stacks, and their Boot starters for the builds whose dependencies are declared but not resolved
+    private static final Set<String> WEB_GAS = Set.of(WEBFLUX_GA, WEBMVC_GA,
+            "org.springframework.boot:spring-boot-starter-web", "org.springframework.boot:spring-boot-starter-webflux");
+    // The servlet and the reactive MCP server starters
+    private static final Set<String> MCP_STARTER_GAS = Set.of("org.springframework.ai:spring-ai-starter-mcp-server-webmvc",
+            "org.springframework.ai:spring-ai-starter-mcp-server-webflux");
+
+    private final Map<Path, Module> modules = new ConcurrentHashMap<>();
+
+    /**
+     * Register the module of a build file, with its coordinates and dependencies read from the build markers.
+     *
+     * @param buildFile the Maven or Gradle build file
+     */
+    public void register(SourceFile buildFile) {
+        Module module = modules.computeIfAbsent(moduleRoot(buildFile.getSourcePath()), root -> new Module());
+        buildFile.getMarkers().findFirst(MavenResolutionResult.class).ifPresent(mrr ->
+                module.coordinates = mrr.getPom().getGroupId() + ":" + mrr.getPom().getArtifactId());
+        buildFile.getMarkers().findFirst(GradleProject.class).ifPresent(gradleProject ->
+                module.coordinates = gradleProject.getGroup() + ":" + gradleProject.getName());
+        module.dependencies.addAll(dependencies(buildFile));
+    }
+
+    /**
+     * Check whether the module of a build file is a WebFlux application: it depends on {@code spring-webflux}
+     * but not on {@code spring-webmvc}, which Spring Boot would prefer.
+     *
+     * @param buildFile the Maven or Gradle build file
+     * @return true if the MCP server of the module must be reactive
+     */
+    public static boolean isWebFlux(SourceFile buildFile) {
+        return isWebFlux(dependencies(buildFile));
+    }
+
+    /**
+     * Check whether the module of a build file is a web module, which depends on Spring MVC or Spring WebFlux, so
+     * {@code UpdateBuildFiles} adds an MCP server starter to it. Aggregator and library modules are not web modules.
+     *
+     * @param buildFile the Maven or Gradle build file
+     * @return true if the module serves HTTP requests
+     */
+    public static boolean isWebModule(SourceFile buildFile) {
+        return !Collections.disjoint(dependencies(buildFile), WEB_GAS);
+    }
+
+    /**
+     * Check whether a build file depends on an MCP server starter, declared or transitively.
+     *
+     * @param buildFile the Maven or Gradle build file
+     * @return true if the module already has an MCP server
+     */
+    public static boolean hasMcpStarter(SourceFile buildFile) {
+        return !Collections.disjoint(dependencies(buildFile), MCP_STARTER_GAS);
+    }
+
+    private static boolean isWebFlux(Set<String> dependencies) {
+        return dependencies.contains(WEBFLUX_GA) && !dependencies.contains(WEBMVC_GA);
+    }
+
+    /**
+     * Read the dependencies of a build file from its build markers: the declared ones, inherited ones included, and
+     * the resolved ones of every scope or configuration, transitive ones included.
+     *
+     * @param buildFile the Maven or Gradle build file
+     * @return the {@code group:artifact} coordinates of the dependencies
+     */
+    private static Set<String> dependencies(SourceFile buildFile) {
+        Set<String> dependencies = new HashSet<>();
+        buildFile.getMarkers().findFirst(MavenResolutionResult.class).ifPresent(mrr -> {
+            ResolvedPom pom = mrr.getPom();
+            for (Dependency dependency : pom.getRequestedDependencies()) {
+                dependencies.add(pom.getValue(dependency.getGroupId()) + ":" + pom.getValue(dependency.getArtifactId()));
+            }
+            for (List<ResolvedDependency> resolved : mrr.getDependencies().values()) {
+                for (ResolvedDependency dependency : resolved) {
+                    dependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                }
+            }
+        });
+        buildFile.getMarkers().findFirst(GradleProject.class).ifPresent(gradleProject -> {
+            for (GradleDependencyConfiguration configuration : gradleProject.getConfigurations()) {
+                for (Dependency dependency : configuration.getRequested()) {
+                    dependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                }
+                for (ResolvedDependency dependency : configuration.getResolved()) {
+                    dependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                }
+            }
+        });
+        return dependencies;
+    }
+
+    /**
+     * Mark the module of a build file as MCP enabled.
+     *
+     * @param buildFile the path of the Maven or Gradle build file
+     */
+    public void enable(Path buildFile) {
+        modules.computeIfAbsent(moduleRoot(buildFile), root -> new Module()).enabled = true;
+    }
+
+    /**
+     * Check whether the module of a build file is already known to be MCP enabled, so it need not be scanned again.
+     *
+     * @param buildFile the path of the Maven or Gradle build file
+     * @return true if the module is MCP enabled
+     */
+    public boolean isDecided(Path buildFile) {
+        return isEnabledModule(moduleRoot(buildFile));
+    }
+
+    /**
+     * Check whether the source file belongs to an MCP enabled module.
+     *
+     * @param sourcePath the path of any source file
+     * @return true if the module of the source file is MCP enabled
+     */
+    public boolean isEnabled(Path sourcePath) {
+        return isEnabledModule(moduleOf(sourcePath));
+    }
+
+    /**
+     * Check whether a module is MCP enabled.
+     *
+     * @param moduleRoot the module root, as returned by {@link #moduleOf(Path)}
+     * @return true if the module is MCP enabled
+     */
+    public boolean isEnabledModule(Path moduleRoot) {
+        Module module = modules.get(moduleRoot);
+        return module != null && module.enabled;
+    }
+
+    /**
+     * Check whether the source file belongs to a WebFlux module.
+     *
+     * @param sourcePath the path of any source file
+     * @return true if the module of the source file is a WebFlux application
+     */
+    public boolean isReactive(Path sourcePath) {
+        Module module = modules.get(moduleOf(sourcePath));
+        // Decided on the dependencies of all the build files of the module, not only the last one registered
+        return module != null && isWebFlux(module.dependencies);
+    }
+
+    /**
+     * Check whether any module of the repository is MCP enabled.
+     *
+     * @return true if at least one module is MCP enabled
+     */
+    public boolean anyEnabled() {
+        for (Module module : modules.values()) {
+            if (module.enabled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the module of a source file, which is the directory of its nearest build file.
+     *
+     * @param sourcePath the path of any source file
+     * @return the module root, the repository root if no build file encloses the source file
+     */
+    public Path moduleOf(Path sourcePath) {
+        for (Path dir = sourcePath.getParent(); dir != null; dir = dir.getParent()) {
+            if (modules.containsKey(dir)) {
+                return dir;
+            }
+        }
+        return ROOT;
+    }
+
+    /**
+     * Find the modules whose classes the module can reference: the module itself and the modules it depends on.
+     *
+     * @param moduleRoot the module root
+     * @return the roots of the visible modules
+     */
+    public Set<Path> visibleModules(Path moduleRoot) {
+        Set<Path> visible = new HashSet<>();
+        visible.add(moduleRoot);
+        Module module = modules.get(moduleRoot);
+        if (module != null && !module.dependencies.isEmpty()) {
+            modules.forEach((root, other) -> {
+                if (other.coordinates != null && module.dependencies.contains(other.coordinates)) {
+                    visible.add(root);
+                }
+            });
+        }
+        return visible;
+    }
+
+    /**
+     * Precondition which makes sure the source file belongs to an MCP enabled module.
+     *
+     * @return the precondition visitor
+     */
+    public TreeVisitor<?, ExecutionContext> enabledModuleChecker() {
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile sourceFile && isEnabled(sourceFile.getSourcePath())) {
+                    return SearchResult.found(tree);
+                }
+                return tree;
+            }
+        };
+    }
+
+    private static Path moduleRoot(Path buildFile) {
+        Path root = buildFile.getParent();
+        return root == null ? ROOT : root;
+    }
+
+    private static class Module {
+        volatile boolean enabled;
+        volatile @Nullable String coordinates;
+        final Set<String> dependencies = ConcurrentHashMap.newKeySet();
+    }
+}
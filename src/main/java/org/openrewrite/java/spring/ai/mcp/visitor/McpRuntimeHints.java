@@ -0,0 +1,344 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.*;
+import org.openrewrite.marker.Markers;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The runtime hints of the tools, so Spring AOT and GraalVM native images keep what the tool callbacks reach by
+ * reflection. The {@code @SpringBootApplication} class gets a nested registrar:
+ * <pre>
+ * &#64;ImportRuntimeHints(SpringMainApp.McpToolRuntimeHints.class)
+ * public class SpringMainApp {
+ *     static class McpToolRuntimeHints implements RuntimeHintsRegistrar { ... }
+ * }
+ * </pre>
+ * It registers the declared methods of the tool classes, which Spring AI introspects and invokes, and the data types
+ * reachable from the tool signatures, which are bound from and serialized to JSON. The result converters of the tools
+ * are registered with the data types, because Spring AI instantiates them reflectively.
+ * Types are referenced by name, so private nested types need no access. The types are recorded by
+ * {@link McpToolVisitor} while scanning, possibly concurrently.
+ */
+public class McpRuntimeHints {
+    public static final String REGISTRAR_CLASS = "McpToolRuntimeHints";
+
+    private static final String IMPORT_RUNTIME_HINTS_FQN = "org.springframework.context.annotation.ImportRuntimeHints";
+    private static final List<String> FRAMEWORK_PACKAGES = List.of("java.", "javax.", "jakarta.", "org.springframework.");
+
+    private static final List<String> REGISTRAR_IMPORTS = List.of(
+            "org.springframework.aot.hint.MemberCategory",
+            "org.springframework.aot.hint.RuntimeHints",
+            "org.springframework.aot.hint.RuntimeHintsRegistrar",
+            "org.springframework.aot.hint.TypeReference");
+
+    private static final String REGISTRAR_TEMPLATE = """
+            static class %s implements RuntimeHintsRegistrar {
+                private static final String[] TOOL_TYPES = %s;
+                private static final String[] DATA_TYPES = %s;
+
+                @Override
+                public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+                    for (String toolType : TOOL_TYPES) {
+                        hints.reflection().registerType(TypeReference.of(toolType), MemberCategory.INVOKE_DECLARED_METHODS);
+                    }
+                    for (String dataType : DATA_TYPES) {
+                        hints.reflection().registerType(TypeReference.of(dataType), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                                MemberCategory.INVOKE_DECLARED_METHODS, MemberCategory.DECLARED_FIELDS);
+                    }%s
+                }
+            }
+            """;
+
+    private static final String RESOURCE_HINT_TEMPLATE = """
+
+                    hints.resources().registerPattern("%s");""";
+
+    /**
+     * Stubs of the types used by the registrar, which the target project may not have on the parser classpath
+     */
+    private static final String[] STUBS = {
+            """
+            package org.springframework.aot.hint;
+            public enum MemberCategory { INVOKE_DECLARED_CONSTRUCTORS, INVOKE_DECLARED_METHODS, DECLARED_FIELDS }
+            """,
+            """
+            package org.springframework.aot.hint;
+            public final class TypeReference { public static TypeReference of(String className) { return null; } }
+            """,
+            """
+            package org.springframework.aot.hint;
+            public class ReflectionHints { public ReflectionHints registerType(TypeReference type, MemberCategory... memberCategories) { return this; } }
+            """,
+            """
+            package org.springframework.aot.hint;
+            public class ResourceHints { public ResourceHints registerPattern(String include) { return this; } }
+            """,
+            """
+            package org.springframework.aot.hint;
+            public class RuntimeHints {
+                public ReflectionHints reflection() { return null; }
+                public ResourceHints resources() { return null; }
+            }
+            """,
+            """
+            package org.springframework.aot.hint;
+            public interface RuntimeHintsRegistrar { void registerHints(RuntimeHints hints, ClassLoader classLoader); }
+            """
+    };
+
+    private final boolean enabled;
+
+    /**
+     * Data types reachable from the tool signatures, keyed by tool class
+     */
+    private final Map<String, List<ToolTypes>> dataTypes = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled whether the runtime hints are generated
+     */
+    public McpRuntimeHints(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record the data types of the tools of a class, and of the mapping methods which may become tools in this run.
+     *
+     * @param classDecl the class declaration
+     */
+    public void record(J.ClassDeclaration classDecl) {
+        if (!enabled || classDecl.getType() == null) {
+            return;
+        }
+        List<ToolTypes> classTypes = new ArrayList<>();
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.MethodDeclaration method && method.getMethodType() != null
+                    && (WebMappingDetector.hasToolAnnotation(method) || WebMappingDetector.isToolCandidate(classDecl, method))) {
+                Set<String> types = new TreeSet<>();
+                collect(method.getMethodType().getReturnType(), types);
+                method.getMethodType().getParameterTypes().forEach(type -> collect(type, types));
+                resultConverter(method).ifPresent(types::add);
+                classTypes.add(new ToolTypes(WebMappingDetector.hasToolAnnotation(method) ? null : McpToolFilter.endpoint(classDecl, method), types));
+            }
+        }
+        dataTypes.put(classDecl.getType().getFullyQualifiedName(), classTypes);
+    }
+
+    /**
+     * @param toolClasses the fully qualified names of the tool classes of an application
+     * @param selection   the mapping methods which become tools in this run
+     * @return the data types reachable from their tools, sorted
+     */
+    public SortedSet<String> dataTypes(Set<String> toolClasses, McpToolSelection selection) {
+        SortedSet<String> types = new TreeSet<>();
+        toolClasses.forEach(toolClass -> dataTypes.getOrDefault(toolClass, Collections.emptyList()).forEach(toolTypes -> {
+            if (toolTypes.getEndpoint() == null || selection.selects(toolTypes.getEndpoint())) {
+                types.addAll(toolTypes.getTypes());
+            }
+        }));
+        return types;
+    }
+
+    /**
+     * Add the registrar to the application class, or replace the one of an earlier run when the tools changed,
+     * and import it with {@code @ImportRuntimeHints}.
+     *
+     * @param classDecl   the class annotated with {@code @SpringBootApplication}
+     * @param cursor      the cursor of the class declaration
+     * @param toolClasses the fully qualified names of the tool classes injected into the provider bean
+     * @param selection   the mapping methods which become tools in this run
+     * @param resource    a resource the tools read at runtime, or {@code null}
+     * @param ctx         the execution context
+     * @return the class with the registrar
+     */
+    public J.ClassDeclaration addRegistrar(J.ClassDeclaration classDecl, Cursor cursor, SortedSet<String> toolClasses,
+                                           McpToolSelection selection, @Nullable String resource, ExecutionContext ctx) {
+        String registrar = String.format(REGISTRAR_TEMPLATE, REGISTRAR_CLASS, array(toolClasses), array(dataTypes(toolClasses, selection)),
+                resource == null ? "" : String.format(RESOURCE_HINT_TEMPLATE, resource));
+        J.ClassDeclaration existing = registrar(classDecl);
+        if (existing != null && normalize(existing.printTrimmed(new Cursor(cursor, classDecl.getBody()))).equals(normalize(registrar))) {
+            return importRegistrar(classDecl);
+        }
+        if (existing != null) {
+            classDecl = classDecl.withBody(classDecl.getBody().withStatements(
+                    ListUtils.map(classDecl.getBody().getStatements(), statement -> statement == existing ? null : statement)));
+        }
+        classDecl = McpClassMembers.append(classDecl, cursor, ctx, registrar, REGISTRAR_IMPORTS, STUBS);
+        return importRegistrar(classDecl);
+    }
+
+    /**
+     * @return the types which the registrar and its import refer to, to be imported
+     */
+    public static List<String> registrarImports() {
+        return ListUtils.concat(REGISTRAR_IMPORTS, IMPORT_RUNTIME_HINTS_FQN);
+    }
+
+    /**
+     * Append {@code @ImportRuntimeHints(App.McpToolRuntimeHints.class)} to the leading annotations of the application
+     * class. When the class imports other runtime hints already, the registrar is added to the value of that annotation,
+     * which becomes an array if it is not one yet.
+     */
+    private static J.ClassDeclaration importRegistrar(J.ClassDeclaration classDecl) {
+        if (classDecl.getType() == null) {
+            return classDecl;
+        }
+        J.Annotation existing = classDecl.getLeadingAnnotations().stream()
+                .filter(annotation -> TypeUtils.isOfClassType(annotation.getType(), IMPORT_RUNTIME_HINTS_FQN))
+                .findFirst()
+                .orElse(null);
+        if (existing == null) {
+            J.Annotation importRuntimeHints = new J.Annotation(Tree.randomId(), Space.format("\n" + classDecl.getPrefix().getIndent()), Markers.EMPTY,
+                    identifier(IMPORT_RUNTIME_HINTS_FQN.substring(IMPORT_RUNTIME_HINTS_FQN.lastIndexOf('.') + 1), JavaType.ShallowClass.build(IMPORT_RUNTIME_HINTS_FQN)),
+                    JContainer.build(Space.EMPTY, List.of(JRightPadded.<Expression>build(registrarLiteral(classDecl))), Markers.EMPTY));
+            return classDecl.withLeadingAnnotations(ListUtils.concat(classDecl.getLeadingAnnotations(), importRuntimeHints));
+        }
+        J.Annotation merged = withRegistrar(existing, classDecl);
+        return merged == existing ? classDecl : classDecl.withLeadingAnnotations(ListUtils.map(classDecl.getLeadingAnnotations(),
+                annotation -> annotation == existing ? merged : annotation));
+    }
+
+    /**
+     * Add the registrar to the value of an {@code @ImportRuntimeHints}, given as {@code X.class}, {@code {X.class}} or
+     * {@code value = ...}, unless it is there already.
+     */
+    private static J.Annotation withRegistrar(J.Annotation importRuntimeHints, J.ClassDeclaration application) {
+        List<Expression> arguments = importRuntimeHints.getArguments();
+        if (arguments == null || arguments.isEmpty() || arguments.get(0) instanceof J.Empty) {
+            return importRuntimeHints.withArguments(List.of(registrarLiteral(application)));
+        }
+        Expression argument = arguments.get(0);
+        if (argument instanceof J.Assignment assignment) {
+            Expression value = withRegistrar(assignment.getAssignment(), application);
+            return value == assignment.getAssignment() ? importRuntimeHints
+                    : importRuntimeHints.withArguments(List.of(assignment.withAssignment(value)));
+        }
+        Expression value = withRegistrar(argument, application);
+        return value == argument ? importRuntimeHints : importRuntimeHints.withArguments(List.of(value));
+    }
+
+    private static Expression withRegistrar(Expression value, J.ClassDeclaration application) {
+        List<Expression> registrars = value instanceof J.NewArray array && array.getInitializer() != null
+                ? array.getInitializer().stream().filter(element -> !(element instanceof J.Empty)).toList()
+                : List.of(value);
+        if (registrars.stream().anyMatch(McpRuntimeHints::isRegistrarLiteral)) {
+            return value;
+        }
+        List<Expression> elements = ListUtils.concat(registrars, registrarLiteral(application).withPrefix(Space.SINGLE_SPACE));
+        if (value instanceof J.NewArray array) {
+            return array.withInitializer(elements);
+        }
+        List<JRightPadded<Expression>> paddedElements = new ArrayList<>();
+        for (Expression element : elements) {
+            paddedElements.add(JRightPadded.build(paddedElements.isEmpty() ? element.withPrefix(Space.EMPTY) : element));
+        }
+        return new J.NewArray(Tree.randomId(), value.getPrefix(), Markers.EMPTY, null, Collections.emptyList(),
+                JContainer.build(Space.EMPTY, paddedElements, Markers.EMPTY), JavaType.ShallowClass.build("java.lang.Class[]"));
+    }
+
+    private static boolean isRegistrarLiteral(Expression expression) {
+        return expression instanceof J.FieldAccess classLiteral && "class".equals(classLiteral.getSimpleName())
+                && (classLiteral.getTarget() instanceof J.FieldAccess qualified && REGISTRAR_CLASS.equals(qualified.getSimpleName())
+                || classLiteral.getTarget() instanceof J.Identifier simple && REGISTRAR_CLASS.equals(simple.getSimpleName()));
+    }
+
+    /**
+     * Build {@code App.McpToolRuntimeHints.class}.
+     */
+    private static J.FieldAccess registrarLiteral(J.ClassDeclaration application) {
+        JavaType.FullyQualified applicationType = Objects.requireNonNull(application.getType());
+        JavaType.FullyQualified registrarType = JavaType.ShallowClass.build(applicationType.getFullyQualifiedName() + "$" + REGISTRAR_CLASS);
+        JavaType classType = JavaType.ShallowClass.build("java.lang.Class");
+        J.FieldAccess registrarName = new J.FieldAccess(Tree.randomId(), Space.EMPTY, Markers.EMPTY,
+                identifier(application.getSimpleName(), applicationType),
+                JLeftPadded.build(identifier(REGISTRAR_CLASS, registrarType)),
+                registrarType);
+        return new J.FieldAccess(Tree.randomId(), Space.EMPTY, Markers.EMPTY, registrarName,
+                JLeftPadded.build(identifier("class", classType)), classType);
+    }
+
+    private static J.Identifier identifier(String name, JavaType type) {
+        return new J.Identifier(Tree.randomId(), Space.EMPTY, Markers.EMPTY, Collections.emptyList(), name, type, null);
+    }
+
+    private static J.@Nullable ClassDeclaration registrar(J.ClassDeclaration classDecl) {
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.ClassDeclaration nested && REGISTRAR_CLASS.equals(nested.getSimpleName())) {
+                return nested;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collect the types of the project reachable from a type, through its type parameters, supertypes and fields.
+     */
+    private static void collect(@Nullable JavaType type, Set<String> types) {
+        if (type instanceof JavaType.Array array) {
+            collect(array.getElemType(), types);
+        } else if (type instanceof JavaType.GenericTypeVariable variable) {
+            variable.getBounds().forEach(bound -> collect(bound, types));
+        } else if (type instanceof JavaType.FullyQualified fq) {
+            if (type instanceof JavaType.Parameterized parameterized) {
+                parameterized.getTypeParameters().forEach(typeParameter -> collect(typeParameter, types));
+            }
+            String fqn = fq.getFullyQualifiedName();
+            if (FRAMEWORK_PACKAGES.stream().noneMatch(fqn::startsWith) && !(type instanceof JavaType.Unknown) && types.add(fqn)) {
+                collect(fq.getSupertype(), types);
+                for (JavaType.Variable field : fq.getMembers()) {
+                    if (!field.hasFlags(Flag.Static)) {
+                        collect(field.getType(), types);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Optional<String> resultConverter(J.MethodDeclaration method) {
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            if (TypeUtils.isOfClassType(annotation.getType(), WebMappingDetector.TOOL_ANNOTATION_FQN)
+                    && WebMappingDetector.attribute(annotation, "resultConverter") instanceof J.FieldAccess classLiteral) {
+                JavaType.FullyQualified converter = TypeUtils.asFullyQualified(classLiteral.getTarget().getType());
+                return Optional.ofNullable(converter).map(JavaType.FullyQualified::getFullyQualifiedName);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String array(Set<String> types) {
+        if (types.isEmpty()) {
+            return "{}";
+        }
+        return types.stream()
+                .map(type -> "\"" + type + "\"")
+                .collect(Collectors.joining(",\n            ", "{\n            ", "\n    }"));
+    }
+
+    private static String normalize(String source) {
+        return source.replaceAll("\\s+", "");
+    }
+
+    /**
+     * The data types of a tool method.
+     */
+    @Value
+    static class ToolTypes {
+        /**
+         * The endpoint of a mapping method which becomes a tool in this run if selected, null for a {@code @Tool} method
+         */
+        McpToolFilter.@Nullable Endpoint endpoint;
+        Set<String> types;
+    }
+}
@@ -0,0 +1,42 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.java.JavaTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The templates of a recipe run, kept in its execution context so later cycles and repeated classes reuse a template
+ * and its parser configuration instead of compiling the stubs again. A template built with
+ * {@code classpathFromResources(ctx, ...)} belongs to the run whose context loaded the type table, so templates
+ * are never shared between runs.
+ */
+public final class McpTemplates {
+    private static final String CACHE_MESSAGE = "org.openrewrite.java.spring.ai.mcp.TEMPLATES";
+    private static final int CACHE_SIZE = 64;
+
+    private McpTemplates() {
+    }
+
+    /**
+     * Get the template of a key, building it on first use in the run.
+     *
+     * @param ctx      the execution context of the run
+     * @param key      the key of the template, covering everything it is built from
+     * @param template builds the template
+     * @return the cached template
+     */
+    public static JavaTemplate get(ExecutionContext ctx, String key, Supplier<JavaTemplate> template) {
+        Map<String, JavaTemplate> cache = ctx.computeMessageIfAbsent(CACHE_MESSAGE,
+                message -> Collections.synchronizedMap(new LinkedHashMap<String, JavaTemplate>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, JavaTemplate> eldest) {
+                        return size() > CACHE_SIZE;
+                    }
+                }));
+        return cache.computeIfAbsent(key, k -> template.get());
+    }
+}
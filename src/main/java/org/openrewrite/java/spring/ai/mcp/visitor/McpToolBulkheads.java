@@ -0,0 +1,360 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.J;
+
+import java.util.List;
+
+/**
+ * The bulkheads of the tools, so a slow tool cannot take every request thread of the MCP server. The
+ * {@code @SpringBootApplication} class gets a nested bean post processor, found by component scanning:
+ * <pre>
+ * public class SpringMainApp {
+ *     &#64;Component
+ *     static class McpToolBulkheads implements BeanPostProcessor, DisposableBean { ... }
+ * }
+ * </pre>
+ * It wraps the tool callbacks of every {@code ToolCallbackProvider} bean. A call beyond the concurrency limit of its
+ * tool is rejected at once, and a call running longer than the timeout of its tool is interrupted. Both fail the tool
+ * call with a {@code ToolExecutionException}, which the MCP server returns as an error result.
+ * The calls run on their own threads, virtual ones when {@code spring.threads.virtual.enabled} is set, while the calling
+ * thread waits for them up to the timeout. The request attributes of the calling thread are propagated to them, and so
+ * are the security context and the observation scope, by the {@code TaskDecorator} bean of the application or else, with
+ * Micrometer context propagation on the classpath, by a {@code ContextPropagatingTaskDecorator}. A call which ignores its
+ * interrupt keeps its permit until it returns, so such calls still count against the concurrency limit.
+ * The limits are read per tool name from {@code spring.ai.mcp.server.tools.<name>.max-concurrent-calls} and
+ * {@code spring.ai.mcp.server.tools.<name>.timeout}, falling back to the {@code default} entries which
+ * {@code AddMcpServerConfigRecipe} writes.
+ */
+public class McpToolBulkheads {
+    public static final String BULKHEADS_CLASS = "McpToolBulkheads";
+    public static final String PROPERTY_PREFIX = "spring.ai.mcp.server.tools.";
+    public static final String DEFAULT_TOOL = "default";
+    public static final String MAX_CONCURRENT_CALLS_PROPERTY = "max-concurrent-calls";
+    public static final String TIMEOUT_PROPERTY = "timeout";
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 10;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 30;
+
+    private static final List<String> BULKHEADS_IMPORTS = List.of(
+            "java.time.Duration",
+            "java.util.concurrent.Callable",
+            "java.util.concurrent.ExecutionException",
+            "java.util.concurrent.Future",
+            "java.util.concurrent.RejectedExecutionException",
+            "java.util.concurrent.Semaphore",
+            "java.util.concurrent.TimeUnit",
+            "java.util.concurrent.TimeoutException",
+            "java.util.concurrent.atomic.AtomicBoolean",
+            "org.springframework.ai.chat.model.ToolContext",
+            "org.springframework.ai.tool.ToolCallback",
+            "org.springframework.ai.tool.ToolCallbackProvider",
+            "org.springframework.ai.tool.definition.ToolDefinition",
+            "org.springframework.ai.tool.execution.ToolExecutionException",
+            "org.springframework.ai.tool.metadata.ToolMetadata",
+            "org.springframework.beans.factory.DisposableBean",
+            "org.springframework.beans.factory.ObjectProvider",
+            "org.springframework.beans.factory.config.BeanPostProcessor",
+            "org.springframework.core.env.Environment",
+            "org.springframework.core.task.AsyncTaskExecutor",
+            "org.springframework.core.task.SimpleAsyncTaskExecutor",
+            "org.springframework.core.task.TaskDecorator",
+            "org.springframework.core.task.support.ContextPropagatingTaskDecorator",
+            "org.springframework.stereotype.Component",
+            "org.springframework.util.ClassUtils",
+            "org.springframework.web.context.request.RequestAttributes",
+            "org.springframework.web.context.request.RequestContextHolder");
+
+    private static final String BULKHEADS_TEMPLATE = """
+            @Component
+            static class %1$s implements BeanPostProcessor, DisposableBean {
+                private static final String PROPERTY_PREFIX = "%2$s";
+                private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mcp-tool-");
+                private final Environment environment;
+
+                %1$s(Environment environment, ObjectProvider<TaskDecorator> taskDecorator) {
+                    this.environment = environment;
+                    // Tool calls run on virtual threads when the server does, with the context of the calling thread
+                    executor.setVirtualThreads(environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false));
+                    TaskDecorator contextDecorator = taskDecorator.getIfUnique(() ->
+                            ClassUtils.isPresent("io.micrometer.context.ContextSnapshotFactory", %1$s.class.getClassLoader())
+                                    ? new ContextPropagatingTaskDecorator()
+                                    : runnable -> runnable);
+                    executor.setTaskDecorator(runnable -> {
+                        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+                        Runnable decorated = contextDecorator.decorate(runnable);
+                        return () -> {
+                            RequestContextHolder.setRequestAttributes(requestAttributes);
+                            try {
+                                decorated.run();
+                            } finally {
+                                RequestContextHolder.resetRequestAttributes();
+                            }
+                        };
+                    });
+                }
+
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof ToolCallbackProvider provider)) {
+                        return bean;
+                    }
+                    ToolCallback[] toolCallbacks = provider.getToolCallbacks();
+                    ToolCallback[] bulkheads = new ToolCallback[toolCallbacks.length];
+                    for (int i = 0; i < toolCallbacks.length; i++) {
+                        String name = toolCallbacks[i].getToolDefinition().name();
+                        bulkheads[i] = new Bulkhead(toolCallbacks[i], executor,
+                                new Semaphore(property(name, "%3$s", Integer.class, %4$d)),
+                                property(name, "%5$s", Duration.class, Duration.ofSeconds(%6$d)));
+                    }
+                    return ToolCallbackProvider.from(bulkheads);
+                }
+
+                private <T> T property(String tool, String name, Class<T> type, T defaultValue) {
+                    T value = environment.getProperty(PROPERTY_PREFIX + tool + "." + name, type);
+                    return value != null ? value : environment.getProperty(PROPERTY_PREFIX + "%7$s." + name, type, defaultValue);
+                }
+
+                @Override
+                public void destroy() {
+                    executor.close();
+                }
+
+                private static final class Bulkhead implements ToolCallback {
+                    private final ToolCallback delegate;
+                    private final AsyncTaskExecutor executor;
+                    private final Semaphore permits;
+                    private final Duration timeout;
+
+                    Bulkhead(ToolCallback delegate, AsyncTaskExecutor executor, Semaphore permits, Duration timeout) {
+                        this.delegate = delegate;
+                        this.executor = executor;
+                        this.permits = permits;
+                        this.timeout = timeout;
+                    }
+
+                    @Override
+                    public ToolDefinition getToolDefinition() {
+                        return delegate.getToolDefinition();
+                    }
+
+                    @Override
+                    public ToolMetadata getToolMetadata() {
+                        return delegate.getToolMetadata();
+                    }
+
+                    @Override
+                    public String call(String toolInput) {
+                        return call(() -> delegate.call(toolInput));
+                    }
+
+                    @Override
+                    public String call(String toolInput, ToolContext toolContext) {
+                        return call(() -> delegate.call(toolInput, toolContext));
+                    }
+
+                    private String call(Callable<String> toolCall) {
+                        if (!permits.tryAcquire()) {
+                            throw new ToolExecutionException(getToolDefinition(), new RejectedExecutionException(
+                                    "Tool " + getToolDefinition().name() + " has reached its limit of concurrent calls"));
+                        }
+                        // The call releases the permit once it ran, the caller when it gave up before the call started.
+                        // A call which ignores the interrupt after its timeout keeps its permit until it returns.
+                        AtomicBoolean started = new AtomicBoolean();
+                        Future<String> result;
+                        try {
+                            result = executor.submit(() -> {
+                                if (!started.compareAndSet(false, true)) {
+                                    return null;
+                                }
+                                try {
+                                    return toolCall.call();
+                                } finally {
+                                    permits.release();
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            permits.release();
+                            throw new ToolExecutionException(getToolDefinition(), e);
+                        }
+                        try {
+                            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                        } catch (ExecutionException e) {
+                            if (e.getCause() instanceof RuntimeException runtimeException) {
+                                throw runtimeException;
+                            }
+                            throw new ToolExecutionException(getToolDefinition(), e.getCause());
+                        } catch (TimeoutException | InterruptedException e) {
+                            if (e instanceof InterruptedException) {
+                                Thread.currentThread().interrupt();
+                            }
+                            result.cancel(true);
+                            if (started.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                            throw new ToolExecutionException(getToolDefinition(), new TimeoutException(
+                                    "Tool " + getToolDefinition().name() + " did not complete within " + timeout));
+                        }
+                    }
+                }
+            }
+            """;
+
+    /**
+     * Stubs of the Spring AI types wrapped by the bulkheads, shared with {@link McpToolObservations}
+     */
+    static final String[] TOOL_CALLBACK_STUBS = {
+            """
+            package org.springframework.ai.chat.model;
+            public class ToolContext {}
+            """,
+            """
+            package org.springframework.ai.tool.definition;
+            public interface ToolDefinition { String name(); }
+            """,
+            """
+            package org.springframework.ai.tool.metadata;
+            public interface ToolMetadata {}
+            """,
+            """
+            package org.springframework.ai.tool;
+            import org.springframework.ai.chat.model.ToolContext;
+            import org.springframework.ai.tool.definition.ToolDefinition;
+            import org.springframework.ai.tool.metadata.ToolMetadata;
+            public interface ToolCallback {
+                ToolDefinition getToolDefinition();
+                default ToolMetadata getToolMetadata() { return null; }
+                String call(String toolInput);
+                default String call(String toolInput, ToolContext toolContext) { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool;
+            public interface ToolCallbackProvider {
+                ToolCallback[] getToolCallbacks();
+                static ToolCallbackProvider from(ToolCallback... toolCallbacks) { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool.execution;
+            import org.springframework.ai.tool.definition.ToolDefinition;
+            public class ToolExecutionException extends RuntimeException {
+                public ToolExecutionException(ToolDefinition toolDefinition, Throwable cause) {}
+            }
+            """,
+            """
+            package org.springframework.beans.factory.config;
+            public interface BeanPostProcessor {
+                default Object postProcessAfterInitialization(Object bean, String beanName) { return bean; }
+            }
+            """,
+            """
+            package org.springframework.stereotype;
+            public @interface Component {}
+            """
+    };
+
+    /**
+     * Stubs of the other types used by the bulkheads, which the target project may not have on the parser classpath
+     */
+    private static final String[] STUBS = {
+            """
+            package org.springframework.beans.factory;
+            public interface DisposableBean { void destroy() throws Exception; }
+            """,
+            """
+            package org.springframework.beans.factory;
+            import java.util.function.Supplier;
+            public interface ObjectProvider<T> { T getIfUnique(Supplier<T> defaultSupplier); }
+            """,
+            """
+            package org.springframework.core.task;
+            public interface TaskDecorator { Runnable decorate(Runnable runnable); }
+            """,
+            """
+            package org.springframework.core.task;
+            import java.util.concurrent.Callable;
+            import java.util.concurrent.Future;
+            public interface AsyncTaskExecutor { <T> Future<T> submit(Callable<T> task); }
+            """,
+            """
+            package org.springframework.core.task;
+            import java.util.concurrent.Callable;
+            import java.util.concurrent.Future;
+            public class SimpleAsyncTaskExecutor implements AsyncTaskExecutor, AutoCloseable {
+                public SimpleAsyncTaskExecutor(String threadNamePrefix) {}
+                public void setVirtualThreads(boolean virtual) {}
+                public void setTaskDecorator(TaskDecorator taskDecorator) {}
+                public <T> Future<T> submit(Callable<T> task) { return null; }
+                public void close() {}
+            }
+            """,
+            """
+            package org.springframework.core.task.support;
+            import org.springframework.core.task.TaskDecorator;
+            public class ContextPropagatingTaskDecorator implements TaskDecorator {
+                public Runnable decorate(Runnable runnable) { return runnable; }
+            }
+            """,
+            """
+            package org.springframework.util;
+            public abstract class ClassUtils { public static boolean isPresent(String className, ClassLoader classLoader) { return false; } }
+            """,
+            """
+            package org.springframework.web.context.request;
+            public interface RequestAttributes {}
+            """,
+            """
+            package org.springframework.web.context.request;
+            public abstract class RequestContextHolder {
+                public static RequestAttributes getRequestAttributes() { return null; }
+                public static void setRequestAttributes(RequestAttributes attributes) {}
+                public static void resetRequestAttributes() {}
+            }
+            """,
+            """
+            package org.springframework.core.env;
+            public interface Environment {
+                <T> T getProperty(String key, Class<T> targetType);
+                <T> T getProperty(String key, Class<T> targetType, T defaultValue);
+            }
+            """
+    };
+
+    private McpToolBulkheads() {
+    }
+
+    /**
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @return true if the class has the bulkheads already
+     */
+    public static boolean hasBulkheads(J.ClassDeclaration classDecl) {
+        return classDecl.getBody().getStatements().stream()
+                .anyMatch(statement -> statement instanceof J.ClassDeclaration nested && BULKHEADS_CLASS.equals(nested.getSimpleName()));
+    }
+
+    /**
+     * Add the bulkheads to the application class, unless it has them already.
+     *
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @param cursor    the cursor of the class declaration
+     * @param ctx       the execution context
+     * @return the class with the bulkheads
+     */
+    public static J.ClassDeclaration addBulkheads(J.ClassDeclaration classDecl, Cursor cursor, ExecutionContext ctx) {
+        if (hasBulkheads(classDecl)) {
+            return classDecl;
+        }
+        return McpClassMembers.append(classDecl, cursor, ctx, String.format(BULKHEADS_TEMPLATE, BULKHEADS_CLASS, PROPERTY_PREFIX,
+                        MAX_CONCURRENT_CALLS_PROPERTY, DEFAULT_MAX_CONCURRENT_CALLS, TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_SECONDS, DEFAULT_TOOL),
+                BULKHEADS_IMPORTS, ListUtils.concatAll(List.of(TOOL_CALLBACK_STUBS), List.of(STUBS)).toArray(new String[0]));
+    }
+
+    /**
+     * @return the types which the bulkheads refer to, to be imported
+     */
+    public static List<String> bulkheadsImports() {
+        return BULKHEADS_IMPORTS;
+    }
+}
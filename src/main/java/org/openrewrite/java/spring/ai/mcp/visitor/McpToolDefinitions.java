@@ -0,0 +1,873 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Value;
+import lombok.With;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.Expression;
+import org.openrewrite.java.tree.Flag;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.Javadoc;
+import org.openrewrite.java.tree.Statement;
+import org.openrewrite.java.tree.TypeUtils;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tool definitions generated at migration time, so the provider bean loads them instead of deriving the name,
+ * description and input schema of every tool by reflection on startup. They are stored per application module in
+ * {@value #RESOURCE}:
+ * <pre>
+ * {
+ *   "$defs" : { "com.example.User" : { "type" : "object", "properties" : { ... } } },
+ *   "tools" : [ {
+ *     "class" : "com.example.UserController",
+ *     "method" : "createUser",
+ *     "parameterTypes" : [ "com.example.User" ],
+ *     "name" : "createUser",
+ *     "description" : "Create a user",
+ *     "inputSchema" : { "type" : "object", "properties" : { "user" : { "$ref" : "#/$defs/com.example.User" } }, ... },
+ *     "defs" : [ "com.example.User" ]
+ *   } ]
+ * }
+ * </pre>
+ * The schema of a parameter type declared in the project is written once under {@code $defs}, however many tools
+ * refer to it, and each tool lists the definitions its input schema needs. Spring AI's schema generator needs the
+ * compiled classes, so the schemas are built from the types at migration time following its rules, and the loader
+ * derives the definition of a tool by reflection, like Spring AI does, when its entry is missing or no longer matches
+ * the {@code @Tool} method. The definitions are recorded by {@link McpToolVisitor} while scanning, possibly concurrently.
+ * A mapping method which gets a tool facade from {@link McpToolPagination} in this run is defined by its facade, the
+ * {@code @Tool} method which the loader finds, with the {@code page} and {@code size} parameters.
+ */
+public class McpToolDefinitions {
+    public static final String RESOURCE = "META-INF/mcp/tool-definitions.json";
+
+    private static final String RESOURCE_DIRECTORY = "src/main/resources";
+    private static final String SCHEMA_VERSION = "https://json-schema.org/draft/2020-12/schema";
+    private static final String DEFS_REF_PREFIX = "#/$defs/";
+    private static final String TOOL_PARAM_FQN = WebMappingDetector.TOOL_ANNOTATION_FQN + "Param";
+    private static final String TOOL_CONTEXT_FQN = "org.springframework.ai.chat.model.ToolContext";
+    private static final String JSON_PROPERTY_FQN = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String JSON_PROPERTY_DESCRIPTION_FQN = "com.fasterxml.jackson.annotation.JsonPropertyDescription";
+    private static final String JSON_IGNORE_FQN = "com.fasterxml.jackson.annotation.JsonIgnore";
+    private static final String SCHEMA_FQN = "io.swagger.v3.oas.annotations.media.Schema";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    public static final String LOADER_METHOD = "loadToolCallbacks";
+
+    private static final List<String> LOADER_IMPORTS = List.of(
+            "com.fasterxml.jackson.databind.JsonNode",
+            "com.fasterxml.jackson.databind.ObjectMapper",
+            "com.fasterxml.jackson.databind.node.ObjectNode",
+            "org.springframework.ai.tool.ToolCallback",
+            "org.springframework.ai.tool.annotation.Tool",
+            "org.springframework.ai.tool.definition.ToolDefinition",
+            "org.springframework.ai.tool.metadata.ToolMetadata",
+            "org.springframework.ai.tool.method.MethodToolCallback",
+            "org.springframework.ai.tool.support.ToolDefinitions",
+            "org.springframework.ai.tool.support.ToolUtils",
+            "org.springframework.core.io.ClassPathResource",
+            "org.springframework.util.ClassUtils",
+            "org.springframework.util.ReflectionUtils",
+            "java.io.IOException",
+            "java.io.InputStream",
+            "java.lang.reflect.Method",
+            "java.util.ArrayList",
+            "java.util.HashMap",
+            "java.util.List",
+            "java.util.Map");
+
+    private static final String LOADER_TEMPLATE = """
+            private static List<ToolCallback> %1$s(Object... toolObjects) {
+                Map<String, JsonNode> definedTools = new HashMap<>();
+                JsonNode defs = null;
+                ClassPathResource resource = new ClassPathResource("%2$s");
+                if (resource.exists()) {
+                    try (InputStream input = resource.getInputStream()) {
+                        JsonNode definitions = new ObjectMapper().readTree(input);
+                        defs = definitions.get("$defs");
+                        for (JsonNode tool : definitions.get("tools")) {
+                            List<String> parameterTypes = new ArrayList<>();
+                            for (JsonNode parameterType : tool.get("parameterTypes")) {
+                                parameterTypes.add(parameterType.asText());
+                            }
+                            definedTools.put(tool.get("class").asText() + "#" + tool.get("method").asText() + "(" + String.join(",", parameterTypes) + ")", tool);
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Unable to load the MCP tool definitions from %2$s", e);
+                    }
+                }
+                List<ToolCallback> toolCallbacks = new ArrayList<>();
+                Map<String, Class<?>> toolSources = new HashMap<>();
+                for (Object toolObject : toolObjects) {
+                    Class<?> toolClass = ClassUtils.getUserClass(toolObject);
+                    for (Method method : ReflectionUtils.getDeclaredMethods(toolClass)) {
+                        if (method.isBridge() || !method.isAnnotationPresent(Tool.class)) {
+                            continue;
+                        }
+                        List<String> parameterTypes = new ArrayList<>();
+                        for (Class<?> parameterType : method.getParameterTypes()) {
+                            parameterTypes.add(parameterType.getTypeName());
+                        }
+                        // A tool changed since the migration, or added after it, is defined by reflection like Spring AI does
+                        JsonNode tool = definedTools.get(toolClass.getName() + "#" + method.getName() + "(" + String.join(",", parameterTypes) + ")");
+                        ToolDefinition toolDefinition;
+                        if (tool != null && tool.get("name").asText().equals(ToolUtils.getToolName(method))
+                                && tool.get("description").asText().equals(ToolUtils.getToolDescription(method))) {
+                            ObjectNode inputSchema = tool.get("inputSchema").deepCopy();
+                            if (tool.has("defs") && defs != null) {
+                                ObjectNode toolDefs = inputSchema.putObject("$defs");
+                                for (JsonNode def : tool.get("defs")) {
+                                    toolDefs.set(def.asText(), defs.get(def.asText()));
+                                }
+                            }
+                            toolDefinition = ToolDefinition.builder()
+                                    .name(tool.get("name").asText())
+                                    .description(tool.get("description").asText())
+                                    .inputSchema(inputSchema.toString())
+                                    .build();
+                        } else {
+                            toolDefinition = ToolDefinitions.from(method);
+                        }
+                        // Same check as MethodToolCallbackProvider, which the tools loaded here bypass
+                        Class<?> toolSource = toolSources.putIfAbsent(toolDefinition.name(), toolClass);
+                        if (toolSource != null) {
+                            throw new IllegalStateException("Multiple tools with the same name (" + toolDefinition.name() + ") found in sources: "
+                                    + toolSource.getName() + ", " + toolClass.getName());
+                        }
+                        toolCallbacks.add(MethodToolCallback.builder()
+                                .toolDefinition(toolDefinition)
+                                .toolMetadata(ToolMetadata.from(method))
+                                .toolMethod(method)
+                                .toolObject(toolObject)
+                                .toolCallResultConverter(ToolUtils.getToolCallResultConverter(method))
+                                .build());
+                    }
+                }
+                return toolCallbacks;
+            }
+            """.formatted(LOADER_METHOD, RESOURCE);
+
+    /**
+     * Stubs of the types used by the loader, which the target project may not have on the parser classpath
+     */
+    private static final String[] LOADER_STUBS = {
+            """
+            package com.fasterxml.jackson.databind;
+            public abstract class JsonNode implements Iterable<JsonNode> {
+                public abstract JsonNode get(String fieldName);
+                public abstract boolean has(String fieldName);
+                public abstract String asText();
+                public abstract <T extends JsonNode> T deepCopy();
+            }
+            """,
+            """
+            package com.fasterxml.jackson.databind.node;
+            public abstract class ObjectNode extends com.fasterxml.jackson.databind.JsonNode {
+                public abstract ObjectNode putObject(String fieldName);
+                public abstract <T extends com.fasterxml.jackson.databind.JsonNode> T set(String fieldName, com.fasterxml.jackson.databind.JsonNode value);
+            }
+            """,
+            """
+            package com.fasterxml.jackson.databind;
+            public class ObjectMapper {
+                public JsonNode readTree(java.io.InputStream in) throws java.io.IOException { return null; }
+            }
+            """,
+            """
+            package org.springframework.core.io;
+            public class ClassPathResource {
+                public ClassPathResource(String path) {}
+                public boolean exists() { return false; }
+                public java.io.InputStream getInputStream() throws java.io.IOException { return null; }
+            }
+            """,
+            """
+            package org.springframework.util;
+            public abstract class ClassUtils {
+                public static Class<?> getUserClass(Object instance) { return null; }
+            }
+            """,
+            """
+            package org.springframework.util;
+            public abstract class ReflectionUtils {
+                public static java.lang.reflect.Method[] getDeclaredMethods(Class<?> clazz) { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool;
+            public interface ToolCallback {}
+            """,
+            """
+            package org.springframework.ai.tool.annotation;
+            @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+            public @interface Tool { String name() default ""; String description() default ""; }
+            """,
+            """
+            package org.springframework.ai.tool.execution;
+            public interface ToolCallResultConverter {}
+            """,
+            """
+            package org.springframework.ai.tool.definition;
+            public interface ToolDefinition {
+                String name();
+                static DefaultToolDefinition.Builder builder() { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool.definition;
+            public record DefaultToolDefinition(String name, String description, String inputSchema) implements ToolDefinition {
+                public static final class Builder {
+                    public Builder name(String name) { return this; }
+                    public Builder description(String description) { return this; }
+                    public Builder inputSchema(String inputSchema) { return this; }
+                    public ToolDefinition build() { return null; }
+                }
+            }
+            """,
+            """
+            package org.springframework.ai.tool.metadata;
+            public interface ToolMetadata {
+                static ToolMetadata from(java.lang.reflect.Method method) { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool.support;
+            public final class ToolUtils {
+                public static String getToolName(java.lang.reflect.Method method) { return null; }
+                public static String getToolDescription(java.lang.reflect.Method method) { return null; }
+                public static org.springframework.ai.tool.execution.ToolCallResultConverter getToolCallResultConverter(java.lang.reflect.Method method) { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool.support;
+            public final class ToolDefinitions {
+                public static org.springframework.ai.tool.definition.ToolDefinition from(java.lang.reflect.Method method) { return null; }
+            }
+            """,
+            """
+            package org.springframework.ai.tool.method;
+            public final class MethodToolCallback implements org.springframework.ai.tool.ToolCallback {
+                public static Builder builder() { return null; }
+                public static final class Builder {
+                    public Builder toolDefinition(org.springframework.ai.tool.definition.ToolDefinition toolDefinition) { return this; }
+                    public Builder toolMetadata(org.springframework.ai.tool.metadata.ToolMetadata toolMetadata) { return this; }
+                    public Builder toolMethod(java.lang.reflect.Method toolMethod) { return this; }
+                    public Builder toolObject(Object toolObject) { return this; }
+                    public Builder toolCallResultConverter(org.springframework.ai.tool.execution.ToolCallResultConverter converter) { return this; }
+                    public MethodToolCallback build() { return null; }
+                }
+            }
+            """
+    };
+
+    private static final Set<String> STRING_TYPES = Set.of("java.lang.String", "java.lang.Character",
+            "java.lang.CharSequence", "java.util.UUID", "java.net.URI", "java.net.URL", "java.util.Date", "java.util.Locale");
+    private static final Set<String> INTEGER_TYPES = Set.of("java.lang.Integer", "java.lang.Long", "java.lang.Short",
+            "java.lang.Byte", "java.math.BigInteger");
+    private static final Set<String> NUMBER_TYPES = Set.of("java.lang.Double", "java.lang.Float", "java.math.BigDecimal",
+            "java.lang.Number");
+
+    private final boolean enabled;
+
+    /**
+     * Tool definitions keyed by tool class, in declaration order
+     */
+    private final Map<String, List<Tool>> tools = new ConcurrentHashMap<>();
+
+    /**
+     * Schemas of the types declared in the project, shared by the tools which refer to them
+     */
+    private final Map<String, Definition> definitions = new ConcurrentHashMap<>();
+
+    private final Set<Path> applications = ConcurrentHashMap.newKeySet();
+
+    private final Set<Path> present = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param enabled whether the definitions are generated
+     */
+    public McpToolDefinitions(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param moduleRoot the root of the module declaring the {@code @SpringBootApplication} class
+     * @return the path of the definitions of the module
+     */
+    public static Path resourcePath(Path moduleRoot) {
+        return moduleRoot.resolve(RESOURCE_DIRECTORY).resolve(RESOURCE);
+    }
+
+    public boolean isPresent(Path path) {
+        return present.contains(path);
+    }
+
+    /**
+     * @param sourcePath the source file declaring a {@code @SpringBootApplication} class
+     */
+    public void recordApplication(Path sourcePath) {
+        if (enabled) {
+            applications.add(sourcePath);
+        }
+    }
+
+    /**
+     * @return the source files declaring a {@code @SpringBootApplication} class
+     */
+    public Set<Path> getApplications() {
+        return applications;
+    }
+
+    /**
+     * Get a scanner noting the definitions left by an earlier run, which ignores every other source file.
+     *
+     * @return the scanner
+     */
+    public TreeVisitor<Tree, ExecutionContext> reader() {
+        return new TreeVisitor<>() {
+            @Override
+            public boolean isAcceptable(@NotNull SourceFile sourceFile, @NotNull ExecutionContext ctx) {
+                return enabled && sourceFile.getSourcePath().endsWith(Path.of(RESOURCE_DIRECTORY, RESOURCE));
+            }
+
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile sourceFile) {
+                    present.add(sourceFile.getSourcePath());
+                }
+                return tree;
+            }
+        };
+    }
+
+    /**
+     * Record the definitions of the tools of a class, and of the mapping methods which may become tools in this run.
+     *
+     * @param classDecl the class declaration
+     */
+    public void record(J.ClassDeclaration classDecl) {
+        if (!enabled || classDecl.getType() == null) {
+            return;
+        }
+        String className = classDecl.getType().getFullyQualifiedName();
+        List<Tool> classTools = new ArrayList<>();
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.MethodDeclaration method && method.getMethodType() != null) {
+                J.Annotation tool = toolAnnotation(method);
+                if (tool != null) {
+                    classTools.add(tool(className, method, tool, null, null));
+                } else if (WebMappingDetector.isToolCandidate(classDecl, method)) {
+                    McpToolPagination.Kind pageKind = McpToolPagination.kind(method);
+                    // Named and described like the mapping method, but loaded from the facade
+                    Tool facade = pageKind == null ? null : tool(className, method, null, pageKind, null)
+                            .withMethod(McpToolPagination.facadeName(classDecl, method.getSimpleName()));
+                    classTools.add(tool(className, method, null, null, McpToolFilter.endpoint(classDecl, method)).withFacade(facade));
+                }
+            }
+        }
+        tools.put(className, classTools);
+    }
+
+    /**
+     * Print the definitions of the tools of some classes.
+     *
+     * @param toolClasses the fully qualified names of the tool classes of an application
+     * @param selection   the mapping methods which become tools in this run
+     * @return the content of the definitions file
+     */
+    public String print(Set<String> toolClasses, McpToolSelection selection) {
+        ObjectNode root = NODES.objectNode();
+        ObjectNode defs = root.putObject("$defs");
+        ArrayNode toolNodes = root.putArray("tools");
+        SortedSet<String> usedDefinitions = new TreeSet<>();
+        Integer pageSize = selection.pageSize();
+        for (String toolClass : new TreeSet<>(toolClasses)) {
+            for (Tool tool : tools.getOrDefault(toolClass, Collections.emptyList())) {
+                if (tool.getEndpoint() != null && !selection.selects(tool.getEndpoint())) {
+                    continue;
+                }
+                JsonNode inputSchema = tool.getInputSchema();
+                if (tool.getFacade() != null && pageSize != null) {
+                    // The tool is the facade, whose size parameter documents the page size of the run
+                    tool = tool.getFacade();
+                    ObjectNode facadeSchema = tool.getInputSchema().deepCopy();
+                    ((ObjectNode) facadeSchema.get("properties").get(McpToolPagination.SIZE_PARAMETER))
+                            .put("description", McpToolPagination.sizeDescription(pageSize));
+                    inputSchema = facadeSchema;
+                }
+                SortedSet<String> toolDefinitions = closure(tool.getRefs());
+                usedDefinitions.addAll(toolDefinitions);
+                ObjectNode toolNode = toolNodes.addObject()
+                        .put("class", tool.getClassName())
+                        .put("method", tool.getMethod());
+                tool.getParameterTypes().forEach(toolNode.putArray("parameterTypes")::add);
+                toolNode.put("name", tool.getName()).put("description", tool.getDescription());
+                toolNode.set("inputSchema", inputSchema);
+                if (!toolDefinitions.isEmpty()) {
+                    toolDefinitions.forEach(toolNode.putArray("defs")::add);
+                }
+            }
+        }
+        usedDefinitions.forEach(name -> defs.set(name, definitions.get(name).getSchema()));
+        try {
+            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to print the MCP tool definitions", e);
+        }
+    }
+
+    /**
+     * Create the definitions file of an application module, for the first run.
+     *
+     * @param path        the path of the definitions file
+     * @param toolClasses the fully qualified names of the tool classes of the application
+     * @param selection   the mapping methods which become tools in this run
+     * @return the definitions file
+     */
+    public PlainText generate(Path path, Set<String> toolClasses, McpToolSelection selection) {
+        return PlainText.builder()
+                .id(Tree.randomId())
+                .sourcePath(path)
+                .text(print(toolClasses, selection))
+                .build();
+    }
+
+    /**
+     * Replace the content of the definitions file, keeping it untouched when nothing changed.
+     *
+     * @param file        the definitions file of an earlier run
+     * @param toolClasses the fully qualified names of the tool classes of the application
+     * @param selection   the mapping methods which become tools in this run
+     * @return the updated definitions file
+     */
+    public SourceFile update(SourceFile file, Set<String> toolClasses, McpToolSelection selection) {
+        String content = print(toolClasses, selection);
+        if (content.strip().equals(file.printAll().strip())) {
+            return file;
+        }
+        return PlainText.builder()
+                .id(file.getId())
+                .sourcePath(file.getSourcePath())
+                .markers(file.getMarkers())
+                .text(content)
+                .build();
+    }
+
+    /**
+     * The method loading the tool callbacks from the definitions, templated together with the provider bean which
+     * calls it, because a template compiled in the context of the class does not see its other methods.
+     *
+     * @return the template of the loader
+     */
+    public static String loaderTemplate() {
+        return LOADER_TEMPLATE;
+    }
+
+    /**
+     * @return the types which the loader refers to, to be imported
+     */
+    public static List<String> loaderImports() {
+        return LOADER_IMPORTS;
+    }
+
+    /**
+     * @return the stubs of the types which the loader refers to, which the target project may not have on the parser classpath
+     */
+    public static String[] loaderStubs() {
+        return LOADER_STUBS.clone();
+    }
+
+    /**
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @return whether the class declares the method loading the tool callbacks
+     */
+    public static boolean hasLoader(J.ClassDeclaration classDecl) {
+        return classDecl.getBody().getStatements().stream().anyMatch(McpToolDefinitions::isLoader);
+    }
+
+    /**
+     * Remove the loader of an earlier run, before the provider bean and its loader are templated again.
+     *
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @return the class without the loader
+     */
+    public static J.ClassDeclaration withoutLoader(J.ClassDeclaration classDecl) {
+        return classDecl.withBody(classDecl.getBody().withStatements(
+                ListUtils.map(classDecl.getBody().getStatements(), statement -> isLoader(statement) ? null : statement)));
+    }
+
+    private static boolean isLoader(Statement statement) {
+        return statement instanceof J.MethodDeclaration method && LOADER_METHOD.equals(method.getSimpleName());
+    }
+
+    private SortedSet<String> closure(Set<String> refs) {
+        SortedSet<String> closure = new TreeSet<>();
+        Deque<String> pending = new ArrayDeque<>(refs);
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            if (closure.add(name)) {
+                pending.addAll(definitions.get(name).getRefs());
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Define a tool method, or the tool facade of a mapping method when the kind of its pagination is given: the
+     * parameters of the facade are those of the mapping method, with {@code page} and {@code size} in place of its
+     * {@code Pageable}, or after the others. The {@code size} parameter is described when printing, with the page size.
+     */
+    private Tool tool(String className, J.MethodDeclaration method, J.@Nullable Annotation toolAnnotation,
+                      McpToolPagination.@Nullable Kind pageKind, McpToolFilter.@Nullable Endpoint endpoint) {
+        Javadoc.DocComment docComment = method.getComments().stream()
+                .filter(comment -> comment instanceof Javadoc.DocComment)
+                .map(comment -> (Javadoc.DocComment) comment)
+                .findFirst()
+                .orElse(null);
+        Map<String, String> paramDescriptions = new HashMap<>();
+        if (docComment != null) {
+            docComment.getBody().stream()
+                    .filter(doc -> doc instanceof Javadoc.Parameter)
+                    .map(doc -> (Javadoc.Parameter) doc)
+                    .filter(param -> param.getNameReference() != null && param.getNameReference().getTree() != null)
+                    .forEach(param -> paramDescriptions.put(param.getNameReference().getTree().toString(),
+                            WebMappingDetector.description(param.getDescription())));
+        }
+        // Same name and description as the @Tool annotation, or as the one AddToolAnnotationToMappingMethodRecipe adds
+        String name = stringAttribute(toolAnnotation, "name");
+        String description = stringAttribute(toolAnnotation, "description");
+        if ((description == null || description.isBlank()) && toolAnnotation == null && docComment != null) {
+            description = WebMappingDetector.description(docComment.getBody());
+        }
+        if (description == null || description.isBlank()) {
+            description = method.getSimpleName();
+        }
+
+        Set<String> refs = new TreeSet<>();
+        ObjectNode properties = NODES.objectNode();
+        ArrayNode required = NODES.arrayNode();
+        List<String> parameterTypes = new ArrayList<>();
+        for (Statement statement : method.getParameters()) {
+            if (!(statement instanceof J.VariableDeclarations varDecl)) {
+                continue;
+            }
+            JavaType type = varDecl.getVariables().get(0).getType();
+            if (pageKind == McpToolPagination.Kind.PAGEABLE && TypeUtils.isOfClassType(type, McpToolPagination.PAGEABLE_FQN)) {
+                pageParameters(properties, parameterTypes);
+                continue;
+            }
+            parameterTypes.add(erasure(type));
+            if (TypeUtils.isOfClassType(type, TOOL_CONTEXT_FQN)) {
+                continue; // Passed by Spring AI, not by the model
+            }
+            String paramName = varDecl.getVariables().get(0).getSimpleName();
+            J.Annotation toolParam = varDecl.getLeadingAnnotations().stream()
+                    .filter(annotation -> TypeUtils.isOfClassType(annotation.getType(), TOOL_PARAM_FQN))
+                    .findFirst()
+                    .orElse(null);
+            ObjectNode property = schema(type, refs);
+            String paramDescription = stringAttribute(toolParam, "description");
+            if (paramDescription == null && toolAnnotation == null) {
+                paramDescription = paramDescriptions.getOrDefault(paramName, paramName);
+            }
+            if (paramDescription != null && !paramDescription.isEmpty()) {
+                property.put("description", paramDescription);
+            }
+            properties.set(paramName, property);
+            boolean paramRequired;
+            if (toolParam != null) {
+                paramRequired = !(WebMappingDetector.attribute(toolParam, "required") instanceof J.Literal literal
+                        && Boolean.FALSE.equals(literal.getValue()));
+            } else if (toolAnnotation == null) {
+                // The @ToolParam which AddToolAnnotationToMappingMethodRecipe adds is optional when the request binding is
+                paramRequired = !WebMappingDetector.isOptionalParameter(varDecl);
+            } else {
+                JavaType.Variable variable = varDecl.getVariables().get(0).getVariableType();
+                paramRequired = isRequired(variable == null ? Collections.emptyList() : variable.getAnnotations());
+            }
+            if (paramRequired) {
+                required.add(paramName);
+            }
+        }
+        if (pageKind != null && pageKind != McpToolPagination.Kind.PAGEABLE) {
+            pageParameters(properties, parameterTypes);
+        }
+        ObjectNode inputSchema = NODES.objectNode()
+                .put("$schema", SCHEMA_VERSION)
+                .put("type", "object");
+        inputSchema.set("properties", properties);
+        inputSchema.set("required", required);
+        inputSchema.put("additionalProperties", false);
+        return new Tool(className, method.getSimpleName(), parameterTypes, name == null || name.isBlank() ? method.getSimpleName() : name,
+                description, inputSchema, refs, endpoint, null);
+    }
+
+    /**
+     * Add the optional {@code page} and {@code size} parameters of a tool facade.
+     */
+    private static void pageParameters(ObjectNode properties, List<String> parameterTypes) {
+        properties.putObject(McpToolPagination.PAGE_PARAMETER).put("type", "integer")
+                .put("description", McpToolPagination.PAGE_DESCRIPTION);
+        properties.putObject(McpToolPagination.SIZE_PARAMETER).put("type", "integer");
+        parameterTypes.add("java.lang.Integer");
+        parameterTypes.add("java.lang.Integer");
+    }
+
+    /**
+     * Map a Java type to its JSON schema, referring to the types declared in the project through {@code $defs}.
+     */
+    private ObjectNode schema(@Nullable JavaType type, Set<String> refs) {
+        ObjectNode schema = NODES.objectNode();
+        if (type instanceof JavaType.Primitive primitive) {
+            switch (primitive) {
+                case Boolean -> schema.put("type", "boolean");
+                case Byte, Short, Int, Long -> schema.put("type", "integer");
+                case Float, Double -> schema.put("type", "number");
+                case Char, String -> schema.put("type", "string");
+                default -> {
+                }
+            }
+            return schema;
+        }
+        if (type instanceof JavaType.Array array) {
+            schema.put("type", "array");
+            schema.set("items", schema(array.getElemType(), refs));
+            return schema;
+        }
+        if (type instanceof JavaType.GenericTypeVariable variable) {
+            return variable.getBounds().isEmpty() ? schema : schema(variable.getBounds().get(0), refs);
+        }
+        JavaType.FullyQualified fq = TypeUtils.asFullyQualified(type);
+        if (fq == null) {
+            return schema;
+        }
+        String fqn = fq.getFullyQualifiedName();
+        List<JavaType> typeParameters = type instanceof JavaType.Parameterized parameterized
+                ? parameterized.getTypeParameters() : Collections.emptyList();
+        if (STRING_TYPES.contains(fqn) || fqn.startsWith("java.time.")) {
+            schema.put("type", "string");
+        } else if (INTEGER_TYPES.contains(fqn)) {
+            schema.put("type", "integer");
+        } else if (NUMBER_TYPES.contains(fqn)) {
+            schema.put("type", "number");
+        } else if ("java.lang.Boolean".equals(fqn)) {
+            schema.put("type", "boolean");
+        } else if ("java.util.Optional".equals(fqn)) {
+            return typeParameters.isEmpty() ? schema : schema(typeParameters.get(0), refs);
+        } else if (TypeUtils.isAssignableTo("java.lang.Iterable", fq)) {
+            schema.put("type", "array");
+            schema.set("items", typeParameters.isEmpty() ? NODES.objectNode() : schema(typeParameters.get(0), refs));
+        } else if (TypeUtils.isAssignableTo("java.util.Map", fq)) {
+            schema.put("type", "object");
+            if (typeParameters.size() == 2) {
+                schema.set("additionalProperties", schema(typeParameters.get(1), refs));
+            }
+        } else if (fq.getKind() == JavaType.FullyQualified.Kind.Enum) {
+            schema.put("type", "string");
+            ArrayNode constants = schema.putArray("enum");
+            fq.getMembers().stream()
+                    .filter(member -> member.hasFlags(Flag.Static) && TypeUtils.isOfClassType(member.getType(), fqn))
+                    .forEach(member -> constants.add(member.getName()));
+        } else if (!fqn.startsWith("java.") && !fqn.startsWith("javax.")) {
+            define(fq);
+            refs.add(fqn);
+            schema.put("$ref", DEFS_REF_PREFIX + fqn);
+        }
+        return schema;
+    }
+
+    /**
+     * Build the schema of a type declared in the project once, from the fields which Jackson reads as properties: the
+     * public fields and the fields with an accessor or {@code @JsonProperty}, neither transient nor {@code @JsonIgnore}.
+     * The names, descriptions and required properties follow the annotations like Spring AI's schema generator.
+     */
+    private void define(JavaType.FullyQualified type) {
+        String fqn = type.getFullyQualifiedName();
+        // Registered before the fields are mapped, so recursive types refer to themselves; the definitions are only
+        // read once the scanning is over, so the schema may still be filled after another thread found it registered
+        Set<String> refs = new TreeSet<>();
+        ObjectNode properties = NODES.objectNode();
+        ArrayNode required = NODES.arrayNode();
+        ObjectNode schema = NODES.objectNode().put("type", "object");
+        if (definitions.putIfAbsent(fqn, new Definition(schema, refs)) != null) {
+            return;
+        }
+        for (JavaType.Variable field : type.getMembers()) {
+            if (field.hasFlags(Flag.Static) || field.hasFlags(Flag.Transient)) {
+                continue;
+            }
+            JavaType.Method getter = accessor(type, field, true);
+            List<JavaType.FullyQualified> annotations = getter == null ? field.getAnnotations()
+                    : ListUtils.concatAll(field.getAnnotations(), getter.getAnnotations());
+            JavaType.FullyQualified jsonProperty = annotation(annotations, JSON_PROPERTY_FQN);
+            if (annotation(annotations, JSON_IGNORE_FQN) != null || jsonProperty == null && getter == null
+                    && !field.hasFlags(Flag.Public) && type.getKind() != JavaType.FullyQualified.Kind.Record
+                    && accessor(type, field, false) == null) {
+                continue;
+            }
+            String name = annotationValue(jsonProperty, "value") instanceof String value && !value.isEmpty() ? value : field.getName();
+            ObjectNode property = schema(field.getType(), refs);
+            Object description = annotationValue(annotation(annotations, JSON_PROPERTY_DESCRIPTION_FQN), "value");
+            if (description == null) {
+                description = annotationValue(annotation(annotations, TOOL_PARAM_FQN), "description");
+            }
+            if (description instanceof String text && !text.isEmpty()) {
+                property.put("description", text);
+            }
+            properties.set(name, property);
+            if (isRequired(annotations)) {
+                required.add(name);
+            }
+        }
+        schema.set("properties", properties);
+        if (!required.isEmpty()) {
+            schema.set("required", required);
+        }
+    }
+
+    /**
+     * Find the getter, or the setter, of a field: {@code getName()}, {@code isName()} or the record accessor
+     * {@code name()}, or {@code setName(value)}.
+     */
+    private static JavaType.@Nullable Method accessor(JavaType.FullyQualified type, JavaType.Variable field, boolean getter) {
+        String suffix = field.getName().isEmpty() ? "" : Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (JavaType.Method method : type.getMethods()) {
+            if (method.hasFlags(Flag.Static)) {
+                continue;
+            }
+            if (getter ? method.getParameterTypes().isEmpty() && (method.getName().equals("get" + suffix)
+                    || method.getName().equals("is" + suffix) || method.getName().equals(field.getName()))
+                    : method.getParameterTypes().size() == 1 && method.getName().equals("set" + suffix)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether a parameter or a property is required, like Spring AI decides it: from {@code @ToolParam}, else from
+     * {@code @JsonProperty}, else from {@code @Schema}, else not when {@code @Nullable}, else required by default.
+     */
+    private static boolean isRequired(List<JavaType.FullyQualified> annotations) {
+        JavaType.FullyQualified toolParam = annotation(annotations, TOOL_PARAM_FQN);
+        if (toolParam != null) {
+            return !Boolean.FALSE.equals(annotationValue(toolParam, "required"));
+        }
+        JavaType.FullyQualified jsonProperty = annotation(annotations, JSON_PROPERTY_FQN);
+        if (jsonProperty != null) {
+            return Boolean.TRUE.equals(annotationValue(jsonProperty, "required"));
+        }
+        JavaType.FullyQualified schema = annotation(annotations, SCHEMA_FQN);
+        if (schema != null) {
+            Object requiredMode = annotationValue(schema, "requiredMode");
+            if (requiredMode instanceof JavaType.Variable mode && !"AUTO".equals(mode.getName())) {
+                return "REQUIRED".equals(mode.getName());
+            }
+        }
+        return annotations.stream().noneMatch(annotation -> "Nullable".equals(annotation.getClassName()));
+    }
+
+    private static JavaType.@Nullable FullyQualified annotation(List<JavaType.FullyQualified> annotations, String fqn) {
+        return annotations.stream()
+                .filter(annotation -> TypeUtils.isOfClassType(annotation, fqn))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return the value of an attribute of an annotation type, null if the attribute has its default value
+     */
+    private static @Nullable Object annotationValue(JavaType.@Nullable FullyQualified annotation, String attribute) {
+        if (annotation instanceof JavaType.Annotation withValues) {
+            for (JavaType.Annotation.ElementValue value : withValues.getValues()) {
+                if (value.getElement() instanceof JavaType.Method element && attribute.equals(element.getName())) {
+                    return value.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String erasure(@Nullable JavaType type) {
+        if (type instanceof JavaType.Primitive primitive) {
+            return primitive.getKeyword();
+        } else if (type instanceof JavaType.Array array) {
+            return erasure(array.getElemType()) + "[]";
+        } else if (type instanceof JavaType.GenericTypeVariable variable) {
+            return variable.getBounds().isEmpty() ? "java.lang.Object" : erasure(variable.getBounds().get(0));
+        }
+        JavaType.FullyQualified fq = TypeUtils.asFullyQualified(type);
+        return fq == null ? "java.lang.Object" : fq.getFullyQualifiedName();
+    }
+
+    private static J.@Nullable Annotation toolAnnotation(J.MethodDeclaration method) {
+        return method.getLeadingAnnotations().stream()
+                .filter(annotation -> TypeUtils.isOfClassType(annotation.getType(), WebMappingDetector.TOOL_ANNOTATION_FQN))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static @Nullable String stringAttribute(J.@Nullable Annotation annotation, String name) {
+        Expression value = annotation == null ? null : WebMappingDetector.attribute(annotation, name);
+        return value instanceof J.Literal literal && literal.getValue() instanceof String string ? string : null;
+    }
+
+    /**
+     * The definition of a tool method.
+     */
+    @Value
+    @With
+    static class Tool {
+        String className;
+        String method;
+        List<String> parameterTypes;
+        String name;
+        String description;
+        JsonNode inputSchema;
+        /**
+         * The definitions the input schema refers to directly
+         */
+        Set<String> refs;
+        /**
+         * The endpoint of a mapping method which becomes a tool in this run if selected, null for a {@code @Tool} method
+         */
+        McpToolFilter.@Nullable Endpoint endpoint;
+        /**
+         * The definition of the tool facade of a mapping method, which replaces it when the tools are paginated
+         */
+        @Nullable Tool facade;
+    }
+
+    /**
+     * The schema of a type declared in the project.
+     */
+    @Value
+    static class Definition {
+        ObjectNode schema;
+        /**
+         * The definitions the schema refers to directly
+         */
+        Set<String> refs;
+    }
+}
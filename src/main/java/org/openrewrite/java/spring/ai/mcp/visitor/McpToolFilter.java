@@ -0,0 +1,161 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.java.tree.J;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the mapping methods which become tools, so only the endpoints meant for agents end up in {@code tools/list}.
+ * A mapping method becomes a tool when it passes every configured filter:
+ * <ul>
+ *     <li>one of its HTTP methods is one of {@code httpMethods}, {@code ANY} for a {@code @RequestMapping} without a method,</li>
+ *     <li>its path, prefixed with the class level {@code @RequestMapping} path, matches one of {@code includePaths}
+ *     and none of {@code excludePaths},</li>
+ *     <li>its class is in one of {@code packages} or their subpackages,</li>
+ *     <li>its class matches one of the {@code classes} globs.</li>
+ * </ul>
+ * Paths use Ant-style patterns: {@code *} matches within a segment and {@code **} across any number of segments, none
+ * included, e.g. {@code /internal/**} or {@code /api/**}{@code /users}, which matches {@code /api/users} too.
+ * Class globs work the same with {@code .} as separator, e.g. {@code com.example.**.*Controller}, and a glob without
+ * {@code .} is matched against the simple class name. Methods already annotated with {@code @Tool} are never filtered.
+ * The filter is given to {@code AddToolAnnotationToMappingMethodRecipe} only, {@link McpToolSelection} hands it over to
+ * {@code AddToolCallbackProviderRecipe}, which therefore records the {@link Endpoint} of every mapping method.
+ */
+public class McpToolFilter {
+    public static final McpToolFilter NONE = new McpToolFilter(null, null, null, null, null);
+
+    private final List<String> httpMethods;
+    private final List<Pattern> includePaths;
+    private final List<Pattern> excludePaths;
+    private final List<String> packages;
+    private final List<Pattern> qualifiedClasses;
+    private final List<Pattern> simpleClasses;
+
+    public McpToolFilter(@Nullable List<String> httpMethods, @Nullable List<String> includePaths, @Nullable List<String> excludePaths,
+                         @Nullable List<String> packages, @Nullable List<String> classes) {
+        this.httpMethods = orEmpty(httpMethods).stream().map(method -> method.trim().toUpperCase(Locale.ROOT)).toList();
+        this.includePaths = orEmpty(includePaths).stream().map(pattern -> glob(normalizePath(pattern), '/')).toList();
+        this.excludePaths = orEmpty(excludePaths).stream().map(pattern -> glob(normalizePath(pattern), '/')).toList();
+        this.packages = orEmpty(packages).stream().map(String::trim).toList();
+        this.qualifiedClasses = orEmpty(classes).stream().filter(glob -> glob.contains(".")).map(glob -> glob(glob.trim(), '.')).toList();
+        this.simpleClasses = orEmpty(classes).stream().filter(glob -> !glob.contains(".")).map(glob -> glob(glob.trim(), '.')).toList();
+    }
+
+    /**
+     * Check whether a method is a mapping method without {@code @Tool} which passes the filters.
+     *
+     * @param classDecl the class declaring the method
+     * @param method    the method declaration
+     * @return true if the method should become an MCP tool
+     */
+    public boolean isToolCandidate(J.ClassDeclaration classDecl, J.MethodDeclaration method) {
+        return WebMappingDetector.isToolCandidate(classDecl, method) && accepts(endpoint(classDecl, method));
+    }
+
+    /**
+     * Get the endpoint of a mapping method, which the filters are checked against.
+     *
+     * @param classDecl the class declaring the method
+     * @param method    the method declaration
+     * @return the endpoint
+     */
+    public static Endpoint endpoint(J.ClassDeclaration classDecl, J.MethodDeclaration method) {
+        J.Annotation mapping = WebMappingDetector.mappingAnnotation(method);
+        return new Endpoint(
+                classDecl.getType() == null ? classDecl.getSimpleName() : classDecl.getType().getFullyQualifiedName(),
+                classDecl.getSimpleName(),
+                mapping == null ? Collections.emptyList() : WebMappingDetector.httpMethods(mapping),
+                normalizePath(WebMappingDetector.path(WebMappingDetector.requestMappingAnnotation(classDecl)) + "/"
+                        + WebMappingDetector.path(mapping)));
+    }
+
+    /**
+     * Check whether an endpoint passes the filters.
+     *
+     * @param endpoint the endpoint of a mapping method
+     * @return true if the mapping method should become an MCP tool
+     */
+    public boolean accepts(Endpoint endpoint) {
+        if (this == NONE) {
+            return true;
+        }
+        if (!httpMethods.isEmpty() && Collections.disjoint(httpMethods, endpoint.getHttpMethods())) {
+            return false;
+        }
+        String path = endpoint.getPath();
+        if (!includePaths.isEmpty() && includePaths.stream().noneMatch(pattern -> pattern.matcher(path).matches())
+                || excludePaths.stream().anyMatch(pattern -> pattern.matcher(path).matches())) {
+            return false;
+        }
+        if (packages.isEmpty() && qualifiedClasses.isEmpty() && simpleClasses.isEmpty()) {
+            return true;
+        }
+        String className = endpoint.getClassName();
+        String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
+        if (!packages.isEmpty() && packages.stream().noneMatch(p -> packageName.equals(p) || packageName.startsWith(p + "."))) {
+            return false;
+        }
+        return qualifiedClasses.isEmpty() && simpleClasses.isEmpty()
+                || qualifiedClasses.stream().anyMatch(pattern -> pattern.matcher(className.replace('$', '.')).matches())
+                || simpleClasses.stream().anyMatch(pattern -> pattern.matcher(endpoint.getSimpleName()).matches());
+    }
+
+    /**
+     * Collapse repeated slashes and drop the trailing one, so class and method paths join into one path.
+     */
+    private static String normalizePath(String path) {
+        String normalized = ("/" + path.trim()).replaceAll("/+", "/");
+        return normalized.length() > 1 && normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+
+    /**
+     * Translate an Ant-style glob into a regular expression. {@code **} between separators also matches no segment,
+     * so {@code /api/**}{@code /users} matches {@code /api/users}, and a trailing {@code <separator>**} also matches the
+     * parent itself, so {@code /internal/**} matches {@code /internal}.
+     */
+    private static Pattern glob(String glob, char separator) {
+        String quotedSeparator = Pattern.quote(String.valueOf(separator));
+        String anySegment = "[^" + quotedSeparator + "]*";
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == separator && glob.startsWith("**", i + 1) && i + 3 == glob.length()) {
+                regex.append("(").append(quotedSeparator).append(".*)?");
+                break;
+            } else if (c == separator && glob.startsWith("**" + separator, i + 1)) {
+                regex.append("(").append(quotedSeparator).append(".*)?").append(quotedSeparator);
+                i += 3;
+            } else if (c == '*' && glob.startsWith("**", i)) {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append(anySegment);
+            } else if (c == '?') {
+                regex.append("[^").append(quotedSeparator).append("]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static List<String> orEmpty(@Nullable List<String> values) {
+        return values == null ? Collections.emptyList() : values.stream().filter(value -> value != null && !value.isBlank()).toList();
+    }
+
+    /**
+     * What the filters check of a mapping method: its class, its HTTP methods and its full path.
+     */
+    @Value
+    public static class Endpoint {
+        String className;
+        String simpleName;
+        List<String> httpMethods;
+        String path;
+    }
+}
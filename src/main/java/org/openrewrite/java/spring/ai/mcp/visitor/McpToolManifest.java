@@ -0,0 +1,333 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import lombok.Value;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.TypeUtils;
+import org.openrewrite.properties.PropertiesParser;
+import org.openrewrite.properties.tree.Properties;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * The manifest of the tool classes migrated by earlier runs, stored as a properties file with one line per class:
+ * <pre>
+ * com.example.UserController=3f2a9c0d11e8b7a4;getUserById(Long);findUsers(String, int)
+ * </pre>
+ * The value holds the content hash of the class and the signatures of its tool methods.
+ * The hash covers the signatures, mapping annotations and Javadoc of the tool methods, without the {@code @Tool},
+ * {@code @ToolParam} and {@code @Cacheable} annotations and without whitespace, so the migration itself does not change it.
+ * The previous entries are read while scanning, the current entries are recorded by {@link McpToolVisitor}.
+ * The manifest also holds a fingerprint of the effective options of each recipe, keyed by {@link #TOOLS_OPTIONS} and
+ * {@link #PROVIDER_OPTIONS}, since other options migrate the same classes differently:
+ * <pre>
+ * &#64;tools=9b1e03c4d2a7f856
+ * </pre>
+ * A recipe whose fingerprint differs from the recorded one, or is missing, ignores every previous entry.
+ * A manifest without a path is disabled. Entries may be recorded concurrently.
+ */
+public class McpToolManifest {
+    private static final String HEADER = "# MCP tool classes migrated from Spring Web, maintained by the rewrite-spring-rest-to-mcp recipes";
+    private static final String SEPARATOR = ";";
+    private static final String TOOL_ANNOTATION_PREFIX = WebMappingDetector.TOOL_ANNOTATION_FQN;
+    private static final String CACHEABLE_FQN = "org.springframework.cache.annotation.Cacheable";
+    /**
+     * The key of the options fingerprint of {@code AddToolAnnotationToMappingMethodRecipe}
+     */
+    public static final String TOOLS_OPTIONS = "@tools";
+    /**
+     * The key of the options fingerprint of {@code AddToolCallbackProviderRecipe}
+     */
+    public static final String PROVIDER_OPTIONS = "@provider";
+
+    private final @Nullable Path path;
+
+    private final String optionsKey;
+
+    private final String options;
+
+    private final Map<String, String> previousOptions = new ConcurrentSkipListMap<>();
+
+    private final Map<String, String> currentOptions = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Entry> previous = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Entry> current = new ConcurrentSkipListMap<>();
+
+    private volatile boolean present;
+
+    /**
+     * @param path       the path of the manifest relative to the repository root, or {@code null} to disable it
+     * @param optionsKey the key of the options fingerprint of the recipe, {@link #TOOLS_OPTIONS} or {@link #PROVIDER_OPTIONS}
+     * @param options    the options fingerprint of the recipe, see {@link #fingerprint(Object...)}
+     */
+    public McpToolManifest(@Nullable String path, String optionsKey, String options) {
+        this.path = path == null || path.isBlank() ? null : Paths.get(path);
+        this.optionsKey = optionsKey;
+        this.options = options;
+        currentOptions.put(optionsKey, options);
+    }
+
+    /**
+     * Fingerprint the effective options of a recipe, with the defaults of unset options already applied.
+     *
+     * @param options the option values, in a fixed order
+     * @return the fingerprint
+     */
+    public static String fingerprint(Object... options) {
+        return digest(Arrays.deepToString(options));
+    }
+
+    /**
+     * @return the options fingerprint of the recipe
+     */
+    public String getOptions() {
+        return options;
+    }
+
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    /**
+     * @return whether an earlier run left a manifest in the repository
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isManifest(SourceFile sourceFile) {
+        return path != null && path.equals(sourceFile.getSourcePath());
+    }
+
+    /**
+     * Get a scanner reading the previous entries from the manifest file, which ignores every other source file.
+     *
+     * @return the scanner
+     */
+    public TreeVisitor<Tree, ExecutionContext> reader() {
+        return new TreeVisitor<>() {
+            @Override
+            public boolean isAcceptable(@NotNull SourceFile sourceFile, @NotNull ExecutionContext ctx) {
+                return sourceFile instanceof Properties.File && isManifest(sourceFile);
+            }
+
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, @NotNull ExecutionContext ctx) {
+                if (tree instanceof Properties.File file && isManifest(file)) {
+                    present = true;
+                    for (Properties.Content content : file.getContent()) {
+                        if (content instanceof Properties.Entry entry && entry.getKey().startsWith("@")) {
+                            previousOptions.put(entry.getKey(), entry.getValue().getText().trim());
+                        } else if (content instanceof Properties.Entry entry) {
+                            Entry parsed = Entry.parse(entry.getKey(), entry.getValue().getText());
+                            previous.put(parsed.getClassName(), parsed);
+                        }
+                    }
+                }
+                return tree;
+            }
+        };
+    }
+
+    /**
+     * Whether the previous entries were recorded with the same options of the recipe, so they can be trusted.
+     *
+     * @return {@code false} when there is no previous manifest or the options of the recipe changed since
+     */
+    public boolean isValid() {
+        return present && options.equals(previousOptions.get(optionsKey));
+    }
+
+    /**
+     * Record the options fingerprint of another recipe of the run, which the manifest keeps for it. The fingerprints of
+     * the recipes which are not part of the run are carried over from the previous manifest.
+     *
+     * @param key         the key of the options fingerprint
+     * @param fingerprint the options fingerprint of the other recipe
+     */
+    public void recordOptions(String key, String fingerprint) {
+        currentOptions.put(key, fingerprint);
+    }
+
+    /**
+     * Record the entry of a tool class, or of a class which becomes one in this run.
+     *
+     * @param classDecl the class declaration
+     * @param cursor    the cursor of the class declaration
+     */
+    public void record(J.ClassDeclaration classDecl, Cursor cursor) {
+        if (path != null && classDecl.getType() != null) {
+            Entry entry = entry(classDecl, cursor);
+            current.put(entry.getClassName(), entry);
+        }
+    }
+
+    /**
+     * Whether a class was migrated by an earlier run and its tool methods are unchanged since.
+     *
+     * @param classDecl the class declaration
+     * @param cursor    the cursor of the class declaration
+     * @return {@code true} when the class can be skipped
+     */
+    public boolean isUnchanged(J.ClassDeclaration classDecl, Cursor cursor) {
+        if (!isValid() || classDecl.getType() == null) {
+            return false;
+        }
+        Entry entry = previous.get(classDecl.getType().getFullyQualifiedName());
+        return entry != null && entry.getHash().equals(entry(classDecl, cursor).getHash());
+    }
+
+    /**
+     * Whether the tool classes are the same as in the previous manifest.
+     *
+     * @param toolClasses the fully qualified names of the tool classes at the end of this run
+     * @return {@code true} when the provider beans are already up to date
+     */
+    public boolean isToolSetUnchanged(Set<String> toolClasses) {
+        return isValid() && previous.keySet().equals(toolClasses);
+    }
+
+    /**
+     * Print the manifest of the tool classes at the end of this run.
+     *
+     * @param toolClasses the fully qualified names of the tool classes at the end of this run
+     * @return the content of the manifest file
+     */
+    public String print(Set<String> toolClasses) {
+        StringBuilder manifest = new StringBuilder(HEADER).append('\n');
+        Map<String, String> options = new TreeMap<>(previousOptions);
+        options.putAll(currentOptions);
+        options.forEach((key, fingerprint) -> manifest.append(key).append('=').append(fingerprint).append('\n'));
+        current.forEach((className, entry) -> {
+            if (toolClasses.contains(className)) {
+                manifest.append(entry.print()).append('\n');
+            }
+        });
+        return manifest.toString();
+    }
+
+    /**
+     * Create the manifest file, for the first run.
+     *
+     * @param toolClasses the fully qualified names of the tool classes at the end of this run
+     * @return the manifest file
+     */
+    public Properties.File generate(Set<String> toolClasses) {
+        assert path != null : "A disabled manifest cannot be generated";
+        return parse(print(toolClasses)).withSourcePath(path);
+    }
+
+    /**
+     * Replace the content of the manifest file, keeping it untouched when nothing changed.
+     *
+     * @param file        the manifest file of an earlier run
+     * @param toolClasses the fully qualified names of the tool classes at the end of this run
+     * @return the updated manifest file
+     */
+    public Properties.File update(Properties.File file, Set<String> toolClasses) {
+        String manifest = print(toolClasses);
+        if (manifest.strip().equals(file.printAll().strip())) {
+            return file;
+        }
+        // Keep the end of the file as it is, with or without a final line break
+        return parse(manifest).withId(file.getId()).withSourcePath(file.getSourcePath()).withMarkers(file.getMarkers())
+                .withEof(file.getEof());
+    }
+
+    private static Properties.File parse(String manifest) {
+        return PropertiesParser.builder().build()
+                .parse(new InMemoryExecutionContext(), manifest)
+                .map(Properties.File.class::cast)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unable to parse the MCP tool manifest"));
+    }
+
+    private static Entry entry(J.ClassDeclaration classDecl, Cursor cursor) {
+        StringBuilder content = new StringBuilder(classDecl.getSimpleName());
+        List<String> signatures = new ArrayList<>();
+        for (J.MethodDeclaration method : toolMethods(classDecl)) {
+            J.MethodDeclaration withoutTool = method.withBody(null)
+                    .withLeadingAnnotations(ListUtils.map(method.getLeadingAnnotations(), McpToolManifest::withoutToolAnnotation))
+                    .withParameters(ListUtils.map(method.getParameters(), param -> param instanceof J.VariableDeclarations varDecl
+                            ? varDecl.withLeadingAnnotations(ListUtils.map(varDecl.getLeadingAnnotations(), McpToolManifest::withoutToolAnnotation))
+                            : param));
+            content.append(withoutTool.print(new Cursor(cursor, classDecl.getBody())));
+            signatures.add(signature(method, cursor));
+        }
+        return new Entry(Objects.requireNonNull(classDecl.getType()).getFullyQualifiedName(), hash(content), signatures);
+    }
+
+    private static List<J.MethodDeclaration> toolMethods(J.ClassDeclaration classDecl) {
+        return classDecl.getBody().getStatements().stream()
+                .filter(statement -> statement instanceof J.MethodDeclaration)
+                .map(statement -> (J.MethodDeclaration) statement)
+                // A mapping method stands for its tool facade, which the migration generates
+                .filter(method -> WebMappingDetector.hasToolAnnotation(method) && !WebMappingDetector.isToolFacade(classDecl, method)
+                        || WebMappingDetector.isToolCandidate(method))
+                .toList();
+    }
+
+    private static J.@Nullable Annotation withoutToolAnnotation(J.Annotation annotation) {
+        // Tool, ToolParam and Cacheable are added by the migration, so they must not count as a change
+        JavaType.FullyQualified type = TypeUtils.asFullyQualified(annotation.getType());
+        return type != null && (type.getFullyQualifiedName().startsWith(TOOL_ANNOTATION_PREFIX)
+                || CACHEABLE_FQN.equals(type.getFullyQualifiedName())) ? null : annotation;
+    }
+
+    private static String signature(J.MethodDeclaration method, Cursor cursor) {
+        return method.getSimpleName() + method.getParameters().stream()
+                .filter(param -> param instanceof J.VariableDeclarations)
+                .map(param -> ((J.VariableDeclarations) param).getTypeExpression())
+                .map(type -> type == null ? "var" : type.printTrimmed(cursor))
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static String hash(CharSequence content) {
+        return digest(content.toString().replaceAll("\\s+", ""));
+    }
+
+    private static String digest(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A tool class of the manifest.
+     */
+    @Value
+    public static class Entry {
+        String className;
+        String hash;
+        List<String> signatures;
+
+        String print() {
+            return className + "=" + hash + signatures.stream().map(signature -> SEPARATOR + signature).collect(Collectors.joining());
+        }
+
+        static Entry parse(String className, String value) {
+            String[] parts = value.trim().split(SEPARATOR);
+            return new Entry(className, parts[0], Arrays.asList(parts).subList(1, parts.length));
+        }
+    }
+}
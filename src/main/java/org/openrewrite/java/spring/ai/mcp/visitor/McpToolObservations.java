@@ -0,0 +1,179 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.J;
+
+import java.util.List;
+
+/**
+ * The Micrometer observations of the tools, so the calls made through the MCP server, which the HTTP metrics of the
+ * controllers do not see, get their own metrics. The {@code @SpringBootApplication} class gets a nested bean post
+ * processor, found by component scanning:
+ * <pre>
+ * public class SpringMainApp {
+ *     &#64;Component
+ *     static class McpToolObservations implements BeanPostProcessor { ... }
+ * }
+ * </pre>
+ * It wraps the tool callbacks of every {@code ToolCallbackProvider} bean into an {@code mcp.tool.call} observation,
+ * tagged with the {@code tool} name and the {@code outcome} of the call. With Spring Boot Actuator, the observation
+ * becomes the {@code mcp.tool.call} timer and the {@code mcp.tool.call.active} long task timer of the calls in flight,
+ * and a span when tracing is set up. Without an {@code ObservationRegistry} bean, the calls are not observed.
+ */
+public class McpToolObservations {
+    public static final String OBSERVATIONS_CLASS = "McpToolObservations";
+    public static final String OBSERVATION_NAME = "mcp.tool.call";
+
+    private static final List<String> OBSERVATIONS_IMPORTS = List.of(
+            "io.micrometer.observation.Observation",
+            "io.micrometer.observation.ObservationRegistry",
+            "java.util.function.Supplier",
+            "org.springframework.ai.chat.model.ToolContext",
+            "org.springframework.ai.tool.ToolCallback",
+            "org.springframework.ai.tool.ToolCallbackProvider",
+            "org.springframework.ai.tool.definition.ToolDefinition",
+            "org.springframework.ai.tool.metadata.ToolMetadata",
+            "org.springframework.beans.factory.ObjectProvider",
+            "org.springframework.beans.factory.config.BeanPostProcessor",
+            "org.springframework.stereotype.Component");
+
+    private static final String OBSERVATIONS_TEMPLATE = """
+            @Component
+            static class %1$s implements BeanPostProcessor {
+                private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+                %1$s(ObjectProvider<ObservationRegistry> observationRegistry) {
+                    this.observationRegistry = observationRegistry;
+                }
+
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof ToolCallbackProvider provider)) {
+                        return bean;
+                    }
+                    ToolCallback[] toolCallbacks = provider.getToolCallbacks();
+                    ToolCallback[] observed = new ToolCallback[toolCallbacks.length];
+                    for (int i = 0; i < toolCallbacks.length; i++) {
+                        observed[i] = new ObservedToolCallback(toolCallbacks[i], observationRegistry);
+                    }
+                    return ToolCallbackProvider.from(observed);
+                }
+
+                private static final class ObservedToolCallback implements ToolCallback {
+                    private final ToolCallback delegate;
+                    private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+                    ObservedToolCallback(ToolCallback delegate, ObjectProvider<ObservationRegistry> observationRegistry) {
+                        this.delegate = delegate;
+                        this.observationRegistry = observationRegistry;
+                    }
+
+                    @Override
+                    public ToolDefinition getToolDefinition() {
+                        return delegate.getToolDefinition();
+                    }
+
+                    @Override
+                    public ToolMetadata getToolMetadata() {
+                        return delegate.getToolMetadata();
+                    }
+
+                    @Override
+                    public String call(String toolInput) {
+                        return observe(() -> delegate.call(toolInput));
+                    }
+
+                    @Override
+                    public String call(String toolInput, ToolContext toolContext) {
+                        return observe(() -> delegate.call(toolInput, toolContext));
+                    }
+
+                    private String observe(Supplier<String> toolCall) {
+                        Observation observation = Observation.createNotStarted("%2$s",
+                                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                                .contextualName("tool " + getToolDefinition().name())
+                                .lowCardinalityKeyValue("tool", getToolDefinition().name())
+                                .start();
+                        try (Observation.Scope scope = observation.openScope()) {
+                            String result = toolCall.get();
+                            observation.lowCardinalityKeyValue("outcome", "SUCCESS");
+                            return result;
+                        } catch (RuntimeException e) {
+                            observation.lowCardinalityKeyValue("outcome", "ERROR");
+                            observation.error(e);
+                            throw e;
+                        } finally {
+                            observation.stop();
+                        }
+                    }
+                }
+            }
+            """;
+
+    /**
+     * Stubs of the other types used by the observations, which the target project may not have on the parser classpath
+     */
+    private static final String[] STUBS = {
+            """
+            package io.micrometer.observation;
+            public interface ObservationRegistry {
+                ObservationRegistry NOOP = null;
+            }
+            """,
+            """
+            package io.micrometer.observation;
+            public interface Observation {
+                static Observation createNotStarted(String name, ObservationRegistry registry) { return null; }
+                Observation contextualName(String contextualName);
+                Observation lowCardinalityKeyValue(String key, String value);
+                Observation start();
+                Observation error(Throwable error);
+                void stop();
+                Scope openScope();
+                interface Scope extends AutoCloseable { @Override void close(); }
+            }
+            """,
+            """
+            package org.springframework.beans.factory;
+            import java.util.function.Supplier;
+            public interface ObjectProvider<T> { T getIfAvailable(Supplier<T> defaultSupplier); }
+            """
+    };
+
+    private McpToolObservations() {
+    }
+
+    /**
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @return true if the class has the observations already
+     */
+    public static boolean hasObservations(J.ClassDeclaration classDecl) {
+        return classDecl.getBody().getStatements().stream()
+                .anyMatch(statement -> statement instanceof J.ClassDeclaration nested && OBSERVATIONS_CLASS.equals(nested.getSimpleName()));
+    }
+
+    /**
+     * Add the observations to the application class, unless it has them already.
+     *
+     * @param classDecl the class annotated with {@code @SpringBootApplication}
+     * @param cursor    the cursor of the class declaration
+     * @param ctx       the execution context
+     * @return the class with the observations
+     */
+    public static J.ClassDeclaration addObservations(J.ClassDeclaration classDecl, Cursor cursor, ExecutionContext ctx) {
+        if (hasObservations(classDecl)) {
+            return classDecl;
+        }
+        return McpClassMembers.append(classDecl, cursor, ctx, String.format(OBSERVATIONS_TEMPLATE, OBSERVATIONS_CLASS, OBSERVATION_NAME),
+                OBSERVATIONS_IMPORTS, ListUtils.concatAll(List.of(McpToolBulkheads.TOOL_CALLBACK_STUBS), List.of(STUBS)).toArray(new String[0]));
+    }
+
+    /**
+     * @return the types which the observations refer to, to be imported
+     */
+    public static List<String> observationsImports() {
+        return OBSERVATIONS_IMPORTS;
+    }
+}
@@ -0,0 +1,391 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.*;
+import org.openrewrite.marker.Markers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bounds the results of the tools returning a {@code List}, {@code Collection} or {@code Page}, or taking a {@code Pageable}.
+ * Such a mapping method does not become a tool itself, it gets a tool facade registered under its name, which takes
+ * optional {@code page} and {@code size} parameters and cuts the result of the mapping method to the requested page:
+ * <pre>
+ * &#64;Tool(name = "getUsers", description = "...")
+ * public List&lt;User&gt; getUsersPage(&#64;ToolParam(...) Integer page, &#64;ToolParam(...) Integer size) {
+ *     return toolPage(getUsers(), page, size, maxToolResultSize);
+ * }
+ * </pre>
+ * A {@code Pageable} parameter, which cannot be read from the JSON arguments of a tool call, is built from {@code page}
+ * and {@code size} by the facade only. The requests of HTTP clients reach the mapping method as before, with their own
+ * paging, sorting and {@code @PageableDefault}. Whatever a tool caller asks for, a page never holds more than
+ * {@code maxToolResultSize} elements, injected from the {@code mcp.tool.max-result-size} property.
+ * Only the tools taking a {@code Pageable} are bounded at the source. The facade of a mapping method returning a
+ * {@code List}, {@code Collection} or a {@code Page} it sizes itself still loads the whole result, and only bounds
+ * what reaches the model; the facade of a {@code Page} returns the requested page of its content as a {@code List}.
+ * The facade is named after the mapping method with a {@code Page} suffix, or {@code ToolPage} when the class declares
+ * a method of that name already. Tool calls reach the facade through the proxy of the bean, but the facade calls the
+ * mapping method directly, so the method level security and transaction annotations of the mapping method, such as
+ * {@code @PreAuthorize}, {@code @Secured} or {@code @Transactional}, are copied to the facade.
+ */
+public class McpToolPagination {
+    public static final String PAGE_PARAMETER = "page";
+    public static final String SIZE_PARAMETER = "size";
+    public static final String MAX_RESULT_SIZE_PROPERTY = "mcp.tool.max-result-size";
+    public static final String PAGE_DESCRIPTION = "The zero-based index of the page, 0 by default";
+
+    public static final String PAGEABLE_FQN = "org.springframework.data.domain.Pageable";
+    private static final String PAGE_FQN = "org.springframework.data.domain.Page";
+    private static final String PAGE_REQUEST_FQN = "org.springframework.data.domain.PageRequest";
+    private static final String VALUE_FQN = "org.springframework.beans.factory.annotation.Value";
+    private static final String MAX_RESULT_SIZE_FIELD = "maxToolResultSize";
+    private static final String PAGE_METHOD = "toolPage";
+    private static final String PAGEABLE_METHOD = "toolPageable";
+    private static final String PAGE_CONTENT_METHOD = "toolPageContent";
+    private static final List<String> FACADE_SUFFIXES = List.of("Page", "ToolPage");
+    private static final String TOOL_PARAM_FQN = "org.springframework.ai.tool.annotation.ToolParam";
+    private static final JavaType INTEGER_TYPE = JavaType.ShallowClass.build("java.lang.Integer");
+    private static final List<String> HELPER_IMPORTS = List.of(VALUE_FQN, PAGEABLE_FQN, PAGE_REQUEST_FQN, PAGE_FQN, "java.util.Collection", "java.util.List");
+    /**
+     * The annotations applied by the proxy of the bean, which a call of the mapping method from the facade bypasses
+     */
+    private static final Set<String> PROXY_ANNOTATION_FQNS = Set.of(
+            "org.springframework.security.access.prepost.PreAuthorize",
+            "org.springframework.security.access.prepost.PostAuthorize",
+            "org.springframework.security.access.prepost.PreFilter",
+            "org.springframework.security.access.prepost.PostFilter",
+            "org.springframework.security.access.annotation.Secured",
+            "jakarta.annotation.security.RolesAllowed",
+            "jakarta.annotation.security.PermitAll",
+            "jakarta.annotation.security.DenyAll",
+            "javax.annotation.security.RolesAllowed",
+            "javax.annotation.security.PermitAll",
+            "javax.annotation.security.DenyAll",
+            "org.springframework.transaction.annotation.Transactional",
+            "jakarta.transaction.Transactional",
+            "javax.transaction.Transactional");
+
+    /**
+     * Stubs of the Spring types used by the helpers, which the target project may not have on the parser classpath
+     */
+    private static final String[] STUBS = {
+            """
+            package org.springframework.beans.factory.annotation;
+            public @interface Value { String value(); }
+            """,
+            """
+            package org.springframework.data.domain;
+            public interface Pageable {}
+            """,
+            """
+            package org.springframework.data.domain;
+            public class PageRequest implements Pageable {
+                public static PageRequest of(int page, int size) { return null; }
+            }
+            """,
+            """
+            package org.springframework.data.domain;
+            public interface Page<T> { java.util.List<T> getContent(); }
+            """
+    };
+
+    public enum Kind {
+        /**
+         * The tool returns a {@code List} or {@code Collection}, which is cut to the requested page
+         */
+        COLLECTION,
+        /**
+         * The tool takes a {@code Pageable}, which is built from the requested page
+         */
+        PAGEABLE,
+        /**
+         * The tool returns a {@code Page} without taking a {@code Pageable}, its content is cut to the requested page
+         */
+        PAGE
+    }
+
+    private final int pageSize;
+    private final int maxResultSize;
+
+    /**
+     * @param pageSize      the size of a page when the caller does not ask for one
+     * @param maxResultSize the default of {@code mcp.tool.max-result-size}
+     */
+    public McpToolPagination(int pageSize, int maxResultSize) {
+        this.pageSize = pageSize;
+        this.maxResultSize = maxResultSize;
+    }
+
+    /**
+     * Classify a mapping method. Methods which already have a {@code page} or {@code size} parameter are left alone.
+     *
+     * @param method the mapping method
+     * @return how the results of the tool are bounded, null if they are not
+     */
+    public static @Nullable Kind kind(J.MethodDeclaration method) {
+        for (Statement parameter : method.getParameters()) {
+            if (parameter instanceof J.VariableDeclarations varDecl) {
+                String name = varDecl.getVariables().get(0).getSimpleName();
+                if (PAGE_PARAMETER.equals(name) || SIZE_PARAMETER.equals(name)) {
+                    return null;
+                }
+            }
+        }
+        if (pageableParameter(method) != null) {
+            return method.getBody() == null ? null : Kind.PAGEABLE;
+        }
+        JavaType returnType = method.getReturnTypeExpression() == null ? null : method.getReturnTypeExpression().getType();
+        if (method.getBody() != null
+                && (TypeUtils.isOfClassType(returnType, "java.util.List") || TypeUtils.isOfClassType(returnType, "java.util.Collection"))) {
+            return Kind.COLLECTION;
+        }
+        if (method.getBody() != null && TypeUtils.isOfClassType(returnType, PAGE_FQN)
+                && method.getReturnTypeExpression() instanceof J.ParameterizedType) {
+            return Kind.PAGE;
+        }
+        return null;
+    }
+
+    /**
+     * Build the tool facade of a mapping method: a method registered as the tool under the name of the mapping method,
+     * which takes the {@code page} and {@code size} parameters and delegates to the mapping method with a bounded result.
+     * The mapping method itself is left as it is, so the requests of HTTP clients are served like before.
+     *
+     * @param method         the mapping method, classified by {@link #kind(J.MethodDeclaration)}, with its {@code @ToolParam} annotations
+     * @param kind           how the results are bounded
+     * @param toolAnnotation the {@code @Tool} annotation of the facade, naming the tool after the mapping method
+     * @param page           the declaration of the {@code page} parameter
+     * @param size           the declaration of the {@code size} parameter
+     * @param classDecl      the class declaring the method, which declares the helpers too
+     * @return the facade, to be declared after the mapping method
+     */
+    public static J.MethodDeclaration facade(J.MethodDeclaration method, Kind kind, J.Annotation toolAnnotation,
+                                             J.VariableDeclarations page, J.VariableDeclarations size, J.ClassDeclaration classDecl) {
+        assert method.getBody() != null;
+        JavaType.FullyQualified owner = classDecl.getType();
+        J.VariableDeclarations pageable = kind == Kind.PAGEABLE ? pageableParameter(method) : null;
+        List<Statement> parameters = new ArrayList<>();
+        List<JRightPadded<Expression>> arguments = new ArrayList<>();
+        for (Statement parameter : method.getParameters()) {
+            if (!(parameter instanceof J.VariableDeclarations varDecl)) {
+                continue;
+            }
+            Space argumentPrefix = arguments.isEmpty() ? Space.EMPTY : Space.SINGLE_SPACE;
+            if (varDecl == pageable) {
+                // Pageable pageable = toolPageable(page, size, maxToolResultSize), passed in place
+                parameters.add(page.withPrefix(varDecl.getPrefix()));
+                parameters.add(size);
+                arguments.add(JRightPadded.build(helperCall(PAGEABLE_METHOD, null, varDecl.getType(), owner).withPrefix(argumentPrefix)));
+            } else {
+                // The request binding annotations do not apply to a tool call, the tool parameter annotations do
+                List<J.Annotation> toolParams = ListUtils.map(varDecl.getLeadingAnnotations(),
+                        annotation -> TypeUtils.isOfClassType(annotation.getType(), TOOL_PARAM_FQN) ? annotation : null);
+                parameters.add(varDecl.withLeadingAnnotations(ListUtils.mapFirst(toolParams, annotation -> annotation.withPrefix(Space.EMPTY))));
+                J.VariableDeclarations.NamedVariable variable = varDecl.getVariables().get(0);
+                arguments.add(JRightPadded.build(identifier(variable.getSimpleName(), variable.getType(), argumentPrefix)));
+            }
+        }
+        if (kind != Kind.PAGEABLE) {
+            parameters.add(parameters.isEmpty() ? page.withPrefix(Space.EMPTY) : page);
+            parameters.add(size);
+        }
+        String name = facadeName(classDecl, method.getSimpleName());
+        TypeTree returnTypeExpression = kind == Kind.PAGE ? listOf((J.ParameterizedType) method.getReturnTypeExpression())
+                : method.getReturnTypeExpression();
+        JavaType.Method methodType = method.getMethodType();
+        JavaType.Method facadeType = methodType == null ? null : methodType.withName(name)
+                .withReturnType(returnTypeExpression == null ? methodType.getReturnType() : returnTypeExpression.getType())
+                .withParameterNames(parameters.stream().map(parameter -> ((J.VariableDeclarations) parameter).getVariables().get(0).getSimpleName()).toList())
+                .withParameterTypes(parameters.stream().map(parameter -> ((J.VariableDeclarations) parameter).getType()).toList());
+
+        // return toolPage(getUsers(...), page, size, maxToolResultSize);
+        Expression call = new J.MethodInvocation(Tree.randomId(), Space.EMPTY, Markers.EMPTY, null, null,
+                identifier(method.getSimpleName(), methodType, Space.EMPTY),
+                JContainer.build(Space.EMPTY, arguments.isEmpty()
+                        ? List.of(JRightPadded.build(new J.Empty(Tree.randomId(), Space.EMPTY, Markers.EMPTY))) : arguments, Markers.EMPTY),
+                methodType);
+        JavaType resultType = returnTypeExpression == null ? null : returnTypeExpression.getType();
+        if (kind == Kind.COLLECTION) {
+            call = helperCall(PAGE_METHOD, call, resultType, owner);
+        } else if (kind == Kind.PAGE) {
+            call = helperCall(PAGE_CONTENT_METHOD, call, resultType, owner);
+        }
+        String indent = method.getPrefix().getIndent();
+        Statement statement = resultType == JavaType.Primitive.Void
+                ? (Statement) call.withPrefix(Space.format("\n" + indent + "    "))
+                : new J.Return(Tree.randomId(), Space.format("\n" + indent + "    "), Markers.EMPTY, call.withPrefix(Space.SINGLE_SPACE));
+        J.Block body = new J.Block(Tree.randomId(), method.getBody().getPrefix(), Markers.EMPTY, JRightPadded.build(false),
+                List.of(JRightPadded.build(statement)), Space.format("\n" + indent));
+
+        List<J.Annotation> annotations = new ArrayList<>();
+        annotations.add(toolAnnotation.withPrefix(Space.EMPTY));
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            JavaType.FullyQualified type = TypeUtils.asFullyQualified(annotation.getType());
+            if (type != null && PROXY_ANNOTATION_FQNS.contains(type.getFullyQualifiedName())) {
+                annotations.add(annotation.withId(Tree.randomId()).withPrefix(Space.format("\n" + indent)));
+            }
+        }
+        return method.withId(Tree.randomId())
+                .withPrefix(Space.format("\n\n" + indent))
+                .withLeadingAnnotations(annotations)
+                .withReturnTypeExpression(returnTypeExpression)
+                .withName(method.getName().withId(Tree.randomId()).withSimpleName(name).withType(facadeType))
+                .withParameters(parameters)
+                .withBody(body)
+                .withMethodType(facadeType);
+    }
+
+    /**
+     * Add the {@code maxToolResultSize} field and the helper methods used by the paginated tools of a class,
+     * unless an earlier run added them.
+     *
+     * @param classDecl the class declaring the paginated tools
+     * @param cursor    the cursor of the class declaration
+     * @param kinds     the kinds of the paginated tools
+     * @param ctx       the execution context
+     * @return the class with the helpers
+     */
+    public J.ClassDeclaration addHelpers(J.ClassDeclaration classDecl, Cursor cursor, List<Kind> kinds, ExecutionContext ctx) {
+        List<String> members = new ArrayList<>();
+        if (!declares(classDecl, MAX_RESULT_SIZE_FIELD)) {
+            members.add("""
+                    @Value("${%s:%d}")
+                    private int %s;
+                    """.formatted(MAX_RESULT_SIZE_PROPERTY, maxResultSize, MAX_RESULT_SIZE_FIELD));
+        }
+        if (kinds.contains(Kind.COLLECTION) && !declares(classDecl, PAGE_METHOD)) {
+            members.add("""
+                    private static <T> List<T> %s(Collection<T> items, Integer page, Integer size, int maxResultSize) {
+                        if (items == null) {
+                            return null;
+                        }
+                        int pageSize = Math.min(size == null || size < 1 ? %d : size, maxResultSize);
+                        return items.stream().skip((long) Math.max(page == null ? 0 : page, 0) * pageSize).limit(pageSize).toList();
+                    }
+                    """.formatted(PAGE_METHOD, pageSize));
+        }
+        if (kinds.contains(Kind.PAGE) && !declares(classDecl, PAGE_CONTENT_METHOD)) {
+            members.add("""
+                    private static <T> List<T> %s(Page<T> items, Integer page, Integer size, int maxResultSize) {
+                        if (items == null) {
+                            return null;
+                        }
+                        int pageSize = Math.min(size == null || size < 1 ? %d : size, maxResultSize);
+                        return items.getContent().stream().skip((long) Math.max(page == null ? 0 : page, 0) * pageSize).limit(pageSize).toList();
+                    }
+                    """.formatted(PAGE_CONTENT_METHOD, pageSize));
+        }
+        if (kinds.contains(Kind.PAGEABLE) && !declares(classDecl, PAGEABLE_METHOD)) {
+            members.add("""
+                    private static Pageable %s(Integer page, Integer size, int maxResultSize) {
+                        return PageRequest.of(Math.max(page == null ? 0 : page, 0), Math.min(size == null || size < 1 ? %d : size, maxResultSize));
+                    }
+                    """.formatted(PAGEABLE_METHOD, pageSize));
+        }
+        for (String member : members) {
+            classDecl = McpClassMembers.append(classDecl, cursor, ctx, member, HELPER_IMPORTS, STUBS);
+        }
+        return classDecl;
+    }
+
+    /**
+     * @return the types which the helpers may refer to, to be imported if they do
+     */
+    public static List<String> helperImports() {
+        return HELPER_IMPORTS;
+    }
+
+    private static boolean declares(J.ClassDeclaration classDecl, String name) {
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.MethodDeclaration method && name.equals(method.getSimpleName())
+                    || statement instanceof J.VariableDeclarations varDecl && name.equals(varDecl.getVariables().get(0).getSimpleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param pageSize the size of the pages unless the caller asks for another one
+     * @return the description of the {@code size} parameter of the facades
+     */
+    public static String sizeDescription(int pageSize) {
+        return "The number of elements of the page, " + pageSize + " by default";
+    }
+
+    /**
+     * Name the facade after the mapping method, with the first suffix which no method of the class uses yet.
+     *
+     * @param classDecl  the class declaring the mapping method
+     * @param methodName the name of the mapping method
+     * @return the name of the facade
+     */
+    public static String facadeName(J.ClassDeclaration classDecl, String methodName) {
+        for (int i = 0; ; i++) {
+            String name = methodName + FACADE_SUFFIXES.get(Math.min(i, FACADE_SUFFIXES.size() - 1))
+                    + (i < FACADE_SUFFIXES.size() ? "" : String.valueOf(i - FACADE_SUFFIXES.size() + 2));
+            if (!declares(classDecl, name)) {
+                return name;
+            }
+        }
+    }
+
+    /**
+     * Turn {@code Page<T>} into {@code List<T>}.
+     */
+    private static J.ParameterizedType listOf(J.ParameterizedType page) {
+        JavaType.FullyQualified list = JavaType.ShallowClass.build("java.util.List");
+        JavaType.Parameterized pageType = TypeUtils.asParameterized(page.getType());
+        JavaType type = pageType == null ? list : new JavaType.Parameterized(null, list, pageType.getTypeParameters());
+        return page.withId(Tree.randomId())
+                .withClazz(identifier("List", list, page.getClazz().getPrefix()))
+                .withType(type);
+    }
+
+    private static J.@Nullable VariableDeclarations pageableParameter(J.MethodDeclaration method) {
+        for (Statement parameter : method.getParameters()) {
+            if (parameter instanceof J.VariableDeclarations varDecl && TypeUtils.isOfClassType(varDecl.getType(), PAGEABLE_FQN)) {
+                return varDecl;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build {@code helper([result, ]page, size, maxToolResultSize)}, attributed like the helper generated by
+     * {@link #addHelpers(J.ClassDeclaration, Cursor, List, ExecutionContext)}.
+     */
+    private static J.MethodInvocation helperCall(String helper, @Nullable Expression result, @Nullable JavaType returnType,
+                                                 JavaType.@Nullable FullyQualified owner) {
+        List<JRightPadded<Expression>> arguments = new ArrayList<>();
+        List<String> parameterNames = new ArrayList<>();
+        List<JavaType> parameterTypes = new ArrayList<>();
+        if (result != null) {
+            arguments.add(JRightPadded.build(result.withPrefix(Space.EMPTY)));
+            parameterNames.add("items");
+            parameterTypes.add(JavaType.ShallowClass.build("java.util.Collection"));
+        }
+        for (String name : List.of(PAGE_PARAMETER, SIZE_PARAMETER, MAX_RESULT_SIZE_FIELD)) {
+            JavaType type = MAX_RESULT_SIZE_FIELD.equals(name) ? JavaType.Primitive.Int : INTEGER_TYPE;
+            arguments.add(JRightPadded.build(identifier(name, type, arguments.isEmpty() ? Space.EMPTY : Space.SINGLE_SPACE)));
+            parameterNames.add(MAX_RESULT_SIZE_FIELD.equals(name) ? "maxResultSize" : name);
+            parameterTypes.add(type);
+        }
+        JavaType.Method methodType = owner == null ? null : new JavaType.Method(null,
+                Flag.flagsToBitMap(Set.of(Flag.Private, Flag.Static)), owner, helper, returnType,
+                parameterNames, parameterTypes, Collections.emptyList(), Collections.emptyList(), null, null);
+        return new J.MethodInvocation(Tree.randomId(), result == null ? Space.EMPTY : result.getPrefix(), Markers.EMPTY, null, null,
+                identifier(helper, methodType, Space.EMPTY), JContainer.build(Space.EMPTY, arguments, Markers.EMPTY), methodType);
+    }
+
+    private static J.Identifier identifier(String name, @Nullable JavaType type, Space prefix) {
+        return new J.Identifier(Tree.randomId(), prefix, Markers.EMPTY, Collections.emptyList(), name, type, null);
+    }
+}
@@ -0,0 +1,131 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.Statement;
+import org.openrewrite.java.tree.TypeUtils;
+
+import java.util.List;
+
+/**
+ * Unwraps the {@code ResponseEntity}, {@code HttpEntity} and {@code Optional} results of tools, which would otherwise be
+ * serialized with their headers and status. The tools refer to a result converter nested in their class:
+ * <pre>
+ * &#64;Tool(description = "...", resultConverter = McpToolResultConverter.class)
+ * public ResponseEntity&lt;User&gt; getUser(Long id)
+ * </pre>
+ * It serializes the body only, and maps a non-2xx status to {@code {"status":404,"error":<body>}} without throwing.
+ * Spring AI creates the converter reflectively, so it is a public static class with a public constructor.
+ */
+public class McpToolResults {
+    public static final String CONVERTER_CLASS = "McpToolResultConverter";
+
+    private static final List<String> WRAPPER_TYPES = List.of(
+            "org.springframework.http.ResponseEntity",
+            "org.springframework.http.HttpEntity",
+            "java.util.Optional");
+
+    private static final List<String> CONVERTER_IMPORTS = List.of(
+            "org.springframework.ai.tool.execution.DefaultToolCallResultConverter",
+            "org.springframework.ai.tool.execution.ToolCallResultConverter",
+            "org.springframework.http.HttpEntity",
+            "org.springframework.http.ResponseEntity",
+            "java.lang.reflect.Type",
+            "java.util.Optional");
+
+    private static final String CONVERTER_TEMPLATE = """
+            public static class %s implements ToolCallResultConverter {
+                private static final ToolCallResultConverter DELEGATE = new DefaultToolCallResultConverter();
+
+                @Override
+                public String convert(Object result, Type returnType) {
+                    Object body = result instanceof HttpEntity<?> entity ? entity.getBody() : result;
+                    if (body instanceof Optional<?> optional) {
+                        body = optional.orElse(null);
+                    }
+                    if (result instanceof ResponseEntity<?> response && !response.getStatusCode().is2xxSuccessful()) {
+                        return "{\\"status\\":" + response.getStatusCode().value() + ",\\"error\\":" + DELEGATE.convert(body, null) + "}";
+                    }
+                    return DELEGATE.convert(body, null);
+                }
+            }
+            """.formatted(CONVERTER_CLASS);
+
+    /**
+     * Stubs of the types used by the converter, which the target project may not have on the parser classpath
+     */
+    private static final String[] STUBS = {
+            """
+            package org.springframework.ai.tool.execution;
+            public interface ToolCallResultConverter { String convert(Object result, java.lang.reflect.Type returnType); }
+            """,
+            """
+            package org.springframework.ai.tool.execution;
+            public final class DefaultToolCallResultConverter implements ToolCallResultConverter {
+                public String convert(Object result, java.lang.reflect.Type returnType) { return null; }
+            }
+            """,
+            """
+            package org.springframework.http;
+            public interface HttpStatusCode { boolean is2xxSuccessful(); int value(); }
+            """,
+            """
+            package org.springframework.http;
+            public class HttpEntity<T> { public T getBody() { return null; } }
+            """,
+            """
+            package org.springframework.http;
+            public class ResponseEntity<T> extends HttpEntity<T> { public HttpStatusCode getStatusCode() { return null; } }
+            """
+    };
+
+    /**
+     * Check whether a tool returns a {@code ResponseEntity}, {@code HttpEntity} or {@code Optional}.
+     *
+     * @param method the tool method
+     * @return true if the result of the tool should be unwrapped
+     */
+    public static boolean isWrapped(J.MethodDeclaration method) {
+        JavaType returnType = method.getReturnTypeExpression() == null ? null : method.getReturnTypeExpression().getType();
+        for (String wrapperType : WRAPPER_TYPES) {
+            if (TypeUtils.isOfClassType(returnType, wrapperType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add the result converter to a class with wrapped tool results, unless an earlier run added it.
+     *
+     * @param classDecl the class declaring the tools
+     * @param cursor    the cursor of the class declaration
+     * @param ctx       the execution context
+     * @return the class with the converter
+     */
+    public static J.ClassDeclaration addConverter(J.ClassDeclaration classDecl, Cursor cursor, ExecutionContext ctx) {
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.ClassDeclaration nested && CONVERTER_CLASS.equals(nested.getSimpleName())) {
+                return classDecl;
+            }
+        }
+        return McpClassMembers.append(classDecl, cursor, ctx, CONVERTER_TEMPLATE, CONVERTER_IMPORTS, STUBS);
+    }
+
+    /**
+     * @return the types which the converter refers to, to be imported
+     */
+    public static List<String> converterImports() {
+        return CONVERTER_IMPORTS;
+    }
+
+    /**
+     * @param owner the type of the class declaring the tools
+     * @return the type of the converter nested in it
+     */
+    public static JavaType.FullyQualified converterType(JavaType.FullyQualified owner) {
+        return JavaType.ShallowClass.build(owner.getFullyQualifiedName() + "$" + CONVERTER_CLASS);
+    }
+}
@@ -0,0 +1,103 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.Cursor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tells {@code AddToolCallbackProviderRecipe} whether {@code AddToolAnnotationToMappingMethodRecipe} is part of the same
+ * recipe run, and with which {@link McpToolFilter}. Only then do the mapping methods of Spring Beans which pass the filter
+ * become tools in the cycle, so their classes can be injected into the provider bean; otherwise a class without any
+ * {@code @Tool} method would make {@code MethodToolCallbackProvider} fail on startup. The filter is configured once, on
+ * the annotation recipe, and never copied to the provider recipe.
+ * Both recipes share one slot on the root cursor of the cycle, where the accumulators of the scanning recipes live,
+ * whichever of them gets its accumulator first creating it. The annotation recipe sets its filter into the slot before
+ * it scans anything, the provider recipe only reads it after the whole scanning phase, when generating and editing, so
+ * the order of the recipes does not matter. The provider recipe therefore records every mapping method while scanning.
+ * The options fingerprint of the annotation recipe is handed over the same way, for the provider recipe to write it
+ * into the {@link McpToolManifest}, and so is its page size, for the {@link McpToolDefinitions} of the mapping methods
+ * which get a tool facade from {@link McpToolPagination}.
+ */
+public class McpToolSelection {
+    private static final String MESSAGE = McpToolSelection.class.getName();
+
+    private volatile @Nullable AtomicReference<Published> slot;
+
+    /**
+     * Publish that the mapping methods passing the filter are turned into tools in this cycle.
+     *
+     * @param cursor   any cursor of the cycle
+     * @param filter   the filter of the annotation recipe
+     * @param options  the options fingerprint of the annotation recipe
+     * @param pageSize the page size of the tool facades, null if the tools are not paginated
+     */
+    public static void publish(Cursor cursor, McpToolFilter filter, String options, @Nullable Integer pageSize) {
+        slot(cursor).set(new Published(filter, options, pageSize));
+    }
+
+    /**
+     * Share the slot of the cycle, which the annotation recipe publishes its filter to.
+     *
+     * @param cursor any cursor of the cycle
+     */
+    public void join(Cursor cursor) {
+        slot = slot(cursor);
+    }
+
+    /**
+     * @return true if the mapping methods become tools in this cycle
+     */
+    public boolean isSelecting() {
+        return filter() != null;
+    }
+
+    /**
+     * Check whether a mapping method becomes a tool in this cycle.
+     *
+     * @param endpoint the endpoint of a mapping method without {@code @Tool}
+     * @return true if the annotation recipe runs and its filter accepts the endpoint
+     */
+    public boolean selects(McpToolFilter.Endpoint endpoint) {
+        McpToolFilter current = filter();
+        return current != null && current.accepts(endpoint);
+    }
+
+    /**
+     * @return the options fingerprint of the annotation recipe, null if it is not part of the run
+     */
+    public @Nullable String options() {
+        Published published = published();
+        return published == null ? null : published.getOptions();
+    }
+
+    /**
+     * @return the page size of the tool facades, null if the tools are not paginated or the annotation recipe is not part of the run
+     */
+    public @Nullable Integer pageSize() {
+        Published published = published();
+        return published == null ? null : published.getPageSize();
+    }
+
+    private @Nullable McpToolFilter filter() {
+        Published published = published();
+        return published == null ? null : published.getFilter();
+    }
+
+    private @Nullable Published published() {
+        AtomicReference<Published> current = slot;
+        return current == null ? null : current.get();
+    }
+
+    private static AtomicReference<Published> slot(Cursor cursor) {
+        return cursor.getRoot().computeMessageIfAbsent(MESSAGE, k -> new AtomicReference<>());
+    }
+
+    @Value
+    private static class Published {
+        McpToolFilter filter;
+        String options;
+        @Nullable Integer pageSize;
+    }
+}
@@ -5,20 +5,47 @@ import lombok.Value;
 import org.jetbrains.annotations.NotNull;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.java.JavaIsoVisitor;
-import org.openrewrite.java.search.FindAnnotations;
 import org.openrewrite.java.tree.J;
 
-import java.util.Set;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This visitor is used to find all classes that have the @Tool annotation.
- * It collects the fully qualified names of these classes into a set.
+ * It collects the fully qualified names of these classes, mapped to their source paths so that they can be
+ * attributed to their modules.
+ * Only class and method signatures are visited, so top-level and member classes are covered, but not the local and
+ * anonymous classes declared in method bodies or field initializers. These cannot be component-scanned Spring Beans,
+ * nor be injected into the provider bean by their type, so they could not become MCP tools anyway.
+ * Spring Bean classes with mapping methods that are not tools yet are collected into a second map, with the endpoints of
+ * these methods, because {@code AddToolAnnotationToMappingMethodRecipe} turns them into tools in the same cycle when it is
+ * part of the run. Which endpoints pass its filter is only known once {@link McpToolSelection} tells, after scanning.
+ * Both kinds of classes are recorded into the tool manifest, the tool definitions and the runtime hints, when they are enabled.
  */
 @Value
 @EqualsAndHashCode(callSuper = false)
 public class McpToolVisitor extends JavaIsoVisitor<ExecutionContext> {
+    private static final String SPRING_BEAN_MESSAGE = "SPRING_BEAN";
 
-    @NotNull Set<String> toolSet;
+    @NotNull Map<String, Path> tools;
+
+    @NotNull Map<String, Path> candidates;
+
+    @NotNull McpToolManifest manifest;
+
+    @NotNull McpToolDefinitions definitions;
+
+    @NotNull McpRuntimeHints hints;
+
+    @NotNull Map<String, List<McpToolFilter.Endpoint>> endpoints;
+
+    @Override
+    public J.@NotNull CompilationUnit visitCompilationUnit(J.@NotNull CompilationUnit cu, @NotNull ExecutionContext ctx) {
+        // Same precondition as AddToolAnnotationToMappingMethodRecipe, evaluated once per file
+        getCursor().putMessage(SPRING_BEAN_MESSAGE, WebMappingDetector.springBeanChecker().visit(cu, ctx) != cu);
+        return super.visitCompilationUnit(cu, ctx);
+    }
 
     @Override
     public J.@NotNull ClassDeclaration visitClassDeclaration(J.@NotNull ClassDeclaration classDecl, @NotNull ExecutionContext ctx) {
@@ -31,18 +58,44 @@ public class McpToolVisitor extends JavaIsoVisitor<ExecutionContext> {
         boolean toolFound = classDecl.getBody().getStatements().stream()
                 .filter(statement -> statement instanceof J.MethodDeclaration) // Only check methods
                 .map(statement -> (J.MethodDeclaration) statement)
-                .anyMatch(method -> hasToolAnnotation(method));
+                .anyMatch(WebMappingDetector::hasToolAnnotation);
 
-        // If tool annotation found, add class type to toolSet
+        // If tool annotation found, add class type to tools
         if (toolFound) {
-            toolSet.add(classDecl.getType().getFullyQualifiedName());
+            tools.put(classDecl.getType().getFullyQualifiedName(), sourcePath());
+            manifest.record(classDecl, getCursor());
+            definitions.record(classDecl);
+            hints.record(classDecl);
+        } else if (Boolean.TRUE.equals(getCursor().getNearestMessage(SPRING_BEAN_MESSAGE))) {
+            List<McpToolFilter.Endpoint> classEndpoints = classDecl.getBody().getStatements().stream()
+                    .filter(statement -> statement instanceof J.MethodDeclaration method && WebMappingDetector.isToolCandidate(classDecl, method))
+                    .map(statement -> McpToolFilter.endpoint(classDecl, (J.MethodDeclaration) statement))
+                    .toList();
+            if (!classEndpoints.isEmpty()) {
+                candidates.put(classDecl.getType().getFullyQualifiedName(), sourcePath());
+                endpoints.put(classDecl.getType().getFullyQualifiedName(), classEndpoints);
+                manifest.record(classDecl, getCursor());
+                definitions.record(classDecl);
+                hints.record(classDecl);
+            }
         }
 
         return super.visitClassDeclaration(classDecl, ctx);
     }
 
-    private boolean hasToolAnnotation(J.MethodDeclaration method) {
-        // Only call FindAnnotations once per method
-        return !FindAnnotations.find(method, "@org.springframework.ai.tool.annotation.Tool").isEmpty();
+    @Override
+    public J.@NotNull MethodDeclaration visitMethodDeclaration(J.@NotNull MethodDeclaration method, @NotNull ExecutionContext ctx) {
+        // Tools are decided from method signatures only, never descend into method bodies
+        return method;
+    }
+
+    @Override
+    public J.@NotNull VariableDeclarations visitVariableDeclarations(J.@NotNull VariableDeclarations multiVariable, @NotNull ExecutionContext ctx) {
+        // Field initializers cannot declare tools either
+        return multiVariable;
+    }
+
+    private Path sourcePath() {
+        return getCursor().firstEnclosingOrThrow(J.CompilationUnit.class).getSourcePath();
     }
 }
@@ -8,39 +8,52 @@ import org.openrewrite.SourceFile;
 import org.openrewrite.java.spring.ai.mcp.visitor.gradle.GradleMcpVisitor;
 import org.openrewrite.java.spring.ai.mcp.visitor.maven.MavenMcpVisitor;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
+/**
+ * Decides which modules are MCP enabled, one build file at a time.
+ * Build files of modules which are already enabled are skipped.
+ */
 public class SpringAIMcpVisitor<P> extends TreeVisitor<Tree, P> {
-    private final AtomicBoolean aiMcpEnabled;
+    private final McpModules modules;
+    // UpdateBuildFiles adds the MCP starter to the web modules in the same run, so their build files enable MCP
+    private final boolean assumeStarterAdded;
 
     // Caching visitors to avoid unnecessary re-creation
     private final MavenMcpVisitor<P> mavenVisitor;
     private final GradleMcpVisitor<P> gradleVisitor;
 
-    public SpringAIMcpVisitor(AtomicBoolean aiMcpEnabled) {
-        this.aiMcpEnabled = aiMcpEnabled;
+    public SpringAIMcpVisitor(McpModules modules) {
+        this(modules, false);
+    }
+
+    public SpringAIMcpVisitor(McpModules modules, boolean assumeStarterAdded) {
+        this.modules = modules;
+        this.assumeStarterAdded = assumeStarterAdded;
         // Initialize Maven and Gradle visitors once
-        this.mavenVisitor = new MavenMcpVisitor<>(aiMcpEnabled);
-        this.gradleVisitor = new GradleMcpVisitor<>(aiMcpEnabled);
+        this.mavenVisitor = new MavenMcpVisitor<>(modules);
+        this.gradleVisitor = new GradleMcpVisitor<>(modules);
     }
 
     @Override
     public @Nullable Tree visit(@Nullable Tree tree, @NotNull P p) {
-        if (tree == null || aiMcpEnabled.get()) {
-            return tree; // Early return to avoid unnecessary processing
-        }
-
         if (!(tree instanceof SourceFile sourceFile)) {
             return tree; // Only process SourceFile nodes
         }
 
-        // Check project type only once per visit
-        if (BuildSystemDetector.isMavenProject(sourceFile)) {
-            return mavenVisitor.visit(tree, p); // Use cached Maven visitor
-        } else if (BuildSystemDetector.isGradleProject(sourceFile)) {
-            return gradleVisitor.visit(tree, p); // Use cached Gradle visitor
+        boolean maven = BuildSystemDetector.isMavenProject(sourceFile);
+        if (!maven && !BuildSystemDetector.isGradleProject(sourceFile)) {
+            return tree; // No specific processing for non-Maven/Gradle files
+        }
+        if (modules.isDecided(sourceFile.getSourcePath())) {
+            return tree; // The module is already enabled, avoid unnecessary processing
         }
 
-        return tree; // No specific processing for non-Maven/Gradle projects
+        modules.register(sourceFile);
+        if (assumeStarterAdded && McpModules.isWebModule(sourceFile)) {
+            modules.enable(sourceFile.getSourcePath());
+            return tree;
+        } else if (maven) {
+            return mavenVisitor.visit(tree, p); // Use cached Maven visitor
+        }
+        return gradleVisitor.visit(tree, p); // Use cached Gradle visitor
     }
 }
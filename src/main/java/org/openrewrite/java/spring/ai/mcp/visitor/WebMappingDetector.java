@@ -0,0 +1,314 @@
+package org.openrewrite.java.spring.ai.mcp.visitor;
+
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Preconditions;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.java.search.UsesType;
+import org.openrewrite.java.tree.Expression;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.Javadoc;
+import org.openrewrite.java.tree.Statement;
+import org.openrewrite.java.tree.TypeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Classifies the leading annotations of a method declaration in a single pass.
+ * Only the method's own annotations are read, so the method body is never walked.
+ */
+public class WebMappingDetector {
+
+    public static final String TOOL_ANNOTATION_FQN = "org.springframework.ai.tool.annotation.Tool";
+
+    private static final String WEB_BIND_PACKAGE = "org.springframework.web.bind.annotation";
+    private static final String REQUEST_MAPPING_FQN = WEB_BIND_PACKAGE + ".RequestMapping";
+
+    // Spring Web mapping annotations, precomputed once for a cheap set lookup
+    private static final Set<String> MAPPING_ANNOTATION_FQNS = Set.of(
+            WEB_BIND_PACKAGE + ".GetMapping",
+            WEB_BIND_PACKAGE + ".PostMapping",
+            WEB_BIND_PACKAGE + ".RequestMapping",
+            WEB_BIND_PACKAGE + ".PatchMapping",
+            WEB_BIND_PACKAGE + ".DeleteMapping",
+            WEB_BIND_PACKAGE + ".PutMapping"
+    );
+
+    // Spring Web annotations binding a parameter to the request
+    private static final Set<String> BINDING_ANNOTATION_FQNS = Set.of(
+            WEB_BIND_PACKAGE + ".RequestParam",
+            WEB_BIND_PACKAGE + ".RequestHeader",
+            WEB_BIND_PACKAGE + ".PathVariable",
+            WEB_BIND_PACKAGE + ".RequestBody"
+    );
+
+    /**
+     * Precondition which makes sure the source file declares a Spring Bean.
+     *
+     * @return the precondition visitor
+     */
+    public static TreeVisitor<?, ExecutionContext> springBeanChecker() {
+        return Preconditions.or(
+                new UsesType<>("org.springframework.stereotype.Controller", false),
+                new UsesType<>("org.springframework.stereotype.Component", false),
+                new UsesType<>("org.springframework.stereotype.Service", false),
+                new UsesType<>("org.springframework.stereotype.Repository", false),
+                new UsesType<>("org.springframework.web.bind.annotation.RestController", false)
+        );
+    }
+
+    /**
+     * Check whether the method has a Spring Web mapping annotation but no MCP {@code @Tool} annotation yet.
+     *
+     * @param method the method declaration
+     * @return true if the method should become an MCP tool
+     */
+    public static boolean isToolCandidate(J.MethodDeclaration method) {
+        boolean mapped = false;
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            String fqn = fullyQualifiedName(annotation);
+            if (TOOL_ANNOTATION_FQN.equals(fqn)) {
+                return false;
+            }
+            mapped |= fqn != null && MAPPING_ANNOTATION_FQNS.contains(fqn);
+        }
+        return mapped;
+    }
+
+    /**
+     * Check whether the method has a Spring Web mapping annotation but is not an MCP tool yet, neither by a {@code @Tool}
+     * annotation nor by a tool facade in its class.
+     *
+     * @param classDecl the class declaring the method
+     * @param method    the method declaration
+     * @return true if the method should become an MCP tool
+     */
+    public static boolean isToolCandidate(J.ClassDeclaration classDecl, J.MethodDeclaration method) {
+        return isToolCandidate(method) && !hasToolFacade(classDecl, method);
+    }
+
+    /**
+     * Check whether another method of the class is the tool of the mapping method: a {@code @Tool} method registered
+     * under the name of the mapping method, which delegates to it.
+     *
+     * @param classDecl the class declaring the method
+     * @param method    the mapping method
+     * @return true if the class has a tool facade of the method
+     */
+    public static boolean hasToolFacade(J.ClassDeclaration classDecl, J.MethodDeclaration method) {
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.MethodDeclaration facade && facade != method
+                    && method.getSimpleName().equals(facadedMethodName(facade))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the method is the tool facade of a mapping method of its class.
+     *
+     * @param classDecl the class declaring the method
+     * @param method    the method declaration
+     * @return true if the method is registered as a tool under the name of a mapping method of the class
+     */
+    public static boolean isToolFacade(J.ClassDeclaration classDecl, J.MethodDeclaration method) {
+        String facadedMethodName = facadedMethodName(method);
+        if (facadedMethodName == null) {
+            return false;
+        }
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.MethodDeclaration mapped && mapped != method
+                    && facadedMethodName.equals(mapped.getSimpleName()) && mappingAnnotation(mapped) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the tool name of a {@code @Tool} method without mapping annotation, when it differs from the method name
+     */
+    private static @Nullable String facadedMethodName(J.MethodDeclaration method) {
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            String fqn = fullyQualifiedName(annotation);
+            if (fqn != null && MAPPING_ANNOTATION_FQNS.contains(fqn)) {
+                return null;
+            }
+        }
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            if (TOOL_ANNOTATION_FQN.equals(fullyQualifiedName(annotation))
+                    && attribute(annotation, "name") instanceof J.Literal literal && literal.getValue() instanceof String name
+                    && !name.equals(method.getSimpleName())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the method is already annotated with the MCP {@code @Tool} annotation.
+     *
+     * @param method the method declaration
+     * @return true if the method has the {@code @Tool} annotation
+     */
+    public static boolean hasToolAnnotation(J.MethodDeclaration method) {
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            if (TOOL_ANNOTATION_FQN.equals(fullyQualifiedName(annotation))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the Spring Web mapping annotation of the method.
+     *
+     * @param method the method declaration
+     * @return the first mapping annotation, null if there is none
+     */
+    public static J.@Nullable Annotation mappingAnnotation(J.MethodDeclaration method) {
+        for (J.Annotation annotation : method.getLeadingAnnotations()) {
+            String fqn = fullyQualifiedName(annotation);
+            if (fqn != null && MAPPING_ANNOTATION_FQNS.contains(fqn)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the class level {@code @RequestMapping} annotation.
+     *
+     * @param classDecl the class declaration
+     * @return the {@code @RequestMapping} annotation, null if there is none
+     */
+    public static J.@Nullable Annotation requestMappingAnnotation(J.ClassDeclaration classDecl) {
+        for (J.Annotation annotation : classDecl.getLeadingAnnotations()) {
+            if (REQUEST_MAPPING_FQN.equals(fullyQualifiedName(annotation))) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the HTTP method of a mapping annotation, as reported in the tool inventory.
+     *
+     * @param mapping the mapping annotation
+     * @return the HTTP methods joined with {@code ,}, {@code ANY} if the mapping does not restrict them
+     */
+    public static String httpMethod(J.Annotation mapping) {
+        return String.join(",", httpMethods(mapping));
+    }
+
+    /**
+     * Get the HTTP methods of a mapping annotation, from its name or from the {@code method} attribute of
+     * {@code @RequestMapping}, which may list several.
+     *
+     * @param mapping the mapping annotation
+     * @return the HTTP methods, only {@code ANY} if the mapping does not restrict them
+     */
+    public static List<String> httpMethods(J.Annotation mapping) {
+        String simpleName = mapping.getSimpleName();
+        if (!"RequestMapping".equals(simpleName)) {
+            return List.of(simpleName.substring(0, simpleName.length() - "Mapping".length()).toUpperCase(Locale.ROOT));
+        }
+        Expression method = attribute(mapping, "method");
+        List<Expression> methods = method instanceof J.NewArray array
+                ? array.getInitializer() == null ? Collections.emptyList() : array.getInitializer()
+                : Collections.singletonList(method);
+        List<String> httpMethods = new ArrayList<>();
+        for (Expression element : methods) {
+            if (element instanceof J.FieldAccess fieldAccess) {
+                httpMethods.add(fieldAccess.getSimpleName());
+            } else if (element instanceof J.Identifier identifier) {
+                httpMethods.add(identifier.getSimpleName());
+            }
+        }
+        return httpMethods.isEmpty() ? List.of("ANY") : httpMethods;
+    }
+
+    /**
+     * Get the request path of a mapping annotation, from its {@code value} or {@code path} attribute.
+     *
+     * @param mapping the mapping annotation, null if there is none
+     * @return the first path, an empty string if the mapping has none
+     */
+    public static String path(J.@Nullable Annotation mapping) {
+        if (mapping == null) {
+            return "";
+        }
+        Expression path = attribute(mapping, "value");
+        if (path == null) {
+            path = attribute(mapping, "path");
+        }
+        if (path instanceof J.NewArray array && array.getInitializer() != null && !array.getInitializer().isEmpty()) {
+            path = array.getInitializer().get(0);
+        }
+        return path instanceof J.Literal literal && literal.getValue() instanceof String value ? value : "";
+    }
+
+    /**
+     * Check whether the request may leave out the parameter, because its {@code @RequestParam}, {@code @RequestHeader},
+     * {@code @PathVariable} or {@code @RequestBody} annotation has {@code required = false} or a {@code defaultValue}.
+     *
+     * @param parameter the parameter declaration
+     * @return true if the parameter is optional
+     */
+    public static boolean isOptionalParameter(J.VariableDeclarations parameter) {
+        for (J.Annotation annotation : parameter.getLeadingAnnotations()) {
+            String fqn = fullyQualifiedName(annotation);
+            if (fqn == null || !BINDING_ANNOTATION_FQNS.contains(fqn)) {
+                continue;
+            }
+            Expression required = attribute(annotation, "required");
+            if ((required instanceof J.Literal literal && Boolean.FALSE.equals(literal.getValue()))
+                    || attribute(annotation, "defaultValue") != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the description of a tool or a tool parameter from its Javadoc: the text lines, joined by commas.
+     *
+     * @param javaDocs the body of the doc comment, or the description of a {@code @param} tag
+     * @return the description, empty if the Javadoc has no text
+     */
+    public static String description(List<Javadoc> javaDocs) {
+        return javaDocs.stream()
+                .filter(doc -> doc instanceof Javadoc.Text)
+                .map(doc -> ((Javadoc.Text) doc).getText().trim())
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.joining(", "));
+    }
+
+    static @Nullable Expression attribute(J.Annotation annotation, String name) {
+        if (annotation.getArguments() == null) {
+            return null;
+        }
+        for (Expression argument : annotation.getArguments()) {
+            if (argument instanceof J.Assignment assignment) {
+                if (assignment.getVariable() instanceof J.Identifier variable && name.equals(variable.getSimpleName())) {
+                    return assignment.getAssignment();
+                }
+            } else if ("value".equals(name) && !(argument instanceof J.Empty)) {
+                return argument;
+            }
+        }
+        return null;
+    }
+
+    private static @Nullable String fullyQualifiedName(J.Annotation annotation) {
+        JavaType.FullyQualified type = TypeUtils.asFullyQualified(annotation.getType());
+        return type == null ? null : type.getFullyQualifiedName();
+    }
+}
@@ -1,41 +1,30 @@
 package org.openrewrite.java.spring.ai.mcp.visitor.gradle;
 
 import org.jetbrains.annotations.NotNull;
-import org.openrewrite.groovy.GroovyIsoVisitor;
-import org.openrewrite.java.MethodMatcher;
-import org.openrewrite.java.tree.J;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Pattern;
+import org.jetbrains.annotations.Nullable;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpModules;
 
-public class GradleMcpVisitor<P> extends GroovyIsoVisitor<P> {
+/**
+ * Detects the MCP server starter from the {@link GradleProject} marker of the build script.
+ * The marker holds the dependencies as Gradle resolved them, so version catalogs, {@code platform()} BOMs
+ * and the Kotlin DSL are covered without walking the script.
+ */
+public class GradleMcpVisitor<P> extends TreeVisitor<Tree, P> {
+    private final McpModules modules;
 
-    private static final Pattern MCP_DEPENDENCY_PATTERN =
-            Pattern.compile("org\\.springframework\\.ai:spring-ai-starter-mcp-server-webmvc");
-
-    private final AtomicBoolean aiMcpEnabled;
-
-    public GradleMcpVisitor(AtomicBoolean aiMcpEnabled) {
-        this.aiMcpEnabled = aiMcpEnabled;
+    public GradleMcpVisitor(McpModules modules) {
+        this.modules = modules;
     }
 
-    // Match DependencyHandlerSpec methods, but also ensure we check for the actual argument type.
-    private static final MethodMatcher DEPENDENCY_METHODS = new MethodMatcher(
-            "DependencyHandlerSpec *(..)"
-    );
-
     @Override
-    public J.@NotNull MethodInvocation visitMethodInvocation(J.@NotNull MethodInvocation method, @NotNull P p) {
-        if (DEPENDENCY_METHODS.matches(method)) {
-            method.getArguments().forEach(arg -> {
-                if (arg instanceof J.Literal) {
-                    // Check if the argument is a string literal that matches the dependency pattern
-                    String argumentValue = ((J.Literal) arg).getValue().toString();
-                    if (MCP_DEPENDENCY_PATTERN.matcher(argumentValue).find()) {
-                        aiMcpEnabled.set(true);
-                    }
-                }
-            });
+    public @Nullable Tree visit(@Nullable Tree tree, @NotNull P p) {
+        if (tree instanceof SourceFile sourceFile && McpModules.hasMcpStarter(sourceFile)) {
+            modules.enable(sourceFile.getSourcePath());
         }
-        return super.visitMethodInvocation(method, p);
+        return tree;
     }
 }
@@ -0,0 +1,106 @@
+package org.openrewrite.java.spring.ai.mcp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openrewrite.java.internal.parser.TypeTable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates the type table bundled in {@code META-INF/rewrite/classpath.tsv.zip}.
+ * The recipes load the Spring types they reference from this table instead of compiling source stubs.
+ * <p>
+ * Run it from the project root after changing {@link #ARTIFACTS}, with the test classpath:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.mainClass=org.openrewrite.java.spring.ai.mcp.TypeTableGenerator -Dexec.classpathScope=test
+ * </pre>
+ */
+@Slf4j
+public class TypeTableGenerator {
+
+    private static final Path TYPE_TABLE = Paths.get("src/main/resources/" + TypeTable.DEFAULT_RESOURCE_PATH);
+
+    /**
+     * The artifacts and the types (with their nested types) written to the type table
+     */
+    private static final List<Artifact> ARTIFACTS = List.of(
+            new Artifact("org.springframework.ai", "spring-ai-model", List.of(
+                    "org.springframework.ai.tool.annotation.Tool",
+                    "org.springframework.ai.tool.annotation.ToolParam",
+                    "org.springframework.ai.tool.ToolCallback",
+                    "org.springframework.ai.tool.ToolCallbackProvider",
+                    "org.springframework.ai.tool.definition.ToolDefinition",
+                    "org.springframework.ai.tool.metadata.ToolMetadata",
+                    "org.springframework.ai.tool.method.MethodToolCallbackProvider"
+            )),
+            new Artifact("org.springframework", "spring-context", List.of(
+                    "org.springframework.context.annotation.Bean"
+            ))
+    );
+
+    public static void main(String[] args) throws Exception {
+        Path typeTable = args.length > 0 ? Paths.get(args[0]) : TYPE_TABLE;
+        Files.createDirectories(typeTable.getParent());
+        try (OutputStream out = Files.newOutputStream(typeTable);
+             TypeTable.Writer writer = TypeTable.newWriter(out)) {
+            for (Artifact artifact : ARTIFACTS) {
+                Path jar = locateJar(artifact.types().get(0));
+                // Maven repository layout: <artifactId>/<version>/<artifactId>-<version>.jar
+                String version = jar.getParent().getFileName().toString();
+                Path filteredJar = filterJar(jar, artifact.types());
+                try {
+                    writer.jar(artifact.groupId(), artifact.artifactId(), version).write(filteredJar);
+                } finally {
+                    Files.delete(filteredJar);
+                }
+            }
+        }
+        log.info("Wrote {}", typeTable.toAbsolutePath());
+    }
+
+    private static Path locateJar(String type) throws ClassNotFoundException, URISyntaxException {
+        return Paths.get(Class.forName(type).getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    /**
+     * Copy only the listed types into a temporary jar, so the table does not carry the whole artifact.
+     */
+    private static Path filterJar(Path jar, List<String> types) throws IOException {
+        Path filtered = Files.createTempFile("type-table", ".jar");
+        try (JarFile source = new JarFile(jar.toFile());
+             JarOutputStream target = new JarOutputStream(Files.newOutputStream(filtered))) {
+            for (JarEntry entry : source.stream().toList()) {
+                if (isIncluded(entry.getName(), types)) {
+                    target.putNextEntry(new JarEntry(entry.getName()));
+                    try (InputStream in = source.getInputStream(entry)) {
+                        in.transferTo(target);
+                    }
+                    target.closeEntry();
+                }
+            }
+        }
+        return filtered;
+    }
+
+    private static boolean isIncluded(String entryName, List<String> types) {
+        for (String type : types) {
+            String classFile = type.replace('.', '/');
+            if (entryName.equals(classFile + ".class") || entryName.startsWith(classFile + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Artifact(String groupId, String artifactId, List<String> types) {
+    }
+}
@@ -1,15 +1,33 @@
 package org.openrewrite.java.spring.ai.mcp.recipe;
 
+import org.intellij.lang.annotations.Language;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
 import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.java.spring.ai.mcp.table.McpRecipeFileTimings;
+import org.openrewrite.java.spring.ai.mcp.table.VirtualThreadPinning;
 import org.openrewrite.maven.MavenExecutionContextView;
+import org.openrewrite.maven.MavenIsoVisitor;
+import org.openrewrite.maven.MavenParser;
 import org.openrewrite.maven.MavenSettings;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
+import org.openrewrite.xml.tree.Xml;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.openrewrite.gradle.Assertions.buildGradle;
+import static org.openrewrite.java.Assertions.java;
 import static org.openrewrite.java.spring.ai.mcp.recipe.AddToolAnnotationToMappingMethodRecipeTest.pom;
+import static org.openrewrite.java.spring.ai.mcp.recipe.AddToolAnnotationToMappingMethodRecipeTest.pomWithoutMcp;
+import static org.openrewrite.java.spring.ai.mcp.recipe.AddToolAnnotationToMappingMethodRecipeTest.webPomWithoutMcp;
 import static org.openrewrite.maven.Assertions.pomXml;
 import static org.openrewrite.properties.Assertions.properties;
+import static org.openrewrite.test.RewriteTest.toRecipe;
 import static org.openrewrite.yaml.Assertions.yaml;
 
 class AddMcpServerConfigRecipeTest implements RewriteTest {
@@ -17,7 +35,7 @@ class AddMcpServerConfigRecipeTest implements RewriteTest {
     public void defaults(RecipeSpec spec) {
         InMemoryExecutionContext ctx = new InMemoryExecutionContext();
         MavenExecutionContextView context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
-        spec.recipe(new AddMcpServerConfigRecipe(null))
+        spec.recipe(new AddMcpServerConfigRecipe(null, null, null, null, null, null, null, null, null, null))
                 .executionContext(context);
     }
 
@@ -37,6 +55,50 @@ class AddMcpServerConfigRecipeTest implements RewriteTest {
         );
     }
 
+    @Test
+    public void recordFileTimings() {
+        rewriteRun(
+                spec -> spec.dataTable(McpRecipeFileTimings.Row.class, rows -> {
+                    Assertions.assertEquals(Set.of(
+                                    List.of("pom.xml", McpRecipeFileTimings.SCANNING),
+                                    List.of("src/main/resources/application.properties", McpRecipeFileTimings.SCANNING),
+                                    List.of("pom.xml", McpRecipeFileTimings.EDITING),
+                                    List.of("src/main/resources/application.properties", McpRecipeFileTimings.EDITING)),
+                            rows.stream().map(row -> List.of(row.getSourcePath(), row.getPhase())).collect(Collectors.toSet()));
+                    Assertions.assertEquals(4, rows.size());
+                    Assertions.assertTrue(rows.stream().allMatch(row -> AddMcpServerConfigRecipe.class.getName().equals(row.getRecipe())
+                            && row.getTimeNs() >= 0));
+                }),
+                pomXml(pom),
+                properties("""
+                        server.port=8080
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("src/main/resources/application.properties"))
+        );
+    }
+
+    @Test
+    public void addOnlyMissingProperties() {
+        rewriteRun(
+                pomXml(pom),
+                properties("""
+                        spring.ai.mcp.server.name=custom-server
+                        server.port=8080
+                        """, """
+                        spring.ai.mcp.server.name=custom-server
+                        server.port=8080
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("application.properties"))
+        );
+    }
+
     @Test
     public void addToYamlSuccess() {
         rewriteRun(
@@ -58,4 +120,297 @@ class AddMcpServerConfigRecipeTest implements RewriteTest {
                         """, spec -> spec.path("src/main/resources/application.yml"))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void addAsyncServerToWebFluxModule() {
+        rewriteRun(
+                buildGradle(FindWebFluxModuleRecipeTest.buildScript, spec -> spec.markers(FindWebFluxModuleRecipeTest.gradleProject(
+                        "org.springframework:spring-webflux", "org.springframework.ai:spring-ai-starter-mcp-server-webflux"))),
+                properties("""
+                        server.port=8080
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=ASYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("src/main/resources/application.properties"))
+        );
+    }
+
+    @Test
+    public void enableVirtualThreadsAndReportPinning() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, null, true, 200, null, null, null, null, null, null))
+                        .dataTable(VirtualThreadPinning.Row.class, rows -> Assertions.assertEquals(counterServicePinning, rows)),
+                pomXml(pom),
+                java(counterService),
+                yaml("""
+                        server:
+                          port: 8080
+                        """, """
+                        server:
+                          port: 8080
+                        spring:
+                          ai:
+                            mcp:
+                              server:
+                                name: webmvc-mcp-server
+                                version: 1.0.0
+                                type: SYNC
+                                sse-message-endpoint: /mcp/messages
+                          threads:
+                            virtual:
+                              enabled: true
+                          task:
+                            execution:
+                              simple:
+                                concurrency-limit: 200
+                        """, spec -> spec.path("src/main/resources/application.yml"))
+        );
+    }
+
+    @Test
+    public void reportPinningOnceWhenStarterIsAddedInSameRun() {
+        rewriteRun(
+                spec -> spec.recipes(toRecipe(() -> new MavenIsoVisitor<ExecutionContext>() {
+                                    @Override
+                                    public Xml.@NotNull Document visitDocument(Xml.@NotNull Document document, @NotNull ExecutionContext ctx) {
+                                        // Adds the MCP server starter in the first cycle, like UpdateBuildFiles
+                                        if (document.printAll().contains("spring-ai-starter-mcp-server-webmvc")) {
+                                            return document;
+                                        }
+                                        return MavenParser.builder().build().parse(ctx, pom.trim())
+                                                .map(Xml.Document.class::cast)
+                                                .findFirst()
+                                                .orElseThrow()
+                                                .withId(document.getId())
+                                                .withSourcePath(document.getSourcePath());
+                                    }
+                                }),
+                                new AddMcpServerConfigRecipe(null, null, true, null, null, null, null, null, null, null))
+                        .cycles(3)
+                        .expectedCyclesThatMakeChanges(2)
+                        .dataTable(VirtualThreadPinning.Row.class, rows -> Assertions.assertEquals(counterServicePinning, rows)),
+                pomXml(pomWithoutMcp, pom),
+                java(counterService),
+                properties("""
+                        server.port=8080
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        spring.threads.virtual.enabled=true
+                        """, spec -> spec.path("src/main/resources/application.properties"))
+        );
+    }
+
+    @Test
+    public void configureToolCache() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, null, null, null, "maximumSize=1000,expireAfterWrite=10m", null, null, null, null, null)),
+                pomXml(pom),
+                properties("""
+                        server.port=8080
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        spring.cache.caffeine.spec=maximumSize=1000,expireAfterWrite=10m
+                        spring.cache.type=caffeine
+                        """, spec -> spec.path("src/main/resources/application.properties"))
+        );
+    }
+
+    @Test
+    public void configureToolBulkheads() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, null, null, null, null, 10, "30s", null, null, null)),
+                pomXml(pom),
+                yaml("""
+                        server:
+                          port: 8080
+                        """, """
+                        server:
+                          port: 8080
+                        spring:
+                          ai:
+                            mcp:
+                              server:
+                                name: webmvc-mcp-server
+                                version: 1.0.0
+                                type: SYNC
+                                sse-message-endpoint: /mcp/messages
+                                tools:
+                                  default:
+                                    max-concurrent-calls: 10
+                                    timeout: 30s
+                        """, spec -> spec.path("src/main/resources/application.yml"))
+        );
+    }
+
+    @Test
+    public void publishToolLatencyHistograms() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, null, null, null, null, null, null, true, null, null)),
+                pomXml(pom),
+                properties("""
+                        server.port=8080
+                        """, """
+                        management.metrics.distribution.percentiles-histogram.mcp.tool.call=true
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("src/main/resources/application.properties")),
+                yaml("""
+                        server:
+                          port: 8080
+                        """, """
+                        server:
+                          port: 8080
+                        spring:
+                          ai:
+                            mcp:
+                              server:
+                                name: webmvc-mcp-server
+                                version: 1.0.0
+                                type: SYNC
+                                sse-message-endpoint: /mcp/messages
+                        management:
+                          metrics:
+                            distribution:
+                              percentiles-histogram:
+                                "[mcp.tool.call]": true
+                        """, spec -> spec.path("src/main/resources/application.yml"))
+        );
+    }
+
+    @Test
+    public void serveStatelessStreamableHttp() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, null, null, null, null, null, null, null, "STATELESS", null)),
+                pomXml(pom),
+                properties("""
+                        server.port=8080
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.protocol=STATELESS
+                        spring.ai.mcp.server.streamable-http.mcp-endpoint=/mcp
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("src/main/resources/application.properties")),
+                yaml("""
+                        server:
+                          port: 8080
+                        """, """
+                        server:
+                          port: 8080
+                        spring:
+                          ai:
+                            mcp:
+                              server:
+                                name: webmvc-mcp-server
+                                version: 1.0.0
+                                type: SYNC
+                                protocol: STATELESS
+                                streamable-http:
+                                  mcp-endpoint: /mcp
+                        """, spec -> spec.path("src/main/resources/application.yml"))
+        );
+    }
+
+    @Test
+    public void switchToStreamableHttpOnCustomEndpoint() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, null, null, null, null, null, null, null, "STREAMABLE", "/api/mcp")),
+                pomXml(pom),
+                properties("""
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.protocol=STREAMABLE
+                        spring.ai.mcp.server.streamable-http.mcp-endpoint=/api/mcp
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("src/main/resources/application.properties")),
+                yaml("""
+                        spring:
+                          ai:
+                            mcp:
+                              server:
+                                name: webmvc-mcp-server
+                                version: 1.0.0
+                                type: SYNC
+                                sse-message-endpoint: /mcp/messages
+                        """, """
+                        spring:
+                          ai:
+                            mcp:
+                              server:
+                                name: webmvc-mcp-server
+                                version: 1.0.0
+                                type: SYNC
+                                protocol: STREAMABLE
+                                streamable-http:
+                                  mcp-endpoint: /api/mcp
+                        """, spec -> spec.path("src/main/resources/application.yml"))
+        );
+    }
+
+    @Test
+    public void addInOnePass() {
+        rewriteRun(
+                spec -> spec.recipe(new AddMcpServerConfigRecipe(null, true, null, null, null, null, null, null, null, null)),
+                pomXml(webPomWithoutMcp),
+                properties("""
+                        server.port=8080
+                        """, """
+                        server.port=8080
+                        spring.ai.mcp.server.name=webmvc-mcp-server
+                        spring.ai.mcp.server.sse-message-endpoint=/mcp/messages
+                        spring.ai.mcp.server.type=SYNC
+                        spring.ai.mcp.server.version=1.0.0
+                        """, spec -> spec.path("src/main/resources/application.properties"))
+        );
+    }
+
+    @Language("java")
+    private static final String counterService = """
+            package com.atbug.rewrite.test.service;
+
+            import org.springframework.stereotype.Service;
+
+            @Service
+            public class CounterService {
+                private int count;
+
+                public synchronized int increment() {
+                    return ++count;
+                }
+
+                public void reset() {
+                    synchronized (this) {
+                        count = 0;
+                    }
+                }
+            }
+            """;
+
+    private static final List<VirtualThreadPinning.Row> counterServicePinning = List.of(
+            new VirtualThreadPinning.Row("com/atbug/rewrite/test/service/CounterService.java",
+                    "com.atbug.rewrite.test.service.CounterService", "increment", "synchronized method"),
+            new VirtualThreadPinning.Row("com/atbug/rewrite/test/service/CounterService.java",
+                    "com.atbug.rewrite.test.service.CounterService", "reset", "synchronized block"));
+}
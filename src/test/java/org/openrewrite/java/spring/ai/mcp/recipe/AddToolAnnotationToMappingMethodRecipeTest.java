@@ -1,21 +1,37 @@
 package org.openrewrite.java.spring.ai.mcp.recipe;
 
 import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Tree;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.java.spring.ai.mcp.table.McpRecipeFileTimings;
+import org.openrewrite.java.spring.ai.mcp.table.McpToolInventory;
+import org.openrewrite.java.JavaParser;
 import org.openrewrite.maven.MavenExecutionContextView;
 import org.openrewrite.maven.MavenSettings;
+import org.openrewrite.maven.tree.Dependency;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.openrewrite.gradle.Assertions.buildGradle;
 import static org.openrewrite.java.Assertions.java;
+import static org.openrewrite.java.Assertions.mavenProject;
+import static org.openrewrite.java.Assertions.srcMainJava;
 import static org.openrewrite.maven.Assertions.pomXml;
+import static org.openrewrite.properties.Assertions.properties;
 
 public class AddToolAnnotationToMappingMethodRecipeTest implements RewriteTest {
     @Override
     public void defaults(RecipeSpec spec) {
-        spec.recipe(new AddToolAnnotationToMappingMethodRecipe());
+        spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, null));
     }
 
     @Test
@@ -30,6 +46,830 @@ public class AddToolAnnotationToMappingMethodRecipeTest implements RewriteTest {
         );
     }
 
+    @Test
+    public void convergeInSingleCycle() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, null))
+                        .executionContext(context)
+                        .cycles(2)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(pom),
+                java(originHelloController, expectedHelloTool),
+                java(originUserController, expectedUserTool)
+        );
+    }
+
+    @Test
+    public void addAnnotationsToEveryParameter() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.executionContext(context),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class SearchController {
+                        
+                            /**
+                             * search the "catalog"
+                             * @param query the search query
+                             * @param page the page number
+                             */
+                            @GetMapping("/search")
+                            public String search(@RequestParam String query, final int page, long size) {
+                                return query + page + size;
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class SearchController {
+                        
+                            /**
+                             * search the "catalog"
+                             * @param query the search query
+                             * @param page the page number
+                             */
+                            @GetMapping("/search")
+                            @Tool(description = "search the \\"catalog\\"")
+                            public String search(@RequestParam @ToolParam(description = "the search query") String query, @ToolParam(description = "the page number") final int page, @ToolParam(description = "size") long size) {
+                                return query + page + size;
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void escapeDescriptionsAndMarkOptionalParameters() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.executionContext(context),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestHeader;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class SearchController {
+                        
+                            /**
+                             * search\tthe catalog in C:\\catalog
+                             * @param query the search query
+                             * @param sort the sort order
+                             * @param locale the locale
+                             */
+                            @GetMapping("/search")
+                            public String search(@RequestParam String query, @RequestParam(defaultValue = "name") String sort, @RequestHeader(name = "Accept-Language", required = false) String locale) {
+                                return query + sort + locale;
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestHeader;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class SearchController {
+                        
+                            /**
+                             * search\tthe catalog in C:\\catalog
+                             * @param query the search query
+                             * @param sort the sort order
+                             * @param locale the locale
+                             */
+                            @GetMapping("/search")
+                            @Tool(description = "search\\tthe catalog in C:\\\\catalog")
+                            public String search(@RequestParam @ToolParam(description = "the search query") String query, @RequestParam(defaultValue = "name") @ToolParam(description = "the sort order", required = false) String sort, @RequestHeader(name = "Accept-Language", required = false) @ToolParam(description = "the locale", required = false) String locale) {
+                                return query + sort + locale;
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void cacheGetTools() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, true, null, null, null, null, null, null, null, null))
+                        .executionContext(context),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.PostMapping;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class StockController {
+                        
+                            /**
+                             * get the stock of an item
+                             * @param item the item name
+                             */
+                            @GetMapping("/stock")
+                            public int stock(@RequestParam String item) {
+                                return 0;
+                            }
+                        
+                            /**
+                             * order an item
+                             * @param item the item name
+                             */
+                            @PostMapping("/order")
+                            public void order(@RequestParam String item) {
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.cache.annotation.Cacheable;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.PostMapping;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class StockController {
+                        
+                            /**
+                             * get the stock of an item
+                             * @param item the item name
+                             */
+                            @GetMapping("/stock")
+                            @Tool(description = "get the stock of an item")
+                            @Cacheable(cacheNames = "com.atbug.rewrite.test.controller.StockController.stock", sync = true)
+                            public int stock(@RequestParam @ToolParam(description = "the item name") String item) {
+                                return 0;
+                            }
+                        
+                            /**
+                             * order an item
+                             * @param item the item name
+                             */
+                            @PostMapping("/order")
+                            @Tool(description = "order an item")
+                            public void order(@RequestParam @ToolParam(description = "the item name") String item) {
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void paginateCollectionTools() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, 20, 50, null, null, null, null, null, null))
+                        .executionContext(context),
+                pomXml(pom),
+                java(originUserController, paginatedUserTool)
+        );
+    }
+
+    @Test
+    public void paginatePageableTools() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, 20, null, null, null, null, null, null, null))
+                        .executionContext(context)
+                        .parser(JavaParser.fromJavaVersion().classpath(JavaParser.runtimeClasspath()).dependsOn(
+                                """
+                                        package org.springframework.data.domain;
+                                        public interface Pageable {}
+                                        """,
+                                """
+                                        package org.springframework.data.domain;
+                                        public interface Page<T> {}
+                                        """)),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.data.domain.Page;
+                        import org.springframework.data.domain.Pageable;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class OrderController {
+                        
+                            /**
+                             * find the orders of a customer
+                             * @param customer the customer name
+                             */
+                            @GetMapping("/orders")
+                            public Page<String> findOrders(String customer, Pageable pageable) {
+                                return null;
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.beans.factory.annotation.Value;
+                        import org.springframework.data.domain.Page;
+                        import org.springframework.data.domain.PageRequest;
+                        import org.springframework.data.domain.Pageable;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class OrderController {
+                        
+                            /**
+                             * find the orders of a customer
+                             * @param customer the customer name
+                             */
+                            @GetMapping("/orders")
+                            public Page<String> findOrders(String customer, Pageable pageable) {
+                                return null;
+                            }
+                        
+                            @Tool(name = "findOrders", description = "find the orders of a customer")
+                            public Page<String> findOrdersPage(@ToolParam(description = "the customer name") String customer, @ToolParam(description = "The zero-based index of the page, 0 by default", required = false) Integer page, @ToolParam(description = "The number of elements of the page, 20 by default", required = false) Integer size) {
+                                return findOrders(customer, toolPageable(page, size, maxToolResultSize));
+                            }
+                        
+                            @Value("${mcp.tool.max-result-size:100}")
+                            private int maxToolResultSize;
+                        
+                            private static Pageable toolPageable(Integer page, Integer size, int maxResultSize) {
+                                return PageRequest.of(Math.max(page == null ? 0 : page, 0), Math.min(size == null || size < 1 ? 20 : size, maxResultSize));
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void paginatePageToolsWithProxyAnnotations() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, 20, null, null, null, null, null, null, null))
+                        .executionContext(context)
+                        .parser(JavaParser.fromJavaVersion().classpath(JavaParser.runtimeClasspath()).dependsOn(
+                                """
+                                        package org.springframework.data.domain;
+                                        public interface Page<T> { java.util.List<T> getContent(); }
+                                        """,
+                                """
+                                        package org.springframework.security.access.prepost;
+                                        public @interface PreAuthorize { String value(); }
+                                        """,
+                                """
+                                        package org.springframework.transaction.annotation;
+                                        public @interface Transactional { boolean readOnly() default false; }
+                                        """)),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.data.domain.Page;
+                        import org.springframework.security.access.prepost.PreAuthorize;
+                        import org.springframework.transaction.annotation.Transactional;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class OrderController {
+                        
+                            @GetMapping("/orders")
+                            @PreAuthorize("hasRole('ADMIN')")
+                            @Transactional(readOnly = true)
+                            public Page<String> findOrders() {
+                                return null;
+                            }
+                        
+                            public int findOrdersPage() {
+                                return 0;
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.beans.factory.annotation.Value;
+                        import org.springframework.data.domain.Page;
+                        import org.springframework.security.access.prepost.PreAuthorize;
+                        import org.springframework.transaction.annotation.Transactional;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        import java.util.List;
+                        
+                        @RestController
+                        public class OrderController {
+                        
+                            @GetMapping("/orders")
+                            @PreAuthorize("hasRole('ADMIN')")
+                            @Transactional(readOnly = true)
+                            public Page<String> findOrders() {
+                                return null;
+                            }
+                        
+                            @Tool(name = "findOrders", description = "findOrders")
+                            @PreAuthorize("hasRole('ADMIN')")
+                            @Transactional(readOnly = true)
+                            public List<String> findOrdersToolPage(@ToolParam(description = "The zero-based index of the page, 0 by default", required = false) Integer page, @ToolParam(description = "The number of elements of the page, 20 by default", required = false) Integer size) {
+                                return toolPageContent(findOrders(), page, size, maxToolResultSize);
+                            }
+                        
+                            public int findOrdersPage() {
+                                return 0;
+                            }
+                        
+                            @Value("${mcp.tool.max-result-size:100}")
+                            private int maxToolResultSize;
+                        
+                            private static <T> List<T> toolPageContent(Page<T> items, Integer page, Integer size, int maxResultSize) {
+                                if (items == null) {
+                                    return null;
+                                }
+                                int pageSize = Math.min(size == null || size < 1 ? 20 : size, maxResultSize);
+                                return items.getContent().stream().skip((long) Math.max(page == null ? 0 : page, 0) * pageSize).limit(pageSize).toList();
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void keepRequestContractOfPaginatedEndpoints() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, 20, null, null, null, null, null, null, null))
+                        .executionContext(context)
+                        .parser(JavaParser.fromJavaVersion().classpath(JavaParser.runtimeClasspath()).dependsOn(
+                                """
+                                        package org.springframework.data.domain;
+                                        public interface Pageable {}
+                                        """,
+                                """
+                                        package org.springframework.data.domain;
+                                        public interface Page<T> {}
+                                        """,
+                                """
+                                        package org.springframework.data.web;
+                                        public @interface PageableDefault { int size() default 10; String[] sort() default {}; }
+                                        """)),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.data.domain.Page;
+                        import org.springframework.data.domain.Pageable;
+                        import org.springframework.data.web.PageableDefault;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class OrderController {
+                        
+                            @GetMapping("/orders")
+                            public Page<String> findOrders(@RequestParam(required = false) String customer, @PageableDefault(size = 5, sort = "date") Pageable pageable) {
+                                return null;
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.beans.factory.annotation.Value;
+                        import org.springframework.data.domain.Page;
+                        import org.springframework.data.domain.PageRequest;
+                        import org.springframework.data.domain.Pageable;
+                        import org.springframework.data.web.PageableDefault;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestParam;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class OrderController {
+                        
+                            @GetMapping("/orders")
+                            public Page<String> findOrders(@RequestParam(required = false) String customer, @PageableDefault(size = 5, sort = "date") Pageable pageable) {
+                                return null;
+                            }
+                        
+                            @Tool(name = "findOrders", description = "findOrders")
+                            public Page<String> findOrdersPage(@ToolParam(description = "customer", required = false) String customer, @ToolParam(description = "The zero-based index of the page, 0 by default", required = false) Integer page, @ToolParam(description = "The number of elements of the page, 20 by default", required = false) Integer size) {
+                                return findOrders(customer, toolPageable(page, size, maxToolResultSize));
+                            }
+                        
+                            @Value("${mcp.tool.max-result-size:100}")
+                            private int maxToolResultSize;
+                        
+                            private static Pageable toolPageable(Integer page, Integer size, int maxResultSize) {
+                                return PageRequest.of(Math.max(page == null ? 0 : page, 0), Math.min(size == null || size < 1 ? 20 : size, maxResultSize));
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void unwrapToolResults() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, true, null, null, null, null, null))
+                        .executionContext(context),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.http.ResponseEntity;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.PathVariable;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        public class BookController {
+                        
+                            /**
+                             * get a book by its id
+                             * @param id the book id
+                             */
+                            @GetMapping("/books/{id}")
+                            public ResponseEntity<String> getBook(@PathVariable Long id) {
+                                return ResponseEntity.ok("book");
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.ai.tool.execution.DefaultToolCallResultConverter;
+                        import org.springframework.ai.tool.execution.ToolCallResultConverter;
+                        import org.springframework.http.HttpEntity;
+                        import org.springframework.http.ResponseEntity;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.PathVariable;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        import java.lang.reflect.Type;
+                        import java.util.Optional;
+                        
+                        @RestController
+                        public class BookController {
+                        
+                            /**
+                             * get a book by its id
+                             * @param id the book id
+                             */
+                            @GetMapping("/books/{id}")
+                            @Tool(description = "get a book by its id", resultConverter = McpToolResultConverter.class)
+                            public ResponseEntity<String> getBook(@PathVariable @ToolParam(description = "the book id") Long id) {
+                                return ResponseEntity.ok("book");
+                            }
+                        
+                            public static class McpToolResultConverter implements ToolCallResultConverter {
+                                private static final ToolCallResultConverter DELEGATE = new DefaultToolCallResultConverter();
+                        
+                                @Override
+                                public String convert(Object result, Type returnType) {
+                                    Object body = result instanceof HttpEntity<?> entity ? entity.getBody() : result;
+                                    if (body instanceof Optional<?> optional) {
+                                        body = optional.orElse(null);
+                                    }
+                                    if (result instanceof ResponseEntity<?> response && !response.getStatusCode().is2xxSuccessful()) {
+                                        return "{\\"status\\":" + response.getStatusCode().value() + ",\\"error\\":" + DELEGATE.convert(body, null) + "}";
+                                    }
+                                    return DELEGATE.convert(body, null);
+                                }
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void filterToolsByMethodAndPath() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null,
+                                List.of("get"), null, List.of("/internal/**"), List.of("com.atbug.rewrite.test"), List.of("*Controller")))
+                        .executionContext(context),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.PostMapping;
+                        import org.springframework.web.bind.annotation.RequestMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+                        
+                            @GetMapping("/{id}")
+                            public String get(String id) {
+                                return id;
+                            }
+                        
+                            @PostMapping
+                            public String create(String item) {
+                                return item;
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.ai.tool.annotation.ToolParam;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.PostMapping;
+                        import org.springframework.web.bind.annotation.RequestMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        @RequestMapping("/orders")
+                        public class OrderController {
+                        
+                            @GetMapping("/{id}")
+                            @Tool(description = "get")
+                            public String get(@ToolParam(description = "id") String id) {
+                                return id;
+                            }
+                        
+                            @PostMapping
+                            public String create(String item) {
+                                return item;
+                            }
+                        }
+                        """),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestMapping;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        @RequestMapping("/internal/")
+                        public class InternalController {
+                        
+                            @GetMapping
+                            public String health() {
+                                return "UP";
+                            }
+                        }
+                        """),
+                java("""
+                        package com.atbug.rewrite.test.service;
+                        
+                        import org.springframework.stereotype.Component;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        
+                        @Component
+                        public class StatusEndpoint {
+                        
+                            @GetMapping("/status")
+                            public String status() {
+                                return "UP";
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void filterToolsByGlobsAndEveryHttpMethod() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null,
+                                List.of("GET"), List.of("/api/**/users"), null, null, List.of("com.atbug.rewrite.test.controller.**.*Controller")))
+                        .executionContext(context),
+                pomXml(pom),
+                java("""
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestMapping;
+                        import org.springframework.web.bind.annotation.RequestMethod;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        @RequestMapping("/api")
+                        public class AccountController {
+                        
+                            @RequestMapping(value = "/users", method = {RequestMethod.POST, RequestMethod.GET})
+                            public String users() {
+                                return "[]";
+                            }
+                        
+                            @GetMapping("/orders")
+                            public String orders() {
+                                return "[]";
+                            }
+                        }
+                        """, """
+                        package com.atbug.rewrite.test.controller;
+                        
+                        import org.springframework.ai.tool.annotation.Tool;
+                        import org.springframework.web.bind.annotation.GetMapping;
+                        import org.springframework.web.bind.annotation.RequestMapping;
+                        import org.springframework.web.bind.annotation.RequestMethod;
+                        import org.springframework.web.bind.annotation.RestController;
+                        
+                        @RestController
+                        @RequestMapping("/api")
+                        public class AccountController {
+                        
+                            @RequestMapping(value = "/users", method = {RequestMethod.POST, RequestMethod.GET})
+                            @Tool(description = "users")
+                            public String users() {
+                                return "[]";
+                            }
+                        
+                            @GetMapping("/orders")
+                            public String orders() {
+                                return "[]";
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void skipClassesUnchangedSinceManifest() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, "mcp-tools.properties", null, null, null, null, null, null, null, null, null))
+                        .executionContext(context),
+                pomXml(pom),
+                // The tools of HelloController were removed by hand after the migration recorded in the manifest
+                properties(migratedHelloManifest, spec -> spec.path("mcp-tools.properties")),
+                java(originHelloController),
+                java(originUserController, expectedUserTool)
+        );
+    }
+
+    @Test
+    public void migrateClassesAgainWhenOptionsChange() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(null, "mcp-tools.properties", null, null, null, null, null, null, null,
+                                List.of("com.atbug.rewrite.test"), null))
+                        .executionContext(context),
+                pomXml(pom),
+                // Recorded without the packages filter, so no entry of the manifest is trusted
+                properties(migratedHelloManifest, spec -> spec.path("mcp-tools.properties")),
+                java(originHelloController, expectedHelloTool),
+                java(originUserController, expectedUserTool)
+        );
+    }
+
+    @Test
+    public void addAnnotationsInOnePass() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(true, null, null, null, null, null, null, null, null, null, null))
+                        .executionContext(context),
+                pomXml(webPomWithoutMcp),
+                java(originUserController, expectedUserTool)
+        );
+    }
+
+    @Test
+    public void addAnnotationsInOnePassOnlyToWebModules() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipe(new AddToolAnnotationToMappingMethodRecipe(true, null, null, null, null, null, null, null, null, null, null))
+                        .executionContext(context),
+                mavenProject("web",
+                        pomXml(webPomWithoutMcp),
+                        srcMainJava(java(originUserController, expectedUserTool))),
+                // A library module gets no MCP server starter from UpdateBuildFiles
+                mavenProject("library",
+                        pomXml(pomWithoutMcp.replace("web-to-mcp", "library")),
+                        srcMainJava(java(originHelloController)))
+        );
+    }
+
+    @Test
+    public void skipWithoutDependencyUnlessOnePass() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.executionContext(context),
+                pomXml(pomWithoutMcp),
+                java(originUserController)
+        );
+    }
+
+    @Test
+    public void addAnnotationsOnlyToModulesWithDependency() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.executionContext(context),
+                mavenProject("mcp",
+                        pomXml(pom),
+                        srcMainJava(java(originUserController, expectedUserTool))),
+                mavenProject("legacy",
+                        pomXml(pomWithoutMcp.replace("web-to-mcp", "legacy")),
+                        srcMainJava(java(originHelloController)))
+        );
+    }
+
+    @Test
+    public void addAnnotationsWithGradleDependency() {
+        // The starter comes from a version catalog, so only the resolved GradleProject marker knows about it
+        Dependency starter = Dependency.builder()
+                .gav(new GroupArtifactVersion("org.springframework.ai", "spring-ai-starter-mcp-server-webmvc", null))
+                .build();
+        GradleProject gradleProject = GradleProject.builder()
+                .id(Tree.randomId())
+                .group("com.atbug.rewrite")
+                .name("web-to-mcp")
+                .nameToConfiguration(Map.of("implementation", new GradleDependencyConfiguration(
+                        "implementation", null, true, false, false, List.of(), List.of(starter), List.of(), null, null)))
+                .build();
+        rewriteRun(
+                buildGradle("""
+                        plugins {
+                            id 'java'
+                        }
+                        dependencies {
+                            implementation libs.spring.ai.mcp.server
+                        }
+                        """, spec -> spec.markers(gradleProject)),
+                java(originUserController, expectedUserTool)
+        );
+    }
+
+    @Test
+    public void reportToolsAndFileTimings() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.executionContext(context)
+                        .dataTable(McpToolInventory.Row.class, rows -> Assertions.assertEquals(List.of(
+                                new McpToolInventory.Row("com/atbug/rewrite/test/controller/HelloController.java",
+                                        "com.atbug.rewrite.test.controller.HelloController", "hello", "GET", "/hi", 0, 5),
+                                new McpToolInventory.Row("com/atbug/rewrite/test/controller/HelloController.java",
+                                        "com.atbug.rewrite.test.controller.HelloController", "helloTo", "ANY", "/hi/{name}", 1, 20)
+                        ), rows))
+                        .dataTable(McpRecipeFileTimings.Row.class, rows -> {
+                            Assertions.assertTrue(rows.stream().anyMatch(row -> McpRecipeFileTimings.SCANNING.equals(row.getPhase())
+                                    && "pom.xml".equals(row.getSourcePath())));
+                            Assertions.assertTrue(rows.stream().anyMatch(row -> McpRecipeFileTimings.EDITING.equals(row.getPhase())
+                                    && row.getSourcePath().endsWith("HelloController.java")));
+                        }),
+                pomXml(pom),
+                java(originHelloController, expectedHelloTool)
+        );
+    }
+
     @Test
     public void skipDueToNoDependency() {
         rewriteRun(
@@ -121,8 +961,8 @@ public class AddToolAnnotationToMappingMethodRecipeTest implements RewriteTest {
             @RestController
             public class HelloController {
             
-                @GetMapping("/hi")
-                @Tool(description = "hello")
+            	@GetMapping("/hi")
+            	@Tool(description = "hello")
                 public String hello() {
                     return "Hello, OpenRewrite";
                 }
@@ -215,6 +1055,94 @@ public class AddToolAnnotationToMappingMethodRecipeTest implements RewriteTest {
             }
             """;
 
+    @Language("java")
+    public static final String paginatedUserTool = """
+            package com.atbug.rewrite.test.controller;
+            
+            import org.springframework.ai.tool.annotation.Tool;
+            import org.springframework.ai.tool.annotation.ToolParam;
+            import org.springframework.beans.factory.annotation.Value;
+            import org.springframework.web.bind.annotation.GetMapping;
+            import org.springframework.web.bind.annotation.PostMapping;
+            import org.springframework.web.bind.annotation.RestController;
+            
+            import java.util.ArrayList;
+            import java.util.Collection;
+            import java.util.List;
+            
+            @RestController
+            public class UserController {
+            
+                public record User(String name, String email) {}
+            
+                private final List<User> users = new ArrayList<>(List.of(new User("John", "john@example.com"), new User("Jane", "jane@example.com")));
+            
+                @GetMapping("/users")
+                public List<User> getUsers() {
+                    return users;
+                }
+            
+                @Tool(name = "getUsers", description = "getUsers")
+                public List<User> getUsersPage(@ToolParam(description = "The zero-based index of the page, 0 by default", required = false) Integer page, @ToolParam(description = "The number of elements of the page, 20 by default", required = false) Integer size) {
+                    return toolPage(getUsers(), page, size, maxToolResultSize);
+                }
+            
+                @PostMapping("/users")
+                @Tool(description = "addUser")
+                public String addUser(@ToolParam(description = "user") User user) {
+                    users.add(user);
+                    return "User added successfully!";
+                }
+            
+                @Value("${mcp.tool.max-result-size:50}")
+                private int maxToolResultSize;
+            
+                private static <T> List<T> toolPage(Collection<T> items, Integer page, Integer size, int maxResultSize) {
+                    if (items == null) {
+                        return null;
+                    }
+                    int pageSize = Math.min(size == null || size < 1 ? 20 : size, maxResultSize);
+                    return items.stream().skip((long) Math.max(page == null ? 0 : page, 0) * pageSize).limit(pageSize).toList();
+                }
+            }
+            """;
+
+    /**
+     * The manifest of a run of both recipes with their default options
+     */
+    @Language("properties")
+    public static final String migratedHelloManifest = """
+            # MCP tool classes migrated from Spring Web, maintained by the rewrite-spring-rest-to-mcp recipes
+            @provider=e4309aa38a737438
+            @tools=0a0a75e9c5aae285
+            com.atbug.rewrite.test.controller.HelloController=c98fe4760ce4abd5;hello();helloTo(String)
+            """;
+
+    @Language("xml")
+    public static final String pomWithoutMcp = """
+            <project>
+                <groupId>com.atbug.rewrite</groupId>
+                <artifactId>web-to-mcp</artifactId>
+                <version>1.0-SNAPSHOT</version>
+            </project>
+            """;
+
+    @Language("xml")
+    public static final String webPomWithoutMcp = """
+            <project>
+                <groupId>com.atbug.rewrite</groupId>
+                <artifactId>web-to-mcp</artifactId>
+                <version>1.0-SNAPSHOT</version>
+                <dependencies>
+                    <dependency>
+                        <groupId>org.springframework.boot</groupId>
+                        <artifactId>spring-boot-starter-web</artifactId>
+                        <version>3.4.5</version>
+                    </dependency>
+                </dependencies>
+            </project>
+            """;
+
     @Language("xml")
     public static final String pom = """
             <project>
@@ -3,15 +3,40 @@ package org.openrewrite.java.spring.ai.mcp.recipe;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.Recipe;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.JavaTemplate;
+import org.openrewrite.java.spring.ai.mcp.visitor.McpTemplates;
+import org.openrewrite.maven.MavenExecutionContextView;
+import org.openrewrite.maven.MavenSettings;
+import org.openrewrite.scheduling.RecipeRunCycle;
+import org.openrewrite.scheduling.WatchableExecutionContext;
+import org.openrewrite.table.RecipeRunStats;
+import org.openrewrite.table.SourcesFileErrors;
+import org.openrewrite.table.SourcesFileResults;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.openrewrite.java.Assertions.java;
+import static org.openrewrite.java.Assertions.mavenProject;
+import static org.openrewrite.java.Assertions.srcMainJava;
+import static org.openrewrite.maven.Assertions.pomXml;
+import static org.openrewrite.properties.Assertions.properties;
+import static org.openrewrite.test.SourceSpecs.text;
 
 class AddToolCallbackProviderRecipeTest implements RewriteTest {
     @Override
     public void defaults(RecipeSpec spec) {
-        spec.recipes(new AddToolCallbackProviderRecipe());
+        spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null));
     }
 
     @Test
@@ -22,6 +47,31 @@ class AddToolCallbackProviderRecipeTest implements RewriteTest {
         );
     }
 
+    @Test
+    public void addToolCallbackProviderBeanToEveryApplication() {
+        rewriteRun(
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithTargetBeanMethod),
+                java(entryClassWithoutTargetBeanMethod.replace("SpringMainApp", "OtherMainApp"),
+                        entryClassWithTargetBeanMethod.replace("SpringMainApp", "OtherMainApp"))
+        );
+    }
+
+    @Test
+    public void addToolCallbackProviderBeanPerModule() {
+        rewriteRun(
+                mavenProject("tools",
+                        pomXml(AddToolAnnotationToMappingMethodRecipeTest.pomWithoutMcp.replace("web-to-mcp", "tools")),
+                        srcMainJava(java(AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool))),
+                mavenProject("app",
+                        pomXml(appPom),
+                        srcMainJava(java(entryClassWithoutTargetBeanMethod, entryClassWithTargetBeanMethod))),
+                mavenProject("other",
+                        pomXml(AddToolAnnotationToMappingMethodRecipeTest.pomWithoutMcp.replace("web-to-mcp", "other")),
+                        srcMainJava(java(entryClassWithoutTargetBeanMethod.replace("SpringMainApp", "OtherMainApp"))))
+        );
+    }
+
     @Test
     public void successUpdateBeanDefinition() {
         rewriteRun(
@@ -31,6 +81,346 @@ class AddToolCallbackProviderRecipeTest implements RewriteTest {
         );
     }
 
+    @Test
+    public void addToolsAndBeanDefinitionInSingleCycle() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, null), new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null))
+                        .executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController, AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController, AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithBeanMethodUpdated)
+        );
+    }
+
+    @Test
+    public void addToolsAndBeanDefinitionWithProviderRecipeFirst() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null),
+                                new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, List.of("UserController")))
+                        .executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController, AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, """
+                        package com.atbug.rewrite.test;
+
+                        import com.atbug.rewrite.test.controller.UserController;
+                        import org.springframework.ai.tool.ToolCallbackProvider;
+                        import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+                        import org.springframework.boot.SpringApplication;
+                        import org.springframework.boot.autoconfigure.SpringBootApplication;
+                        import org.springframework.context.annotation.Bean;
+
+                        @SpringBootApplication
+                        public class SpringMainApp {
+
+                            public static void main(String[] args) {
+                                SpringApplication.run(SpringMainApp.class, args);
+                            }
+
+                            @Bean
+                            ToolCallbackProvider toolCallbackProvider(UserController userController) {
+                                return MethodToolCallbackProvider.builder()
+                                        .toolObjects(userController)
+                                        .build();
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void addToolsAndBeanDefinitionInOnePass() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolAnnotationToMappingMethodRecipe(true, null, null, null, null, null, null, null, null, null, null), new AddToolCallbackProviderRecipe(true, null, null, null, null, null, null))
+                        .executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.webPomWithoutMcp),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController, AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController, AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithBeanMethodUpdated)
+        );
+    }
+
+    @Test
+    public void injectOnlyClassesWithToolsLeftByFilters() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, List.of("UserController")),
+                                new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null))
+                        .executionContext(context),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController, AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, """
+                        package com.atbug.rewrite.test;
+                        
+                        import com.atbug.rewrite.test.controller.UserController;
+                        import org.springframework.ai.tool.ToolCallbackProvider;
+                        import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+                        import org.springframework.boot.SpringApplication;
+                        import org.springframework.boot.autoconfigure.SpringBootApplication;
+                        import org.springframework.context.annotation.Bean;
+                        
+                        @SpringBootApplication
+                        public class SpringMainApp {
+                        
+                            public static void main(String[] args) {
+                                SpringApplication.run(SpringMainApp.class, args);
+                            }
+                        
+                            @Bean
+                            ToolCallbackProvider toolCallbackProvider(UserController userController) {
+                                return MethodToolCallbackProvider.builder()
+                                        .toolObjects(userController)
+                                        .build();
+                            }
+                        }
+                        """)
+        );
+    }
+
+    @Test
+    public void enableCachingForCachedTools() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, true, null, null, null, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(entryClassWithTargetBeanMethod, entryClassWithTargetBeanMethod
+                        .replace("import org.springframework.context.annotation.Bean;",
+                                "import org.springframework.cache.annotation.EnableCaching;\nimport org.springframework.context.annotation.Bean;")
+                        .replace("@SpringBootApplication\n", "@SpringBootApplication\n@EnableCaching\n"))
+        );
+    }
+
+    @Test
+    public void loadGeneratedToolDefinitions() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, true, null, null, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithToolDefinitions),
+                text(null, userToolDefinitions, spec -> spec.path("src/main/resources/META-INF/mcp/tool-definitions.json"))
+        );
+    }
+
+    @Test
+    public void defineFacadesOfPaginatedTools() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolAnnotationToMappingMethodRecipe(null, null, null, 20, null, null, null, null, null, null, List.of("UserController")),
+                                new AddToolCallbackProviderRecipe(null, null, null, true, null, null, null))
+                        .executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController,
+                        AddToolAnnotationToMappingMethodRecipeTest.paginatedUserTool.replace("max-result-size:50", "max-result-size:100")),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithToolDefinitions),
+                text(null, paginatedUserToolDefinitions, spec -> spec.path("src/main/resources/META-INF/mcp/tool-definitions.json"))
+        );
+    }
+
+    @Test
+    public void defineToolSchemasLikeSpringAi() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolAnnotationToMappingMethodRecipe(null, null, null, null, null, null, null, null, null, null, null),
+                                new AddToolCallbackProviderRecipe(null, null, null, true, null, null, null))
+                        .executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(orderController, orderController.replace("@DeleteMapping(\"/orders/{id}\")\n",
+                        "@DeleteMapping(\"/orders/{id}\")\n    @Tool(description = \"Cancel an order\")\n")
+                        .replace("@PathVariable String id, @RequestParam(defaultValue = \"\") String reason",
+                                "@PathVariable @ToolParam(description = \"the order id\") String id, @RequestParam(defaultValue = \"\") "
+                                        + "@ToolParam(description = \"why the order is cancelled\", required = false) String reason")),
+                java(order),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithToolDefinitions.replace("UserController userController", "OrderController orderController").replace("(userController)", "(orderController)").replace("controller.UserController", "controller.OrderController")),
+                text(null, orderToolDefinitions, spec -> spec.path("src/main/resources/META-INF/mcp/tool-definitions.json"))
+        );
+    }
+
+    @Test
+    public void registerRuntimeHintsOfTools() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, null, true, null, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithRuntimeHints)
+        );
+    }
+
+    @Test
+    public void addRuntimeHintsToImportedRegistrars() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, null, true, null, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java("""
+                        package com.atbug.rewrite.test;
+
+                        import org.springframework.aot.hint.RuntimeHints;
+                        import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+                        public class CacheHints implements RuntimeHintsRegistrar {
+                            @Override
+                            public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+                            }
+                        }
+                        """),
+                java(entryClassWithoutTargetBeanMethod
+                                .replace("import org.springframework.boot.autoconfigure.SpringBootApplication;\n",
+                                        "import org.springframework.boot.autoconfigure.SpringBootApplication;\nimport org.springframework.context.annotation.ImportRuntimeHints;\n")
+                                .replace("@SpringBootApplication\n", "@SpringBootApplication\n@ImportRuntimeHints(CacheHints.class)\n"),
+                        entryClassWithRuntimeHints.replace("@ImportRuntimeHints(SpringMainApp.McpToolRuntimeHints.class)",
+                                "@ImportRuntimeHints({CacheHints.class, SpringMainApp.McpToolRuntimeHints.class})"))
+        );
+    }
+
+    @Test
+    public void guardToolsWithBulkheads() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, null, null, true, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithBulkheads)
+        );
+    }
+
+    @Test
+    public void observeToolCalls() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, null, null, null, null, null, true)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithObservations)
+        );
+    }
+
+    @Test
+    public void writeToolManifest() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, "mcp-tools.properties", null, null, null, null, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithTargetBeanMethod),
+                properties(null, helloManifest, spec -> spec.path("mcp-tools.properties"))
+        );
+    }
+
+    @Test
+    public void writeOptionsOfBothRecipesToToolManifest() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        rewriteRun(
+                spec -> spec.recipes(new AddToolAnnotationToMappingMethodRecipe(null, "mcp-tools.properties", null, null, null, null, null, null, null, null, null),
+                                new AddToolCallbackProviderRecipe(null, "mcp-tools.properties", null, null, null, null, null))
+                        .executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(1),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController, AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController, AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithoutTargetBeanMethod, entryClassWithBeanMethodUpdated),
+                properties(null, helloAndUserManifest.replace("@provider=e4309aa38a737438\n", "@provider=e4309aa38a737438\n@tools=0a0a75e9c5aae285\n"),
+                        spec -> spec.path("mcp-tools.properties"))
+        );
+    }
+
+    @Test
+    public void updateToolManifestWhenToolsChange() {
+        rewriteRun(
+                spec -> spec.recipes(new AddToolCallbackProviderRecipe(null, "mcp-tools.properties", null, null, null, null, null)),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool),
+                java(AddToolAnnotationToMappingMethodRecipeTest.expectedUserTool),
+                java(entryClassWithTargetBeanMethod, entryClassWithBeanMethodUpdated),
+                properties(helloManifest, helloAndUserManifest, spec -> spec.path("mcp-tools.properties"))
+        );
+    }
+
+    @Test
+    public void skipCandidatesWithoutDependency() {
+        rewriteRun(
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController),
+                java(entryClassWithoutTargetBeanMethod)
+        );
+    }
+
+    @Test
+    public void skipCandidatesWithoutAnnotationRecipe() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ExecutionContext context = MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx));
+        // Run alone, the provider recipe must not inject controllers which nothing turns into tools
+        rewriteRun(
+                spec -> spec.executionContext(context)
+                        .cycles(1)
+                        .expectedCyclesThatMakeChanges(0),
+                pomXml(AddToolAnnotationToMappingMethodRecipeTest.pom),
+                java(AddToolAnnotationToMappingMethodRecipeTest.originUserController),
+                java(entryClassWithoutTargetBeanMethod)
+        );
+    }
+
+    @Test
+    public void scanInParallelLikeSequentially() {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sources.add(i % 2 == 0
+                    ? AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool.replace("HelloController", "HelloController" + i)
+                    : AddToolAnnotationToMappingMethodRecipeTest.originUserController.replace("UserController", "UserController" + i));
+        }
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        List<SourceFile> sourceFiles = JavaParser.fromJavaVersion()
+                .classpath(JavaParser.runtimeClasspath())
+                .build()
+                .parse(ctx, sources.toArray(new String[0]))
+                .toList();
+
+        AddToolCallbackProviderRecipe recipe = new AddToolCallbackProviderRecipe(null, null, null, null, null, null, null);
+        AddToolCallbackProviderRecipe.Accumulator sequential = recipe.getInitialValue(ctx);
+        sourceFiles.forEach(sourceFile -> recipe.getScanner(sequential).visit(sourceFile, firstCycle(recipe)));
+        AddToolCallbackProviderRecipe.Accumulator parallel = recipe.getInitialValue(ctx);
+        sourceFiles.parallelStream().forEach(sourceFile -> recipe.getScanner(parallel).visit(sourceFile, firstCycle(recipe)));
+
+        Assertions.assertEquals(100, sequential.getTools().size());
+        Assertions.assertEquals(100, sequential.getCandidates().size());
+        Assertions.assertEquals(new ArrayList<>(sequential.getTools().keySet()), new ArrayList<>(parallel.getTools().keySet()));
+        Assertions.assertEquals(new ArrayList<>(sequential.getCandidates().keySet()), new ArrayList<>(parallel.getCandidates().keySet()));
+        Assertions.assertEquals(new ArrayList<>(sequential.toolObjects(Paths.get("App.java"))),
+                new ArrayList<>(parallel.toolObjects(Paths.get("App.java"))));
+    }
+
+    /**
+     * A context in the first cycle of a recipe run, where the scanner writes its data tables.
+     */
+    private static ExecutionContext firstCycle(Recipe recipe) {
+        WatchableExecutionContext ctx = new WatchableExecutionContext(new InMemoryExecutionContext());
+        ctx.putCycle(new RecipeRunCycle<LargeSourceSet>(recipe, 1, new Cursor(null, Cursor.ROOT_VALUE), ctx,
+                new RecipeRunStats(Recipe.noop()), new SourcesFileResults(Recipe.noop()), new SourcesFileErrors(Recipe.noop()),
+                LargeSourceSet::edit));
+        return ctx;
+    }
+
+    @Test
+    public void cacheTemplatesPerRun() {
+        ExecutionContext run = new InMemoryExecutionContext();
+        JavaTemplate template = McpTemplates.get(run, "field", () -> JavaTemplate.builder("int i;").build());
+        Assertions.assertSame(template, McpTemplates.get(run, "field", () -> JavaTemplate.builder("int i;").build()));
+        // A later run gets its own template, whose parser may read the type table through its context
+        Assertions.assertNotSame(template, McpTemplates.get(new InMemoryExecutionContext(), "field",
+                () -> JavaTemplate.builder("int i;").build()));
+    }
+
     @Test
     public void failDueToBadSituation() {
         Assertions.assertThrows(AssertionError.class, () -> rewriteRun(
@@ -39,6 +429,37 @@ class AddToolCallbackProviderRecipeTest implements RewriteTest {
         ), "There should be at most one method with return type ToolCallbackProvider");
     }
 
+    @Language("properties")
+    public static final String helloManifest = """
+            # MCP tool classes migrated from Spring Web, maintained by the rewrite-spring-rest-to-mcp recipes
+            @provider=e4309aa38a737438
+            com.atbug.rewrite.test.controller.HelloController=c98fe4760ce4abd5;hello();helloTo(String)
+            """;
+
+    @Language("properties")
+    public static final String helloAndUserManifest = """
+            # MCP tool classes migrated from Spring Web, maintained by the rewrite-spring-rest-to-mcp recipes
+            @provider=e4309aa38a737438
+            com.atbug.rewrite.test.controller.HelloController=c98fe4760ce4abd5;hello();helloTo(String)
+            com.atbug.rewrite.test.controller.UserController=29a3c7936224c652;getUsers();addUser(User)
+            """;
+
+    @Language("xml")
+    public static final String appPom = """
+            <project>
+                <groupId>com.atbug.rewrite</groupId>
+                <artifactId>app</artifactId>
+                <version>1.0-SNAPSHOT</version>
+                <dependencies>
+                    <dependency>
+                        <groupId>com.atbug.rewrite</groupId>
+                        <artifactId>tools</artifactId>
+                        <version>1.0-SNAPSHOT</version>
+                    </dependency>
+                </dependencies>
+            </project>
+            """;
+
     @Language("java")
     public static final String entryClassWithoutTargetBeanMethod = """
             package com.atbug.rewrite.test;
@@ -82,6 +503,717 @@ class AddToolCallbackProviderRecipeTest implements RewriteTest {
             }
             """;
 
+    @Language("java")
+    private static final String entryClassWithBulkheads = """
+            package com.atbug.rewrite.test;
+            
+            import com.atbug.rewrite.test.controller.UserController;
+            import org.springframework.ai.chat.model.ToolContext;
+            import org.springframework.ai.tool.ToolCallback;
+            import org.springframework.ai.tool.ToolCallbackProvider;
+            import org.springframework.ai.tool.definition.ToolDefinition;
+            import org.springframework.ai.tool.execution.ToolExecutionException;
+            import org.springframework.ai.tool.metadata.ToolMetadata;
+            import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+            import org.springframework.beans.factory.DisposableBean;
+            import org.springframework.beans.factory.ObjectProvider;
+            import org.springframework.beans.factory.config.BeanPostProcessor;
+            import org.springframework.boot.SpringApplication;
+            import org.springframework.boot.autoconfigure.SpringBootApplication;
+            import org.springframework.context.annotation.Bean;
+            import org.springframework.core.env.Environment;
+            import org.springframework.core.task.AsyncTaskExecutor;
+            import org.springframework.core.task.SimpleAsyncTaskExecutor;
+            import org.springframework.core.task.TaskDecorator;
+            import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+            import org.springframework.stereotype.Component;
+            import org.springframework.util.ClassUtils;
+            import org.springframework.web.context.request.RequestAttributes;
+            import org.springframework.web.context.request.RequestContextHolder;
+            
+            import java.time.Duration;
+            import java.util.concurrent.*;
+            import java.util.concurrent.atomic.AtomicBoolean;
+            
+            @SpringBootApplication
+            public class SpringMainApp {
+            
+                public static void main(String[] args) {
+                    SpringApplication.run(SpringMainApp.class, args);
+                }
+            
+                @Bean
+                ToolCallbackProvider toolCallbackProvider(UserController userController) {
+                    return MethodToolCallbackProvider.builder()
+                            .toolObjects(userController)
+                            .build();
+                }
+            
+                @Component
+                static class McpToolBulkheads implements BeanPostProcessor, DisposableBean {
+                    private static final String PROPERTY_PREFIX = "spring.ai.mcp.server.tools.";
+                    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mcp-tool-");
+                    private final Environment environment;
+            
+                    McpToolBulkheads(Environment environment, ObjectProvider<TaskDecorator> taskDecorator) {
+                        this.environment = environment;
+                        // Tool calls run on virtual threads when the server does, with the context of the calling thread
+                        executor.setVirtualThreads(environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false));
+                        TaskDecorator contextDecorator = taskDecorator.getIfUnique(() ->
+                                ClassUtils.isPresent("io.micrometer.context.ContextSnapshotFactory", McpToolBulkheads.class.getClassLoader())
+                                        ? new ContextPropagatingTaskDecorator()
+                                        : runnable -> runnable);
+                        executor.setTaskDecorator(runnable -> {
+                            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+                            Runnable decorated = contextDecorator.decorate(runnable);
+                            return () -> {
+                                RequestContextHolder.setRequestAttributes(requestAttributes);
+                                try {
+                                    decorated.run();
+                                } finally {
+                                    RequestContextHolder.resetRequestAttributes();
+                                }
+                            };
+                        });
+                    }
+            
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        if (!(bean instanceof ToolCallbackProvider provider)) {
+                            return bean;
+                        }
+                        ToolCallback[] toolCallbacks = provider.getToolCallbacks();
+                        ToolCallback[] bulkheads = new ToolCallback[toolCallbacks.length];
+                        for (int i = 0; i < toolCallbacks.length; i++) {
+                            String name = toolCallbacks[i].getToolDefinition().name();
+                            bulkheads[i] = new Bulkhead(toolCallbacks[i], executor,
+                                    new Semaphore(property(name, "max-concurrent-calls", Integer.class, 10)),
+                                    property(name, "timeout", Duration.class, Duration.ofSeconds(30)));
+                        }
+                        return ToolCallbackProvider.from(bulkheads);
+                    }
+            
+                    private <T> T property(String tool, String name, Class<T> type, T defaultValue) {
+                        T value = environment.getProperty(PROPERTY_PREFIX + tool + "." + name, type);
+                        return value != null ? value : environment.getProperty(PROPERTY_PREFIX + "default." + name, type, defaultValue);
+                    }
+            
+                    @Override
+                    public void destroy() {
+                        executor.close();
+                    }
+            
+                    private static final class Bulkhead implements ToolCallback {
+                        private final ToolCallback delegate;
+                        private final AsyncTaskExecutor executor;
+                        private final Semaphore permits;
+                        private final Duration timeout;
+            
+                        Bulkhead(ToolCallback delegate, AsyncTaskExecutor executor, Semaphore permits, Duration timeout) {
+                            this.delegate = delegate;
+                            this.executor = executor;
+                            this.permits = permits;
+                            this.timeout = timeout;
+                        }
+            
+                        @Override
+                        public ToolDefinition getToolDefinition() {
+                            return delegate.getToolDefinition();
+                        }
+            
+                        @Override
+                        public ToolMetadata getToolMetadata() {
+                            return delegate.getToolMetadata();
+                        }
+            
+                        @Override
+                        public String call(String toolInput) {
+                            return call(() -> delegate.call(toolInput));
+                        }
+            
+                        @Override
+                        public String call(String toolInput, ToolContext toolContext) {
+                            return call(() -> delegate.call(toolInput, toolContext));
+                        }
+            
+                        private String call(Callable<String> toolCall) {
+                            if (!permits.tryAcquire()) {
+                                throw new ToolExecutionException(getToolDefinition(), new RejectedExecutionException(
+                                        "Tool " + getToolDefinition().name() + " has reached its limit of concurrent calls"));
+                            }
+                            // The call releases the permit once it ran, the caller when it gave up before the call started.
+                            // A call which ignores the interrupt after its timeout keeps its permit until it returns.
+                            AtomicBoolean started = new AtomicBoolean();
+                            Future<String> result;
+                            try {
+                                result = executor.submit(() -> {
+                                    if (!started.compareAndSet(false, true)) {
+                                        return null;
+                                    }
+                                    try {
+                                        return toolCall.call();
+                                    } finally {
+                                        permits.release();
+                                    }
+                                });
+                            } catch (RejectedExecutionException e) {
+                                permits.release();
+                                throw new ToolExecutionException(getToolDefinition(), e);
+                            }
+                            try {
+                                return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                            } catch (ExecutionException e) {
+                                if (e.getCause() instanceof RuntimeException runtimeException) {
+                                    throw runtimeException;
+                                }
+                                throw new ToolExecutionException(getToolDefinition(), e.getCause());
+                            } catch (TimeoutException | InterruptedException e) {
+                                if (e instanceof InterruptedException) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                result.cancel(true);
+                                if (started.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                                throw new ToolExecutionException(getToolDefinition(), new TimeoutException(
+                                        "Tool " + getToolDefinition().name() + " did not complete within " + timeout));
+                            }
+                        }
+                    }
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String entryClassWithObservations = """
+            package com.atbug.rewrite.test;
+            
+            import com.atbug.rewrite.test.controller.UserController;
+            import io.micrometer.observation.Observation;
+            import io.micrometer.observation.ObservationRegistry;
+            import org.springframework.ai.chat.model.ToolContext;
+            import org.springframework.ai.tool.ToolCallback;
+            import org.springframework.ai.tool.ToolCallbackProvider;
+            import org.springframework.ai.tool.definition.ToolDefinition;
+            import org.springframework.ai.tool.metadata.ToolMetadata;
+            import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+            import org.springframework.beans.factory.ObjectProvider;
+            import org.springframework.beans.factory.config.BeanPostProcessor;
+            import org.springframework.boot.SpringApplication;
+            import org.springframework.boot.autoconfigure.SpringBootApplication;
+            import org.springframework.context.annotation.Bean;
+            import org.springframework.stereotype.Component;
+            
+            import java.util.function.Supplier;
+            
+            @SpringBootApplication
+            public class SpringMainApp {
+            
+                public static void main(String[] args) {
+                    SpringApplication.run(SpringMainApp.class, args);
+                }
+            
+                @Bean
+                ToolCallbackProvider toolCallbackProvider(UserController userController) {
+                    return MethodToolCallbackProvider.builder()
+                            .toolObjects(userController)
+                            .build();
+                }
+            
+                @Component
+                static class McpToolObservations implements BeanPostProcessor {
+                    private final ObjectProvider<ObservationRegistry> observationRegistry;
+            
+                    McpToolObservations(ObjectProvider<ObservationRegistry> observationRegistry) {
+                        this.observationRegistry = observationRegistry;
+                    }
+            
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        if (!(bean instanceof ToolCallbackProvider provider)) {
+                            return bean;
+                        }
+                        ToolCallback[] toolCallbacks = provider.getToolCallbacks();
+                        ToolCallback[] observed = new ToolCallback[toolCallbacks.length];
+                        for (int i = 0; i < toolCallbacks.length; i++) {
+                            observed[i] = new ObservedToolCallback(toolCallbacks[i], observationRegistry);
+                        }
+                        return ToolCallbackProvider.from(observed);
+                    }
+            
+                    private static final class ObservedToolCallback implements ToolCallback {
+                        private final ToolCallback delegate;
+                        private final ObjectProvider<ObservationRegistry> observationRegistry;
+            
+                        ObservedToolCallback(ToolCallback delegate, ObjectProvider<ObservationRegistry> observationRegistry) {
+                            this.delegate = delegate;
+                            this.observationRegistry = observationRegistry;
+                        }
+            
+                        @Override
+                        public ToolDefinition getToolDefinition() {
+                            return delegate.getToolDefinition();
+                        }
+            
+                        @Override
+                        public ToolMetadata getToolMetadata() {
+                            return delegate.getToolMetadata();
+                        }
+            
+                        @Override
+                        public String call(String toolInput) {
+                            return observe(() -> delegate.call(toolInput));
+                        }
+            
+                        @Override
+                        public String call(String toolInput, ToolContext toolContext) {
+                            return observe(() -> delegate.call(toolInput, toolContext));
+                        }
+            
+                        private String observe(Supplier<String> toolCall) {
+                            Observation observation = Observation.createNotStarted("mcp.tool.call",
+                                    observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                                    .contextualName("tool " + getToolDefinition().name())
+                                    .lowCardinalityKeyValue("tool", getToolDefinition().name())
+                                    .start();
+                            try (Observation.Scope scope = observation.openScope()) {
+                                String result = toolCall.get();
+                                observation.lowCardinalityKeyValue("outcome", "SUCCESS");
+                                return result;
+                            } catch (RuntimeException e) {
+                                observation.lowCardinalityKeyValue("outcome", "ERROR");
+                                observation.error(e);
+                                throw e;
+                            } finally {
+                                observation.stop();
+                            }
+                        }
+                    }
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String entryClassWithRuntimeHints = """
+            package com.atbug.rewrite.test;
+            
+            import com.atbug.rewrite.test.controller.UserController;
+            import org.springframework.ai.tool.ToolCallbackProvider;
+            import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+            import org.springframework.aot.hint.MemberCategory;
+            import org.springframework.aot.hint.RuntimeHints;
+            import org.springframework.aot.hint.RuntimeHintsRegistrar;
+            import org.springframework.aot.hint.TypeReference;
+            import org.springframework.boot.SpringApplication;
+            import org.springframework.boot.autoconfigure.SpringBootApplication;
+            import org.springframework.context.annotation.Bean;
+            import org.springframework.context.annotation.ImportRuntimeHints;
+            
+            @SpringBootApplication
+            @ImportRuntimeHints(SpringMainApp.McpToolRuntimeHints.class)
+            public class SpringMainApp {
+            
+                public static void main(String[] args) {
+                    SpringApplication.run(SpringMainApp.class, args);
+                }
+            
+                @Bean
+                ToolCallbackProvider toolCallbackProvider(UserController userController) {
+                    return MethodToolCallbackProvider.builder()
+                            .toolObjects(userController)
+                            .build();
+                }
+            
+                static class McpToolRuntimeHints implements RuntimeHintsRegistrar {
+                    private static final String[] TOOL_TYPES = {
+                            "com.atbug.rewrite.test.controller.UserController"
+                    };
+                    private static final String[] DATA_TYPES = {
+                            "com.atbug.rewrite.test.controller.UserController$User"
+                    };
+            
+                    @Override
+                    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+                        for (String toolType : TOOL_TYPES) {
+                            hints.reflection().registerType(TypeReference.of(toolType), MemberCategory.INVOKE_DECLARED_METHODS);
+                        }
+                        for (String dataType : DATA_TYPES) {
+                            hints.reflection().registerType(TypeReference.of(dataType), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                                    MemberCategory.INVOKE_DECLARED_METHODS, MemberCategory.DECLARED_FIELDS);
+                        }
+                    }
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String entryClassWithToolDefinitions = """
+            package com.atbug.rewrite.test;
+            
+            import com.atbug.rewrite.test.controller.UserController;
+            import com.fasterxml.jackson.databind.JsonNode;
+            import com.fasterxml.jackson.databind.ObjectMapper;
+            import com.fasterxml.jackson.databind.node.ObjectNode;
+            import org.springframework.ai.tool.ToolCallback;
+            import org.springframework.ai.tool.ToolCallbackProvider;
+            import org.springframework.ai.tool.annotation.Tool;
+            import org.springframework.ai.tool.definition.ToolDefinition;
+            import org.springframework.ai.tool.metadata.ToolMetadata;
+            import org.springframework.ai.tool.method.MethodToolCallback;
+            import org.springframework.ai.tool.support.ToolDefinitions;
+            import org.springframework.ai.tool.support.ToolUtils;
+            import org.springframework.boot.SpringApplication;
+            import org.springframework.boot.autoconfigure.SpringBootApplication;
+            import org.springframework.context.annotation.Bean;
+            import org.springframework.core.io.ClassPathResource;
+            import org.springframework.util.ClassUtils;
+            import org.springframework.util.ReflectionUtils;
+            
+            import java.io.IOException;
+            import java.io.InputStream;
+            import java.lang.reflect.Method;
+            import java.util.ArrayList;
+            import java.util.HashMap;
+            import java.util.List;
+            import java.util.Map;
+            
+            @SpringBootApplication
+            public class SpringMainApp {
+            
+                public static void main(String[] args) {
+                    SpringApplication.run(SpringMainApp.class, args);
+                }
+            
+                @Bean
+                ToolCallbackProvider toolCallbackProvider(UserController userController) {
+                    return ToolCallbackProvider.from(loadToolCallbacks(userController));
+                }
+            
+                private static List<ToolCallback> loadToolCallbacks(Object... toolObjects) {
+                    Map<String, JsonNode> definedTools = new HashMap<>();
+                    JsonNode defs = null;
+                    ClassPathResource resource = new ClassPathResource("META-INF/mcp/tool-definitions.json");
+                    if (resource.exists()) {
+                        try (InputStream input = resource.getInputStream()) {
+                            JsonNode definitions = new ObjectMapper().readTree(input);
+                            defs = definitions.get("$defs");
+                            for (JsonNode tool : definitions.get("tools")) {
+                                List<String> parameterTypes = new ArrayList<>();
+                                for (JsonNode parameterType : tool.get("parameterTypes")) {
+                                    parameterTypes.add(parameterType.asText());
+                                }
+                                definedTools.put(tool.get("class").asText() + "#" + tool.get("method").asText() + "(" + String.join(",", parameterTypes) + ")", tool);
+                            }
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Unable to load the MCP tool definitions from META-INF/mcp/tool-definitions.json", e);
+                        }
+                    }
+                    List<ToolCallback> toolCallbacks = new ArrayList<>();
+                    Map<String, Class<?>> toolSources = new HashMap<>();
+                    for (Object toolObject : toolObjects) {
+                        Class<?> toolClass = ClassUtils.getUserClass(toolObject);
+                        for (Method method : ReflectionUtils.getDeclaredMethods(toolClass)) {
+                            if (method.isBridge() || !method.isAnnotationPresent(Tool.class)) {
+                                continue;
+                            }
+                            List<String> parameterTypes = new ArrayList<>();
+                            for (Class<?> parameterType : method.getParameterTypes()) {
+                                parameterTypes.add(parameterType.getTypeName());
+                            }
+                            // A tool changed since the migration, or added after it, is defined by reflection like Spring AI does
+                            JsonNode tool = definedTools.get(toolClass.getName() + "#" + method.getName() + "(" + String.join(",", parameterTypes) + ")");
+                            ToolDefinition toolDefinition;
+                            if (tool != null && tool.get("name").asText().equals(ToolUtils.getToolName(method))
+                                    && tool.get("description").asText().equals(ToolUtils.getToolDescription(method))) {
+                                ObjectNode inputSchema = tool.get("inputSchema").deepCopy();
+                                if (tool.has("defs") && defs != null) {
+                                    ObjectNode toolDefs = inputSchema.putObject("$defs");
+                                    for (JsonNode def : tool.get("defs")) {
+                                        toolDefs.set(def.asText(), defs.get(def.asText()));
+                                    }
+                                }
+                                toolDefinition = ToolDefinition.builder()
+                                        .name(tool.get("name").asText())
+                                        .description(tool.get("description").asText())
+                                        .inputSchema(inputSchema.toString())
+                                        .build();
+                            } else {
+                                toolDefinition = ToolDefinitions.from(method);
+                            }
+                            // Same check as MethodToolCallbackProvider, which the tools loaded here bypass
+                            Class<?> toolSource = toolSources.putIfAbsent(toolDefinition.name(), toolClass);
+                            if (toolSource != null) {
+                                throw new IllegalStateException("Multiple tools with the same name (" + toolDefinition.name() + ") found in sources: "
+                                        + toolSource.getName() + ", " + toolClass.getName());
+                            }
+                            toolCallbacks.add(MethodToolCallback.builder()
+                                    .toolDefinition(toolDefinition)
+                                    .toolMetadata(ToolMetadata.from(method))
+                                    .toolMethod(method)
+                                    .toolObject(toolObject)
+                                    .toolCallResultConverter(ToolUtils.getToolCallResultConverter(method))
+                                    .build());
+                        }
+                    }
+                    return toolCallbacks;
+                }
+            }
+            """;
+
+    @Language("json")
+    private static final String paginatedUserToolDefinitions = """
+            {
+              "$defs" : {
+                "com.atbug.rewrite.test.controller.UserController$User" : {
+                  "type" : "object",
+                  "properties" : {
+                    "email" : {
+                      "type" : "string"
+                    },
+                    "name" : {
+                      "type" : "string"
+                    }
+                  },
+                  "required" : [ "email", "name" ]
+                }
+              },
+              "tools" : [ {
+                "class" : "com.atbug.rewrite.test.controller.UserController",
+                "method" : "getUsersPage",
+                "parameterTypes" : [ "java.lang.Integer", "java.lang.Integer" ],
+                "name" : "getUsers",
+                "description" : "getUsers",
+                "inputSchema" : {
+                  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+                  "type" : "object",
+                  "properties" : {
+                    "page" : {
+                      "type" : "integer",
+                      "description" : "The zero-based index of the page, 0 by default"
+                    },
+                    "size" : {
+                      "type" : "integer",
+                      "description" : "The number of elements of the page, 20 by default"
+                    }
+                  },
+                  "required" : [ ],
+                  "additionalProperties" : false
+                }
+              }, {
+                "class" : "com.atbug.rewrite.test.controller.UserController",
+                "method" : "addUser",
+                "parameterTypes" : [ "com.atbug.rewrite.test.controller.UserController$User" ],
+                "name" : "addUser",
+                "description" : "addUser",
+                "inputSchema" : {
+                  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+                  "type" : "object",
+                  "properties" : {
+                    "user" : {
+                      "$ref" : "#/$defs/com.atbug.rewrite.test.controller.UserController$User",
+                      "description" : "user"
+                    }
+                  },
+                  "required" : [ "user" ],
+                  "additionalProperties" : false
+                },
+                "defs" : [ "com.atbug.rewrite.test.controller.UserController$User" ]
+              } ]
+            }
+            """;
+
+    @Language("json")
+    private static final String orderToolDefinitions = """
+            {
+              "$defs" : {
+                "com.atbug.rewrite.test.model.Order" : {
+                  "type" : "object",
+                  "properties" : {
+                    "comment" : {
+                      "type" : "string"
+                    },
+                    "quantity" : {
+                      "type" : "integer"
+                    },
+                    "customer_name" : {
+                      "type" : "string",
+                      "description" : "the name of the customer"
+                    },
+                    "id" : {
+                      "type" : "string"
+                    }
+                  },
+                  "required" : [ "comment", "customer_name", "id" ]
+                }
+              },
+              "tools" : [ {
+                "class" : "com.atbug.rewrite.test.controller.OrderController",
+                "method" : "placeOrder",
+                "parameterTypes" : [ "com.atbug.rewrite.test.model.Order" ],
+                "name" : "placeOrder",
+                "description" : "Place an order",
+                "inputSchema" : {
+                  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+                  "type" : "object",
+                  "properties" : {
+                    "order" : {
+                      "$ref" : "#/$defs/com.atbug.rewrite.test.model.Order",
+                      "description" : "the order"
+                    }
+                  },
+                  "required" : [ "order" ],
+                  "additionalProperties" : false
+                },
+                "defs" : [ "com.atbug.rewrite.test.model.Order" ]
+              }, {
+                "class" : "com.atbug.rewrite.test.controller.OrderController",
+                "method" : "cancelOrder",
+                "parameterTypes" : [ "java.lang.String", "java.lang.String" ],
+                "name" : "cancelOrder",
+                "description" : "Cancel an order",
+                "inputSchema" : {
+                  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+                  "type" : "object",
+                  "properties" : {
+                    "id" : {
+                      "type" : "string",
+                      "description" : "the order id"
+                    },
+                    "reason" : {
+                      "type" : "string",
+                      "description" : "why the order is cancelled"
+                    }
+                  },
+                  "required" : [ "id" ],
+                  "additionalProperties" : false
+                }
+              } ]
+            }
+            """;
+
+    @Language("java")
+    private static final String orderController = """
+            package com.atbug.rewrite.test.controller;
+            
+            import com.atbug.rewrite.test.model.Order;
+            import org.springframework.ai.tool.annotation.Tool;
+            import org.springframework.ai.tool.annotation.ToolParam;
+            import org.springframework.web.bind.annotation.DeleteMapping;
+            import org.springframework.web.bind.annotation.PathVariable;
+            import org.springframework.web.bind.annotation.PostMapping;
+            import org.springframework.web.bind.annotation.RequestBody;
+            import org.springframework.web.bind.annotation.RequestParam;
+            import org.springframework.web.bind.annotation.RestController;
+            
+            @RestController
+            public class OrderController {
+            
+                @PostMapping("/orders")
+                @Tool(description = "Place an order")
+                public String placeOrder(@ToolParam(description = "the order") @RequestBody Order order) {
+                    return order.getId();
+                }
+            
+                /**
+                 * Cancel an order
+                 *
+                 * @param id     the order id
+                 * @param reason why the order is cancelled
+                 */
+                @DeleteMapping("/orders/{id}")
+                public void cancelOrder(@PathVariable String id, @RequestParam(defaultValue = "") String reason) {
+                }
+            }
+            """;
+
+    @Language("java")
+    private static final String order = """
+            package com.atbug.rewrite.test.model;
+            
+            import com.fasterxml.jackson.annotation.JsonIgnore;
+            import com.fasterxml.jackson.annotation.JsonProperty;
+            import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+            
+            public class Order {
+                private String id;
+                @JsonProperty(value = "customer_name", required = true)
+                @JsonPropertyDescription("the name of the customer")
+                private String customerName;
+                @JsonProperty
+                private Integer quantity;
+                @JsonIgnore
+                private String secret;
+                private transient String cache;
+                private String internal;
+                public String comment;
+            
+                public String getId() {
+                    return id;
+                }
+            
+                public String getSecret() {
+                    return secret;
+                }
+            
+                public String getCache() {
+                    return cache;
+                }
+            }
+            """;
+
+    @Language("json")
+    private static final String userToolDefinitions = """
+            {
+              "$defs" : {
+                "com.atbug.rewrite.test.controller.UserController$User" : {
+                  "type" : "object",
+                  "properties" : {
+                    "email" : {
+                      "type" : "string"
+                    },
+                    "name" : {
+                      "type" : "string"
+                    }
+                  },
+                  "required" : [ "email", "name" ]
+                }
+              },
+              "tools" : [ {
+                "class" : "com.atbug.rewrite.test.controller.UserController",
+                "method" : "getUsers",
+                "parameterTypes" : [ ],
+                "name" : "getUsers",
+                "description" : "getUsers",
+                "inputSchema" : {
+                  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+                  "type" : "object",
+                  "properties" : { },
+                  "required" : [ ],
+                  "additionalProperties" : false
+                }
+              }, {
+                "class" : "com.atbug.rewrite.test.controller.UserController",
+                "method" : "addUser",
+                "parameterTypes" : [ "com.atbug.rewrite.test.controller.UserController$User" ],
+                "name" : "addUser",
+                "description" : "addUser",
+                "inputSchema" : {
+                  "$schema" : "https://json-schema.org/draft/2020-12/schema",
+                  "type" : "object",
+                  "properties" : {
+                    "user" : {
+                      "$ref" : "#/$defs/com.atbug.rewrite.test.controller.UserController$User",
+                      "description" : "user"
+                    }
+                  },
+                  "required" : [ "user" ],
+                  "additionalProperties" : false
+                },
+                "defs" : [ "com.atbug.rewrite.test.controller.UserController$User" ]
+              } ]
+            }
+            """;
+
     @Language("java")
     public static final String entryClassWithBeanMethodUpdated = """
             package com.atbug.rewrite.test;
@@ -0,0 +1,78 @@
+package org.openrewrite.java.spring.ai.mcp.recipe;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.Tree;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.maven.tree.Dependency;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
+import org.openrewrite.test.RecipeSpec;
+import org.openrewrite.test.RewriteTest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.openrewrite.gradle.Assertions.buildGradle;
+
+class FindWebFluxModuleRecipeTest implements RewriteTest {
+    @Override
+    public void defaults(RecipeSpec spec) {
+        spec.recipe(new FindWebFluxModuleRecipe(null));
+    }
+
+    @Test
+    public void findWebFluxModule() {
+        rewriteRun(
+                buildGradle(buildScript, "/*~~>*/" + buildScript,
+                        spec -> spec.markers(gradleProject("org.springframework:spring-webflux")))
+        );
+    }
+
+    @Test
+    public void skipWebMvcModule() {
+        rewriteRun(
+                buildGradle(buildScript, spec -> spec.markers(gradleProject("org.springframework:spring-webmvc"))),
+                // Spring Boot prefers WebMVC when both stacks are on the classpath
+                buildGradle(buildScript, spec -> spec.path("both/build.gradle").markers(
+                        gradleProject("org.springframework:spring-webflux", "org.springframework:spring-webmvc")))
+        );
+    }
+
+    @Test
+    public void findModulesWhichAreNotWebFlux() {
+        rewriteRun(
+                spec -> spec.recipe(new FindWebFluxModuleRecipe(true)),
+                buildGradle(buildScript, "/*~~>*/" + buildScript,
+                        spec -> spec.markers(gradleProject("org.springframework:spring-webmvc"))),
+                buildGradle(buildScript, spec -> spec.path("flux/build.gradle").markers(
+                        gradleProject("org.springframework:spring-webflux")))
+        );
+    }
+
+    /**
+     * A Gradle project whose implementation configuration requests the given dependencies.
+     *
+     * @param dependencies the {@code group:artifact} coordinates of the dependencies
+     * @return the marker of the build script
+     */
+    static GradleProject gradleProject(String... dependencies) {
+        List<Dependency> requested = Arrays.stream(dependencies)
+                .map(ga -> ga.split(":"))
+                .map(ga -> Dependency.builder().gav(new GroupArtifactVersion(ga[0], ga[1], null)).build())
+                .toList();
+        return GradleProject.builder()
+                .id(Tree.randomId())
+                .group("com.atbug.rewrite")
+                .name("web-to-mcp")
+                .nameToConfiguration(Map.of("implementation", new GradleDependencyConfiguration(
+                        "implementation", null, true, false, false, List.of(), requested, List.of(), null, null)))
+                .build();
+    }
+
+    static final String buildScript = """
+            plugins {
+                id 'java'
+            }
+            """;
+}
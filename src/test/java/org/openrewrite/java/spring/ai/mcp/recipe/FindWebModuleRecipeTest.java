@@ -0,0 +1,33 @@
+package org.openrewrite.java.spring.ai.mcp.recipe;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.test.RecipeSpec;
+import org.openrewrite.test.RewriteTest;
+
+import static org.openrewrite.gradle.Assertions.buildGradle;
+import static org.openrewrite.java.spring.ai.mcp.recipe.FindWebFluxModuleRecipeTest.buildScript;
+import static org.openrewrite.java.spring.ai.mcp.recipe.FindWebFluxModuleRecipeTest.gradleProject;
+
+class FindWebModuleRecipeTest implements RewriteTest {
+    @Override
+    public void defaults(RecipeSpec spec) {
+        spec.recipe(new FindWebModuleRecipe());
+    }
+
+    @Test
+    public void findWebModules() {
+        rewriteRun(
+                buildGradle(buildScript, "/*~~>*/" + buildScript,
+                        spec -> spec.markers(gradleProject("org.springframework.boot:spring-boot-starter-web"))),
+                buildGradle(buildScript, "/*~~>*/" + buildScript,
+                        spec -> spec.path("flux/build.gradle").markers(gradleProject("org.springframework:spring-webflux")))
+        );
+    }
+
+    @Test
+    public void skipLibraryModule() {
+        rewriteRun(
+                buildGradle(buildScript, spec -> spec.markers(gradleProject("org.springframework:spring-context")))
+        );
+    }
+}
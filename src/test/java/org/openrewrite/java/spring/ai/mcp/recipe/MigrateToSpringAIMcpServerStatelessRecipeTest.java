@@ -0,0 +1,86 @@
+package org.openrewrite.java.spring.ai.mcp.recipe;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.maven.MavenExecutionContextView;
+import org.openrewrite.maven.MavenSettings;
+import org.openrewrite.maven.tree.MavenRepository;
+import org.openrewrite.test.RecipeSpec;
+import org.openrewrite.test.RewriteTest;
+
+import java.util.List;
+
+import static org.openrewrite.gradle.Assertions.buildGradle;
+import static org.openrewrite.java.Assertions.java;
+import static org.openrewrite.java.Assertions.mavenProject;
+import static org.openrewrite.java.Assertions.srcMainJava;
+import static org.openrewrite.maven.Assertions.pomXml;
+import static org.openrewrite.properties.Assertions.properties;
+
+class MigrateToSpringAIMcpServerStatelessRecipeTest implements RewriteTest {
+    @Override
+    public void defaults(RecipeSpec spec) {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        // Declarative recipe, loaded by name rather than serialized
+        spec.recipeFromResources("MigrateToSpringAIMcpServerStatelessRecipe")
+                .validateRecipeSerialization(false)
+                .executionContext(MavenExecutionContextView.view(ctx).setMavenSettings(MavenSettings.readMavenSettingsFromDisk(ctx)));
+    }
+
+    @Test
+    public void addSpringAi11StarterToMavenBuild() {
+        rewriteRun(
+                mavenProject("web-to-mcp",
+                        pomXml(AddToolAnnotationToMappingMethodRecipeTest.webPomWithoutMcp, """
+                                <project>
+                                    <groupId>com.atbug.rewrite</groupId>
+                                    <artifactId>web-to-mcp</artifactId>
+                                    <version>1.0-SNAPSHOT</version>
+                                    <dependencies>
+                                        <dependency>
+                                            <groupId>org.springframework.ai</groupId>
+                                            <artifactId>spring-ai-starter-mcp-server-webmvc</artifactId>
+                                            <version>1.1.8</version>
+                                        </dependency>
+                                        <dependency>
+                                            <groupId>org.springframework.boot</groupId>
+                                            <artifactId>spring-boot-starter-web</artifactId>
+                                            <version>3.4.5</version>
+                                        </dependency>
+                                    </dependencies>
+                                </project>
+                                """),
+                        srcMainJava(java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController, AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool)),
+                        properties("""
+                                server.port=8080
+                                """, """
+                                server.port=8080
+                                spring.ai.mcp.server.name=webmvc-mcp-server
+                                spring.ai.mcp.server.protocol=STATELESS
+                                spring.ai.mcp.server.streamable-http.mcp-endpoint=/mcp
+                                spring.ai.mcp.server.type=SYNC
+                                spring.ai.mcp.server.version=1.0.0
+                                """, spec -> spec.path("src/main/resources/application.properties")))
+        );
+    }
+
+    @Test
+    public void addSpringAi11StarterToGradleBuild() {
+        rewriteRun(
+                mavenProject("web-to-mcp",
+                        buildGradle(FindWebFluxModuleRecipeTest.buildScript, """
+                                plugins {
+                                    id 'java'
+                                }
+                                
+                                dependencies {
+                                    implementation "org.springframework.ai:spring-ai-starter-mcp-server-webmvc:1.1.8"
+                                }
+                                """,
+                                spec -> spec.markers(FindWebFluxModuleRecipeTest.gradleProject("org.springframework:spring-webmvc")
+                                        .withMavenRepositories(List.of(MavenRepository.MAVEN_CENTRAL)))),
+                        srcMainJava(java(AddToolAnnotationToMappingMethodRecipeTest.originHelloController, AddToolAnnotationToMappingMethodRecipeTest.expectedHelloTool)))
+        );
+    }
+}